@@ -0,0 +1,202 @@
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for {@link AtmServer} over loopback.
+ * Starts a server over a bank of generated accounts and opens a number of
+ * connections, each keeping a window of pipelined requests in flight: a mix of
+ * balance checks, deposits, withdrawals and transfers. Reports operations per
+ * second and latency percentiles.
+ * <p>
+ * Usage: {@code java -cp bin AtmLoadTest [--connections 8] [--window 256] [--accounts 10000] [--seconds 10] [--loops N]}
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class AtmLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int connections = 8;
+        int window = 256;
+        int accountCount = 10_000;
+        int seconds = 10;
+        int loops = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--connections":
+                    connections = value;
+                    break;
+                case "--window":
+                    window = value;
+                    break;
+                case "--accounts":
+                    accountCount = value;
+                    break;
+                case "--seconds":
+                    seconds = value;
+                    break;
+                case "--loops":
+                    loops = value;
+                    break;
+                default:
+                    System.out.println("Usage: java AtmLoadTest [--connections 8] [--window 256] [--accounts 10000] "
+                            + "[--seconds 10] [--loops N]");
+                    return;
+            }
+        }
+
+        Path workDir = Files.createTempDirectory("bank-atm-load");
+        TransactionLogger.useFiles(workDir.resolve("transactions.csv").toString(),
+                workDir.resolve("transactions.idx").toString());
+        TransactionLogger.enableBatching(4096, 2, TransactionWriter.FsyncPolicy.NEVER);
+        Bank bank = new Bank("Load Test Bank");
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            Customer customer = new Customer(String.format("A%06d", i), "Load Customer", "1 Load St", "555-0000", "00000-0000000-0");
+            SavingsAccount account = new SavingsAccount(customer, 1_000_000.0, 5.0);
+            bank.addCustomer(customer);
+            bank.addAccount(account);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+
+        try (AtmServer server = AtmServer.start(bank, new InetSocketAddress("127.0.0.1", 0), loops)) {
+            System.out.println("Running " + connections + " connections with " + window + " requests in flight each, "
+                    + loops + " server loops, for " + seconds + " s...");
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            AtomicLong requests = new AtomicLong();
+            AtomicInteger failures = new AtomicInteger();
+            List<Driver> drivers = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                drivers.add(new Driver(AtmClient.connect("127.0.0.1", server.getPort()), accountNumbers, c, window,
+                        deadline, requests, failures));
+            }
+            long start = System.nanoTime();
+            drivers.forEach(driver -> driver.thread.start());
+            for (Driver driver : drivers) {
+                driver.thread.join();
+                driver.client.close();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            long[] all = merge(drivers);
+            System.out.printf("Operations: %d (%d not OK) in %.1f s = %.0f ops/s%n", requests.get(), failures.get(),
+                    elapsed, requests.get() / elapsed);
+            System.out.printf("Latency ms: p50 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n", percentile(all, 0.50),
+                    percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0));
+        } finally {
+            TransactionLogger.disableBatching();
+            TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+            try (var files = Files.walk(workDir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Drives one connection: whenever responses have freed room in the window, sends
+     * that many new requests with a single flush. Latencies are recorded on the
+     * client's reader thread; samples[0] holds the number recorded.
+     */
+    private static final class Driver implements Runnable {
+        final AtmClient client;
+        final Thread thread;
+        final long[] samples = new long[1 << 20];
+        private final String[] accounts;
+        private final int window;
+        private final long deadline;
+        private final Semaphore room;
+        private final AtomicLong requests;
+        private final AtomicInteger failures;
+        private int n;
+
+        Driver(AtmClient client, String[] accounts, int seed, int window, long deadline, AtomicLong requests,
+                AtomicInteger failures) {
+            this.client = client;
+            this.accounts = accounts;
+            this.n = seed;
+            this.window = window;
+            this.deadline = deadline;
+            this.room = new Semaphore(window);
+            this.requests = requests;
+            this.failures = failures;
+            this.thread = new Thread(this, "atm-load-" + seed);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.nanoTime() < deadline) {
+                    room.acquire();
+                    int batch = 1 + room.drainPermits();
+                    for (int i = 0; i < batch; i++) {
+                        long sent = System.nanoTime();
+                        nextRequest().whenComplete((response, failure) -> {
+                            if (failure != null || response.getStatus() != AtmWireProtocol.OK) {
+                                failures.incrementAndGet();
+                            }
+                            int count = (int) ++samples[0];
+                            if (count < samples.length) {
+                                samples[count] = System.nanoTime() - sent;
+                            }
+                            requests.incrementAndGet();
+                            room.release();
+                        });
+                    }
+                    client.flush();
+                }
+                room.acquire(window);
+            } catch (Exception e) {
+                System.err.println("Error driving ATM connection: " + e.getMessage());
+            }
+        }
+
+        // A balance check, deposit, withdrawal or transfer on pseudo-random accounts
+        private CompletableFuture<AtmClient.Response> nextRequest() throws Exception {
+            n = n * 1103515245 + 12345;
+            String account = accounts[Math.floorMod(n, accounts.length)];
+            switch (Math.floorMod(n >> 16, 4)) {
+                case 0:
+                    return client.balance(account);
+                case 1:
+                    return client.deposit(account, 1.0);
+                case 2:
+                    return client.withdraw(account, 1.0);
+                default:
+                    return client.transfer(account, accounts[Math.floorMod(n >> 8, accounts.length)], 1.0);
+            }
+        }
+    }
+
+    private static long[] merge(List<Driver> drivers) {
+        int total = 0;
+        for (Driver driver : drivers) {
+            total += (int) Math.min(driver.samples[0], driver.samples.length - 1);
+        }
+        long[] all = new long[total];
+        int size = 0;
+        for (Driver driver : drivers) {
+            int count = (int) Math.min(driver.samples[0], driver.samples.length - 1);
+            System.arraycopy(driver.samples, 1, all, size, count);
+            size += count;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
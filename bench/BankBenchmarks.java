@@ -0,0 +1,222 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Benchmarks for the core banking operations.
+ * Covers account deposits, withdrawals and transfers, bank postings including
+ * transaction logging, CSV parsing, and loading and saving data files.
+ * <p>
+ * Usage: {@code java -Xmx8g -cp bin BankBenchmarks [--rows 10000,1000000,10000000] [--quick]}
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class BankBenchmarks {
+
+    private static final long[] DEFAULT_ROWS = { 10_000, 1_000_000 };
+
+    public static void main(String[] args) throws Exception {
+        long[] rowCounts = DEFAULT_ROWS;
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rows") && i + 1 < args.length) {
+                rowCounts = parseRows(args[++i]);
+            } else if (args[i].equals("--quick")) {
+                quick = true;
+            } else {
+                System.out.println("Usage: java BankBenchmarks [--rows 10000,1000000,10000000] [--quick]");
+                return;
+            }
+        }
+
+        Path workDir = Files.createTempDirectory("bank-bench");
+        TransactionLogger.useFiles(workDir.resolve("transactions.csv").toString(),
+                workDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(workDir.resolve("customers.csv").toString(),
+                workDir.resolve("accounts.csv").toString());
+
+        Benchmark fast = quick ? new Benchmark(1, 2, 200) : new Benchmark(3, 5, 1000);
+        Benchmark slow = quick ? new Benchmark(0, 1, 0) : new Benchmark(1, 3, 0);
+        try {
+            accountBenchmarks(fast);
+            bankBenchmarks(fast);
+            parsingBenchmarks(fast);
+            for (long rows : rowCounts) {
+                dataManagerBenchmarks(slow, (int) rows, workDir);
+            }
+        } finally {
+            TransactionLogger.disableBatching();
+            TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+            DataManager.useFiles("customers.csv", "accounts.csv");
+            deleteRecursively(workDir.toFile());
+        }
+        fast.printResults();
+        slow.printResults();
+    }
+
+    private static void accountBenchmarks(Benchmark benchmark) throws Exception {
+        Customer customer = new Customer("B001", "Bench Customer", "1 Bench St", "555-0000", "00000-0000000-0");
+        SavingsAccount savings = new SavingsAccount(customer, 5.0);
+        CurrentAccount current = new CurrentAccount(customer, 1_000_000.0, 10.0);
+        savings.deposit(1_000_000_000.0);
+
+        benchmark.throughput("Account.open", () -> new SavingsAccount(customer, 5.0));
+        benchmark.throughput("Account.deposit", () -> savings.deposit(1.0));
+        benchmark.throughput("Account.withdraw", () -> savings.withdraw(0.01));
+        boolean[] forward = { true };
+        benchmark.throughput("Account.transfer", () -> {
+            forward[0] = !forward[0];
+            return forward[0] ? savings.transfer(current, 1.0) : current.transfer(savings, 1.0);
+        });
+    }
+
+    private static void bankBenchmarks(Benchmark benchmark) throws Exception {
+        Bank bank = new Bank("Bench Bank");
+        Customer customer = new Customer("B002", "Bench Customer", "2 Bench St", "555-0000", "00000-0000000-0");
+        SavingsAccount source = new SavingsAccount(customer, 1_000_000_000.0, 5.0);
+        SavingsAccount target = new SavingsAccount(customer, 1_000_000_000.0, 5.0);
+        bank.addCustomer(customer);
+        bank.addAccount(source);
+        bank.addAccount(target);
+
+        benchmark.throughput("Bank.deposit (sync log)", () -> {
+            bank.deposit(customer, source, 1.0);
+            return source;
+        });
+        benchmark.throughput("Bank.transfer (sync log)", () -> bank.transfer(customer, source, target, 1.0));
+
+        TransactionLogger.enableBatching(1024, 2, TransactionWriter.FsyncPolicy.NEVER);
+        benchmark.throughput("Bank.deposit (batched log)", () -> {
+            bank.deposit(customer, source, 1.0);
+            return source;
+        });
+        benchmark.throughput("Bank.transfer (batched log)", () -> bank.transfer(customer, source, target, 1.0));
+        TransactionLogger.disableBatching();
+    }
+
+    private static void parsingBenchmarks(Benchmark benchmark) throws Exception {
+        String csv = "C000123,3f2504e0-4f89-11d3-9a0c-0305e82c3301,Withdrawal,1250.75";
+        benchmark.throughput("Transaction.fromCSV", () -> Transaction.fromCSV(csv));
+    }
+
+    private static void dataManagerBenchmarks(Benchmark benchmark, int rows, Path workDir) throws Exception {
+        System.out.println("Generating " + rows + " customers and accounts...");
+        writeDataFiles(rows, workDir);
+        String suffix = " (" + rows + " rows)";
+
+        benchmark.singleShot("DataManager.loadCustomers" + suffix, null, DataManager::loadCustomers);
+
+        LoadState state = new LoadState();
+        benchmark.singleShot("DataManager.loadAccounts" + suffix, () -> {
+            state.bank = new Bank("Bench Bank");
+            state.customers = DataManager.loadCustomers();
+        }, () -> quietly(() -> DataManager.loadAccounts(state.customers, state.bank)));
+
+        benchmark.singleShot("DataManager.loadCustomersParallel" + suffix, null, DataManager::loadCustomersParallel);
+
+        benchmark.singleShot("DataManager.loadAccountsParallel" + suffix, () -> {
+            state.bank = new Bank("Bench Bank");
+            state.customers = DataManager.loadCustomersParallel();
+        }, () -> DataManager.loadAccountsParallel(state.customers, state.bank));
+
+        Bank loaded = state.bank;
+        InterestAccrualJob interest = new InterestAccrualJob(loaded, workDir.resolve("interest-" + rows + ".checkpoint").toFile(),
+                10_000, java.util.concurrent.ForkJoinPool.commonPool());
+        int[] period = { 0 };
+        benchmark.singleShot("InterestAccrualJob.run" + suffix, null, () -> interest.run("P" + period[0]++));
+
+        File payments = workDir.resolve("payments-" + rows + ".csv").toFile();
+        writePaymentFile(rows, payments);
+        BulkPaymentProcessor processor = new BulkPaymentProcessor(loaded, java.util.concurrent.ForkJoinPool.commonPool());
+        benchmark.singleShot("BulkPaymentProcessor.process" + suffix, null,
+                () -> processor.process(payments, workDir.resolve("payments-" + rows + ".report").toFile()));
+
+        Collection<Account> accounts = loaded.snapshotAccounts();
+        benchmark.singleShot("DataManager.saveAccounts" + suffix, null, () -> {
+            DataManager.saveAccounts(accounts);
+            return accounts;
+        });
+    }
+
+    private static void writeDataFiles(int rows, Path workDir) throws IOException {
+        try (BufferedWriter customers = new BufferedWriter(new FileWriter(workDir.resolve("customers.csv").toFile()));
+             BufferedWriter accounts = new BufferedWriter(new FileWriter(workDir.resolve("accounts.csv").toFile()))) {
+            for (int i = 0; i < rows; i++) {
+                String customerID = "C" + i;
+                String accountNumber = "ACC-" + i;
+                customers.write(customerID + ",Customer " + i + ",Street " + i + ",555-" + i + ",CNIC-" + i + "," + accountNumber);
+                customers.newLine();
+                if (i % 2 == 0) {
+                    accounts.write(accountNumber + "," + (i % 10_000) + ".5,Savings," + customerID + ",3.5");
+                } else {
+                    accounts.write(accountNumber + "," + (i % 10_000) + ".5,Current," + customerID + ",500.0,25.0");
+                }
+                accounts.newLine();
+            }
+        }
+    }
+
+    // One credit per account, as in a payroll file
+    private static void writePaymentFile(int rows, File file) throws IOException {
+        try (BufferedWriter payments = new BufferedWriter(new FileWriter(file))) {
+            for (int i = 0; i < rows; i++) {
+                payments.write("PAY-" + i + ",ACC-" + i + ",CREDIT,1500.00");
+                payments.newLine();
+            }
+        }
+    }
+
+    /**
+     * Runs an operation with console output discarded, so per-record logging is
+     * still paid for but does not flood the terminal.
+     */
+    private static Object quietly(Runnable operation) {
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        System.setOut(discard);
+        System.setErr(discard);
+        try {
+            operation.run();
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        return operation;
+    }
+
+    private static long[] parseRows(String value) {
+        String[] parts = value.split(",");
+        long[] rows = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            rows[i] = Long.parseLong(parts[i].trim());
+        }
+        return rows;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Bank and customers produced by the unmeasured setup of a load benchmark.
+     */
+    private static final class LoadState {
+        private Bank bank;
+        private Map<String, Customer> customers;
+    }
+}
@@ -0,0 +1,170 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal microbenchmark runner for the banking core.
+ * Runs warmup and measurement iterations of an operation and reports throughput,
+ * average time per operation, allocation per operation and GC activity
+ * (the same figures JMH reports with {@code -prof gc}).
+ * <p>
+ * JMH cannot be used here because it refuses benchmark classes in the default
+ * package, which is where every class of this project lives.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class Benchmark {
+
+    /**
+     * A benchmarked operation. The return value is consumed so the JIT cannot drop the work.
+     */
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Sink for operation results; volatile so writes cannot be optimised away. */
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationMillis;
+    private final List<String> rows = new ArrayList<>();
+
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationMillis = iterationMillis;
+    }
+
+    /**
+     * Measures a fast operation by calling it repeatedly for a fixed time per iteration.
+     *
+     * @param name the benchmark name
+     * @param operation the operation to call
+     * @throws Exception if the operation fails
+     */
+    public void throughput(String name, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            timedLoop(operation);
+        }
+        Measurement total = new Measurement();
+        for (int i = 0; i < measurementIterations; i++) {
+            total.add(timedLoop(operation));
+        }
+        report(name, total);
+    }
+
+    /**
+     * Measures a slow operation (such as loading a file) by running it once per iteration.
+     *
+     * @param name the benchmark name
+     * @param setup runs before each call and is not measured; may be null
+     * @param operation the operation to call
+     * @throws Exception if the operation fails
+     */
+    public void singleShot(String name, Runnable setup, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            sink = operation.run();
+        }
+        Measurement total = new Measurement();
+        for (int i = 0; i < measurementIterations; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            Measurement single = start();
+            sink = operation.run();
+            single.stop(1);
+            total.add(single);
+        }
+        report(name, total);
+    }
+
+    /**
+     * Prints the collected results as a table.
+     */
+    public void printResults() {
+        System.out.println();
+        System.out.println(String.format("%-48s %14s %14s %14s %12s %10s",
+                "Benchmark", "ops/s", "avg ns/op", "alloc B/op", "alloc MB/s", "gc ms"));
+        for (String row : rows) {
+            System.out.println(row);
+        }
+    }
+
+    private Measurement timedLoop(Operation operation) throws Exception {
+        Measurement measurement = start();
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000L;
+        long operations = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 256; i++) {
+                sink = operation.run();
+            }
+            operations += 256;
+        }
+        measurement.stop(operations);
+        return measurement;
+    }
+
+    private void report(String name, Measurement total) {
+        double seconds = total.nanos / 1e9;
+        double opsPerSecond = total.operations / seconds;
+        double nanosPerOp = total.nanos / (double) total.operations;
+        double bytesPerOp = total.allocatedBytes / (double) total.operations;
+        double megabytesPerSecond = total.allocatedBytes / seconds / (1024 * 1024);
+        String row = String.format("%-48s %14.1f %14.1f %14.1f %12.1f %10d",
+                name, opsPerSecond, nanosPerOp, bytesPerOp, megabytesPerSecond, total.gcMillis);
+        rows.add(row);
+        System.out.println(row);
+    }
+
+    private static Measurement start() {
+        Measurement measurement = new Measurement();
+        measurement.startNanos = System.nanoTime();
+        measurement.startBytes = THREADS.getCurrentThreadAllocatedBytes();
+        measurement.startGcMillis = gcMillis();
+        return measurement;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Accumulated time, operation count, allocation and GC time.
+     */
+    private static final class Measurement {
+        private long startNanos;
+        private long startBytes;
+        private long startGcMillis;
+        private long nanos;
+        private long operations;
+        private long allocatedBytes;
+        private long gcMillis;
+
+        void stop(long operationCount) {
+            nanos = System.nanoTime() - startNanos;
+            allocatedBytes = THREADS.getCurrentThreadAllocatedBytes() - startBytes;
+            gcMillis = gcMillis() - startGcMillis;
+            operations = operationCount;
+        }
+
+        void add(Measurement other) {
+            nanos += other.nanos;
+            operations += other.operations;
+            allocatedBytes += other.allocatedBytes;
+            gcMillis += other.gcMillis;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link BankHttpServer} on localhost.
+ * Starts a server over a bank of generated accounts, then runs a number of concurrent
+ * clients that each send a mix of balance reads, deposits, withdrawals and transfers
+ * back to back for a fixed time, and reports throughput and latency percentiles.
+ * <p>
+ * Usage: {@code java -cp bin HttpLoadTest [--clients 1000] [--accounts 10000] [--seconds 10]}
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 1000;
+        int accountCount = 10_000;
+        int seconds = 10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients":
+                    clients = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--accounts":
+                    accountCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.out.println("Usage: java HttpLoadTest [--clients 1000] [--accounts 10000] [--seconds 10]");
+                    return;
+            }
+        }
+
+        Path workDir = Files.createTempDirectory("bank-http-load");
+        TransactionLogger.useFiles(workDir.resolve("transactions.csv").toString(),
+                workDir.resolve("transactions.idx").toString());
+        TransactionLogger.enableBatching(1024, 2, TransactionWriter.FsyncPolicy.NEVER);
+        Bank bank = new Bank("Load Test Bank");
+        String[] accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            Customer customer = new Customer(String.format("L%06d", i), "Load Customer", "1 Load St", "555-0000", "00000-0000000-0");
+            SavingsAccount account = new SavingsAccount(customer, 1_000_000.0, 5.0);
+            bank.addCustomer(customer);
+            bank.addAccount(account);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+
+        try (BankHttpServer server = BankHttpServer.start(bank, 0)) {
+            String base = "http://127.0.0.1:" + server.getPort();
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            System.out.println("Running " + clients + " clients against " + accountCount + " accounts for "
+                    + seconds + " s...");
+
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            AtomicInteger failures = new AtomicInteger();
+            AtomicLong requests = new AtomicLong();
+            List<long[]> latencies = new ArrayList<>();
+            List<CompletableFuture<Void>> running = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                Client loadClient = new Client(client, base, accountNumbers, c, deadline, requests, failures);
+                latencies.add(loadClient.samples);
+                running.add(loadClient.next());
+            }
+            CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0])).join();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            long[] all = merge(latencies, requests.get());
+            System.out.printf("Requests: %d (%d failed) in %.1f s = %.0f req/s%n", requests.get(), failures.get(),
+                    elapsed, requests.get() / elapsed);
+            System.out.printf("Latency ms: p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n", percentile(all, 0.50),
+                    percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1.0));
+        } finally {
+            TransactionLogger.disableBatching();
+            TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+            try (var files = Files.walk(workDir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * One simulated client: sends its next request when the previous response arrives,
+     * until the deadline. Requests are sent asynchronously, so thousands of clients
+     * need no thread each. samples[0] holds the number of latencies recorded.
+     */
+    private static final class Client {
+        final long[] samples = new long[1 << 16];
+        private final HttpClient client;
+        private final String base;
+        private final String[] accounts;
+        private final long deadline;
+        private final AtomicLong requests;
+        private final AtomicInteger failures;
+        private int n;
+
+        Client(HttpClient client, String base, String[] accounts, int seed, long deadline, AtomicLong requests,
+                AtomicInteger failures) {
+            this.client = client;
+            this.base = base;
+            this.accounts = accounts;
+            this.n = seed;
+            this.deadline = deadline;
+            this.requests = requests;
+            this.failures = failures;
+        }
+
+        CompletableFuture<Void> next() {
+            if (System.nanoTime() >= deadline) {
+                return CompletableFuture.completedFuture(null);
+            }
+            HttpRequest request = nextRequest();
+            long sent = System.nanoTime();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, failure) -> {
+                        if (failure != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        int count = (int) ++samples[0];
+                        if (count < samples.length) {
+                            samples[count] = System.nanoTime() - sent;
+                        }
+                        requests.incrementAndGet();
+                        return null;
+                    })
+                    .thenCompose(ignored -> next());
+        }
+
+        // A balance read, deposit, withdrawal or transfer on pseudo-random accounts
+        private HttpRequest nextRequest() {
+            n = n * 1103515245 + 12345;
+            String account = accounts[Math.floorMod(n, accounts.length)];
+            switch (Math.floorMod(n >> 16, 4)) {
+                case 0:
+                    return HttpRequest.newBuilder(URI.create(base + "/accounts/" + account)).GET().build();
+                case 1:
+                    return post(base + "/accounts/" + account + "/deposit", "{\"amount\":1.00}");
+                case 2:
+                    return post(base + "/accounts/" + account + "/withdraw", "{\"amount\":1.00}");
+                default:
+                    String target = accounts[Math.floorMod(n >> 8, accounts.length)];
+                    return post(base + "/transfers", "{\"from\":\"" + account + "\",\"to\":\"" + target
+                            + "\",\"amount\":1.00}");
+            }
+        }
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static long[] merge(List<long[]> latencies, long total) {
+        long[] all = new long[(int) Math.min(total, Integer.MAX_VALUE - 8)];
+        int size = 0;
+        for (long[] samples : latencies) {
+            int count = (int) Math.min(samples[0], samples.length - 1);
+            int copied = Math.min(count, all.length - size);
+            System.arraycopy(samples, 1, all, size, copied);
+            size += copied;
+        }
+        all = Arrays.copyOf(all, size);
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
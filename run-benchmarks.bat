@@ -0,0 +1,13 @@
+@echo off
+REM Compile sources and benchmarks, then run the benchmark suite
+echo Compiling benchmarks...
+javac -d bin src\*.java bench\*.java
+if %errorlevel% neq 0 (
+    echo ERROR: Benchmark compilation failed!
+    exit /b 1
+)
+echo.
+echo Running benchmarks...
+java -Xmx8g -cp bin BankBenchmarks %*
+echo.
+echo Benchmarks completed!
@@ -0,0 +1,17 @@
+# PowerShell script to compile and run the benchmark suite
+
+Write-Host "Compiling benchmarks..." -ForegroundColor Cyan
+
+javac -d bin src\*.java bench\*.java
+if ($LASTEXITCODE -ne 0) {
+    Write-Host "ERROR: Benchmark compilation failed!" -ForegroundColor Red
+    exit 1
+}
+
+Write-Host "`nRunning benchmarks..." -ForegroundColor Cyan
+Write-Host ""
+
+java -Xmx8g -cp bin BankBenchmarks @args
+
+Write-Host ""
+Write-Host "Benchmarks completed!" -ForegroundColor Green
@@ -10,6 +10,8 @@ public class ATM {
     private String atmID;
     private String location;
     private double cashAvailable;
+    private volatile IdempotencyCache idempotencyCache =
+            new IdempotencyCache(IdempotencyCache.DEFAULT_MAX_ENTRIES, IdempotencyCache.DEFAULT_TTL_MILLIS);
 
     public ATM(String atmID, String location, double cashAvailable) {
         validateInput(atmID, "ATM ID cannot be empty.");
@@ -32,15 +34,50 @@ public class ATM {
      * @throws IllegalArgumentException if amount is invalid or ATM lacks sufficient cash
      */
     public void withdraw(Account account, double amount) {
-        validateAmount(amount, "Amount must be positive.");
-        if (amount > cashAvailable) {
-            throw new IllegalArgumentException("ATM does not have enough cash.");
-        }
-        if (account.withdraw(amount)) {
-            cashAvailable -= amount;
-            logTransaction(account, amount, "Withdrawal");
-            System.out.println("Withdrawal successful. Amount: " + amount);
+        long start = System.nanoTime();
+        try {
+            validateAmount(amount, "Amount must be positive.");
+            if (amount > cashAvailable) {
+                throw new IllegalArgumentException("ATM does not have enough cash.");
+            }
+            if (account.withdraw(amount)) {
+                cashAvailable -= amount;
+                logTransaction(account, amount, "Withdrawal");
+            }
+        } catch (IllegalArgumentException e) {
+            BankMetrics.ATM_WITHDRAW.rejected(start);
+            throw e;
+        } catch (RuntimeException e) {
+            BankMetrics.ATM_WITHDRAW.failed(start);
+            throw e;
         }
+        BankMetrics.ATM_WITHDRAW.succeeded(start);
+        System.out.println("Withdrawal successful. Amount: " + amount);
+    }
+
+    /**
+     * Processes a withdrawal that may be retried, such as one resent after a network timeout.
+     * The first request with a key is processed; a retry with the same key returns
+     * without dispensing or debiting again, or rethrows the original refusal. The ATM
+     * is not part of the request, so a retry that reaches a different ATM of the same
+     * bank is recognized too.
+     * 
+     * @param idempotencyKey identifies the request across retries (cannot be empty)
+     * @param account the account to withdraw from
+     * @param amount the amount to withdraw
+     * @throws IllegalArgumentException if the withdrawal was refused or the key was used for a different request
+     */
+    public void withdraw(String idempotencyKey, Account account, double amount) {
+        String request = "ATM withdrawal," + account.getAccountNumber() + "," + amount;
+        idempotencyCache.execute(idempotencyKey, request, () -> {
+            withdraw(account, amount);
+            return null;
+        });
+    }
+
+    // Share the bank's cache, so keys are recognized whichever ATM a retry arrives at
+    void useIdempotencyCache(IdempotencyCache cache) {
+        this.idempotencyCache = cache;
     }
 
     /**
@@ -59,13 +96,20 @@ public class ATM {
         System.out.println("Deposit successful. Amount: " + amount);
     }
 
+    /**
+     * Processes a transfer between two accounts through the ATM.
+     * The debit, credit and log record are applied atomically by the {@link TransferEngine}.
+     * 
+     * @param sourceAccount the account to transfer from
+     * @param targetAccount the account to transfer to
+     * @param amount the amount to transfer
+     * @throws IllegalArgumentException if amount is invalid or balance is insufficient
+     */
     public void transfer(Account sourceAccount, Account targetAccount, double amount) {
         validateAmount(amount, "Amount must be positive.");
-        if (sourceAccount.withdraw(amount)) {
-            targetAccount.deposit(amount);
-            logTransaction(sourceAccount, amount, "Transfer");
-            System.out.println("Transfer successful. Amount: " + amount);
-        }
+        TransferEngine.shared().transfer(sourceAccount, targetAccount, amount,
+                createTransaction(sourceAccount, amount, "Transfer"));
+        System.out.println("Transfer successful. Amount: " + amount);
     }
 
     public void replenishCash(double amount) {
@@ -90,10 +134,13 @@ public class ATM {
     }
 
     private void logTransaction(Account account, double amount, String type) {
+        TransactionLogger.log(createTransaction(account, amount, type));
+    }
+
+    private Transaction createTransaction(Account account, double amount, String type) {
         String customerID = account.getCustomer().getCustomerID();
         String accountNumber = account.getAccountNumber();
-        Transaction transaction = new Transaction(customerID, accountNumber, type, amount);
-        TransactionLogger.log(transaction);
+        return new Transaction(customerID, accountNumber, type, amount);
     }
 
     private void validateInput(String input, String errorMessage) {
@@ -103,7 +150,7 @@ public class ATM {
     }
 
     private void validateAmount(double amount, String errorMessage) {
-        if (amount <= 0) {
+        if (!(amount > 0)) {
             throw new IllegalArgumentException(errorMessage);
         }
     }
@@ -1,43 +1,109 @@
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract base class representing a bank account.
  * Provides common functionality for all account types including deposits, withdrawals, and transfers.
  * Subclasses must implement specific account-type functionality.
+ * <p>
+ * The balance is held as a count of minor currency units (cents) in an {@link AtomicLong}.
+ * Every update is a compare-and-set loop, and the sufficient-funds check runs inside
+ * the loop, so concurrent deposits and withdrawals never lose updates or overdraw.
  * 
  * @author Bank Management System
  * @version 1.0
  */
 public abstract class Account {
+    // Largest posting in cents; beyond 2^53 a double no longer holds every whole number of cents
+    private static final double MAX_POSTING_MINOR = 1L << 53;
+
+    // Null when this account is a view over an AccountStore, which holds them instead
     protected String accountNumber;
-    protected double balance;
     protected String accountType;
     protected Customer customer;
+    // Heap balance of an ordinary account; null when this account is a view over an AccountStore
+    private final AtomicLong balanceMinor;
+    protected final AccountStore store;
+    protected final int ordinal;
+    private volatile BalanceListener balanceListener;
+
+    // Numbers new accounts; the node ID lets several processes open accounts without clashing
+    private static volatile AccountIdGenerator idGenerator = new SnowflakeIdGenerator(Integer.getInteger("bank.nodeId", 0));
 
     public Account(String accountType, Customer customer) {
+        this(idGenerator.nextAccountNumber(), accountType, customer);
+    }
+
+    /**
+     * Replaces the generator that numbers newly opened accounts.
+     * Existing accounts keep their numbers.
+     *
+     * @param generator the new generator (cannot be null)
+     */
+    public static void useIdGenerator(AccountIdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("ID generator cannot be null.");
+        }
+        idGenerator = generator;
+    }
+
+    /**
+     * Creates an account with an existing account number, as when loading saved data.
+     * Avoids generating a number that would be replaced straight away.
+     *
+     * @param accountNumber the account number (cannot be empty)
+     * @param accountType the account type (cannot be empty)
+     * @param customer the owning customer (cannot be null)
+     */
+    protected Account(String accountNumber, String accountType, Customer customer) {
+        validateInput(accountNumber, "Account number cannot be empty.");
         validateInput(accountType, "Account type cannot be empty.");
         validateCustomer(customer);
 
-        this.accountNumber = UUID.randomUUID().toString();
+        this.accountNumber = accountNumber;
         this.accountType = accountType;
         this.customer = customer;
-        this.balance = 0;
+        this.balanceMinor = new AtomicLong();
+        this.store = null;
+        this.ordinal = -1;
+    }
+
+    /**
+     * Creates a lightweight view of an account held in an {@link AccountStore}.
+     * Every field is read, and the balance updated, in the store's columns only when
+     * asked for, so views can be created on demand and discarded without copying any state.
+     *
+     * @param store the store holding the account
+     * @param ordinal the account's ordinal in the store
+     */
+    protected Account(AccountStore store, int ordinal) {
+        this.balanceMinor = null;
+        this.store = store;
+        this.ordinal = ordinal;
     }
 
     public String getAccountNumber() {
-        return accountNumber;
+        return store == null ? accountNumber : store.getAccountNumber(ordinal);
     }
 
     public String getAccountType() {
-        return accountType;
+        return store == null ? accountType : store.getAccountType(ordinal);
     }
 
     public double getBalance() {
-        return balance;
+        return toAmount(getBalanceMinor());
+    }
+
+    /**
+     * Returns the balance in minor currency units (cents).
+     * 
+     * @return the current balance in minor units
+     */
+    public long getBalanceMinor() {
+        return store == null ? balanceMinor.get() : store.getBalanceMinor(ordinal);
     }
 
     public Customer getCustomer() {
-        return customer;
+        return store == null ? customer : store.getCustomer(ordinal);
     }
 
     /**
@@ -49,7 +115,11 @@ public abstract class Account {
      */
     public boolean deposit(double amount) {
         validateAmount(amount, "Deposit amount must be greater than zero.");
-        balance += amount;
+        long amountMinor = toPostingMinorUnits(amount);
+        BankEvents.BalanceChange event = new BankEvents.BalanceChange();
+        event.begin();
+        long balance = credit(amountMinor);
+        event.record(this, "Deposit", amount, balance);
         return true; 
     }
 
@@ -62,15 +132,17 @@ public abstract class Account {
      */
     public boolean withdraw(double amount) {
         validateAmount(amount, "Withdrawal amount must be greater than zero.");
-        if (balance < amount) {
-            throw new IllegalArgumentException("Insufficient balance.");
-        }
-        balance -= amount;
+        long amountMinor = toPostingMinorUnits(amount);
+        BankEvents.BalanceChange event = new BankEvents.BalanceChange();
+        event.begin();
+        long balance = debit(amountMinor, 0);
+        event.record(this, "Withdrawal", amount, balance);
         return true; // Withdrawal successful
     }
 
     /**
      * Transfers the specified amount from this account to the target account.
+     * The debit and credit are applied atomically through the shared {@link TransferEngine}.
      * 
      * @param targetAccount the account to transfer funds to (cannot be null)
      * @param amount the amount to transfer (must be greater than zero)
@@ -82,9 +154,8 @@ public abstract class Account {
         if (targetAccount == null) {
             throw new IllegalArgumentException("Target account cannot be null.");
         }
-        withdraw(amount);
-        boolean depositSuccess = targetAccount.deposit(amount);
-        return depositSuccess;
+        TransferEngine.shared().transfer(this, targetAccount, amount);
+        return true;
     }
 
     private void validateInput(String input, String errorMessage) {
@@ -94,7 +165,8 @@ public abstract class Account {
     }
 
     private void validateAmount(double amount, String errorMessage) {
-        if (amount <= 0) {
+        // Written so that NaN is refused too
+        if (!(amount > 0)) {
             throw new IllegalArgumentException(errorMessage);
         }
     }
@@ -110,7 +182,146 @@ public abstract class Account {
     }
 
     protected void setBalance(double balance) {
-        this.balance = balance;
+        setBalanceMinor(toMinorUnits(balance));
+    }
+
+    /**
+     * Replaces the balance, for example when restoring persisted state.
+     * 
+     * @param updatedMinor the new balance in minor units
+     */
+    protected final void setBalanceMinor(long updatedMinor) {
+        long previous = store == null ? balanceMinor.getAndSet(updatedMinor) : store.getAndSetBalance(ordinal, updatedMinor);
+        notifyBalanceChanged(previous, updatedMinor);
+    }
+
+    /**
+     * Sets the listener notified after every balance update.
+     * A {@link Bank} attaches itself when the account is added to it.
+     * 
+     * @param listener the listener, or null to stop notifications
+     */
+    void setBalanceListener(BalanceListener listener) {
+        this.balanceListener = listener;
+    }
+
+    /**
+     * Atomically adds the given number of minor units to the balance.
+     * 
+     * @param amountMinor the amount to add in minor units
+     * @return the balance after the update, in minor units
+     */
+    protected final long credit(long amountMinor) {
+        long updated;
+        try {
+            updated = store == null
+                    ? balanceMinor.accumulateAndGet(amountMinor, Math::addExact)
+                    : store.addToBalance(ordinal, amountMinor);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance limit exceeded.");
+        }
+        notifyBalanceChanged(updated - amountMinor, updated);
+        return updated;
+    }
+
+    /**
+     * Atomically subtracts the given number of minor units from the balance.
+     * The funds check is part of the compare-and-set loop, so a concurrent update
+     * can never push the balance below the floor.
+     * 
+     * @param amountMinor the amount to subtract in minor units
+     * @param floorMinor the lowest balance allowed after the debit, in minor units
+     * @return the balance after the update, in minor units
+     * @throws IllegalArgumentException if the debit would take the balance below the floor
+     */
+    protected final long debit(long amountMinor, long floorMinor) {
+        while (true) {
+            long current = getBalanceMinor();
+            long updated;
+            try {
+                updated = Math.subtractExact(current, amountMinor);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Insufficient balance.");
+            }
+            if (updated < floorMinor) {
+                throw new IllegalArgumentException("Insufficient balance.");
+            }
+            if (casBalance(current, updated)) {
+                notifyBalanceChanged(current, updated);
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the balance if it still holds the expected value.
+     * Used by subclasses whose updates depend on the current balance, such as interest and fees.
+     * 
+     * @param expectedMinor the balance the caller based its update on
+     * @param updatedMinor the new balance
+     * @return true if the balance was replaced
+     */
+    protected final boolean compareAndSetBalance(long expectedMinor, long updatedMinor) {
+        if (casBalance(expectedMinor, updatedMinor)) {
+            notifyBalanceChanged(expectedMinor, updatedMinor);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean casBalance(long expectedMinor, long updatedMinor) {
+        return store == null
+                ? balanceMinor.compareAndSet(expectedMinor, updatedMinor)
+                : store.compareAndSetBalance(ordinal, expectedMinor, updatedMinor);
+    }
+
+    private void notifyBalanceChanged(long previousMinor, long updatedMinor) {
+        BalanceListener listener = balanceListener;
+        if (listener != null && previousMinor != updatedMinor) {
+            listener.balanceChanged(this, previousMinor, updatedMinor);
+        }
+    }
+
+    /**
+     * Converts an amount to minor currency units, rounding to the nearest cent.
+     * 
+     * @param amount the amount in major units
+     * @return the amount in minor units
+     */
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Converts a posting amount to minor units, refusing amounts that would not post
+     * exactly: infinite or NaN amounts, amounts too large to count in whole cents, and
+     * fractions of a cent.
+     *
+     * @param amount the amount in major units (already checked to be greater than zero)
+     * @return the amount in minor units
+     * @throws IllegalArgumentException if the amount cannot be posted exactly
+     */
+    static long toPostingMinorUnits(double amount) {
+        double scaled = amount * 100;
+        if (!(scaled <= MAX_POSTING_MINOR)) {
+            throw new IllegalArgumentException("Amount is too large.");
+        }
+        long amountMinor = Math.round(scaled);
+        // Allow for the representation error of amounts such as 10.1, but not for real fractions of a cent
+        if (amountMinor == 0 || Math.abs(scaled - amountMinor) > 4 * Math.ulp(scaled)) {
+            throw new IllegalArgumentException("Amount must be a whole number of cents.");
+        }
+        return amountMinor;
+    }
+
+    /**
+     * Converts minor currency units back to an amount in major units.
+     * 
+     * @param amountMinor the amount in minor units
+     * @return the amount in major units
+     */
+    public static double toAmount(long amountMinor) {
+        return amountMinor / 100.0;
     }
 
     /**
@@ -124,7 +335,20 @@ public abstract class Account {
      * @return comma-separated string representation of the account
      */
     public String toCSV() {
-        return String.join(",", accountNumber, Double.toString(balance), accountType, customer.getCustomerID());
+        return appendCSV(new StringBuilder(96)).toString();
+    }
+
+    /**
+     * Appends this account in CSV format, so callers saving many accounts can reuse one buffer.
+     * Subclasses append their own fields after these.
+     *
+     * @param out where the record is being built
+     * @return {@code out}
+     */
+    public StringBuilder appendCSV(StringBuilder out) {
+        CsvCodec.appendField(out, getAccountNumber()).append(',').append(getBalance()).append(',');
+        CsvCodec.appendField(out, getAccountType()).append(',');
+        return CsvCodec.appendField(out, getCustomer().getCustomerID());
     }
     /**
      * Creates an Account object from CSV data.
@@ -136,26 +360,27 @@ public abstract class Account {
      * @throws IllegalArgumentException if CSV data is invalid or account type is unknown
      */
     public static Account fromCSV(String csv, Customer customer) {
-        String[] values = csv.split(",");
-        if (values.length < 4) {
+        return fromFields(new CsvCodec.Fields().parse(csv), customer);
+    }
+
+    // Build an account from already parsed CSV fields, so loaders parse each line only once
+    static Account fromFields(CsvCodec.Fields values, Customer customer) {
+        if (values.count() < 4) {
             throw new IllegalArgumentException("Invalid CSV data for Account.");
         }
-        String accountType = values[2];
-    
-        switch (accountType) {
-            case "Savings":
-                return SavingsAccount.fromCSV(csv, customer);
-            case "Current":
-                return CurrentAccount.fromCSV(csv, customer);
-            default:
-                throw new IllegalArgumentException("Unknown account type: " + accountType);
+        if (values.fieldEquals(2, "Savings")) {
+            return SavingsAccount.fromFields(values, customer);
+        }
+        if (values.fieldEquals(2, "Current")) {
+            return CurrentAccount.fromFields(values, customer);
         }
+        throw new IllegalArgumentException("Unknown account type: " + values.get(2));
     }
     @Override
     public String toString() {
-        return "Account Number: " + accountNumber + "\n" +
-            "Account Type: " + accountType + "\n" +
-            "Balance: " + balance + "\n" +
-            "Customer: " + customer.getName();
+        return "Account Number: " + getAccountNumber() + "\n" +
+            "Account Type: " + getAccountType() + "\n" +
+            "Balance: " + getBalance() + "\n" +
+            "Customer: " + getCustomer().getName();
     }
 }
@@ -0,0 +1,17 @@
+/**
+ * Source of account numbers for newly opened accounts.
+ * Implementations must be thread-safe and never return the same number twice.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ * @see Account#useIdGenerator(AccountIdGenerator)
+ */
+public interface AccountIdGenerator {
+
+    /**
+     * Returns a new, unique account number.
+     *
+     * @return the account number
+     */
+    String nextAccountNumber();
+}
@@ -0,0 +1,477 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented store for very large books of accounts.
+ * Instead of one heap object per account, balances, type tags, rates, overdraft
+ * terms, owners and account numbers live in primitive arrays indexed by a dense
+ * account ordinal. The arrays are allocated in fixed-size pages so the store grows
+ * without copying. Balances are updated with compare-and-set on the array elements,
+ * so concurrent updates behave exactly like those on an ordinary {@link Account}.
+ * <p>
+ * {@link #view(int)} returns an {@link Account} that reads and writes the store's
+ * columns; views hold no state of their own and can be created on demand.
+ * Full-book operations such as {@link #accrueInterest()} and {@link #totalBalanceMinor()}
+ * walk the columns directly, page by page, in parallel.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class AccountStore {
+
+    public static final byte SAVINGS = 1;
+    public static final byte CURRENT = 2;
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * One page of columns. For savings accounts {@code termA} holds the raw bits of the
+     * interest rate; for current accounts {@code termA} is the overdraft limit and
+     * {@code termB} the overdraft fee, both in minor units. Account numbers from
+     * {@link SnowflakeIdGenerator} are kept as their numeric ID in {@code numberLow} with a
+     * zero {@code numberHigh}, numbers in UUID form as two longs, and any other number
+     * in {@link #otherNumbers}.
+     */
+    private static final class Page {
+        final long[] balances = new long[PAGE_SIZE];
+        final byte[] types = new byte[PAGE_SIZE];
+        final long[] termA = new long[PAGE_SIZE];
+        final long[] termB = new long[PAGE_SIZE];
+        final int[] owners = new int[PAGE_SIZE];
+        final long[] numberHigh = new long[PAGE_SIZE];
+        final long[] numberLow = new long[PAGE_SIZE];
+    }
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+    // Volatile so getCustomer can read it without the lock; a grown array is filled before it is published
+    private volatile Customer[] customers = new Customer[16];
+    private int customerCount;
+    private final Map<Customer, Integer> customerOrdinals = new IdentityHashMap<>();
+    private final Map<Integer, String> otherNumbers = new HashMap<>();
+    // Open-addressing hash of account numbers; each slot holds ordinal + 1, or 0 when empty
+    private volatile int[] slots = new int[1024];
+
+    /**
+     * Builds a store holding copies of the given accounts.
+     *
+     * @param accounts savings and current accounts to copy
+     * @return the new store
+     */
+    public static AccountStore of(Collection<Account> accounts) {
+        AccountStore store = new AccountStore();
+        for (Account account : accounts) {
+            store.add(account);
+        }
+        return store;
+    }
+
+    /**
+     * Copies an account into the store.
+     *
+     * @param account a savings or current account
+     * @return the new account's ordinal
+     * @throws IllegalArgumentException if the account type is not supported or the number is already stored
+     */
+    public int add(Account account) {
+        if (account instanceof SavingsAccount) {
+            SavingsAccount savings = (SavingsAccount) account;
+            return addSavings(savings.getAccountNumber(), savings.getCustomer(), savings.getBalanceMinor(), savings.getInterestRate());
+        }
+        if (account instanceof CurrentAccount) {
+            CurrentAccount current = (CurrentAccount) account;
+            return addCurrent(current.getAccountNumber(), current.getCustomer(), current.getBalanceMinor(),
+                    current.getOverdraftLimit(), current.getOverdraftFee());
+        }
+        throw new IllegalArgumentException("Unsupported account type.");
+    }
+
+    public int addSavings(String accountNumber, Customer customer, long balanceMinor, double interestRate) {
+        if (interestRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative.");
+        }
+        return append(accountNumber, customer, SAVINGS, balanceMinor, Double.doubleToRawLongBits(interestRate), 0);
+    }
+
+    public int addCurrent(String accountNumber, Customer customer, long balanceMinor, double overdraftLimit, double overdraftFee) {
+        if (overdraftLimit < 0) {
+            throw new IllegalArgumentException("Overdraft limit cannot be negative.");
+        }
+        if (overdraftFee < 0) {
+            throw new IllegalArgumentException("Overdraft fee cannot be negative.");
+        }
+        return append(accountNumber, customer, CURRENT, balanceMinor,
+                Account.toMinorUnits(overdraftLimit), Account.toMinorUnits(overdraftFee));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a view of the account with the given ordinal.
+     *
+     * @param ordinal the account's ordinal
+     * @return a {@link SavingsAccount} or {@link CurrentAccount} backed by this store
+     */
+    public Account view(int ordinal) {
+        return getType(ordinal) == SAVINGS ? new SavingsAccount(this, ordinal) : new CurrentAccount(this, ordinal);
+    }
+
+    /**
+     * Looks up an account by number.
+     *
+     * @param accountNumber the account number
+     * @return the account's ordinal, or -1 if it is not in the store
+     */
+    public int ordinalOf(String accountNumber) {
+        if (accountNumber == null) {
+            return -1;
+        }
+        UUID uuid = parseUuid(accountNumber);
+        int[] table = slots;
+        int mask = table.length - 1;
+        for (int slot = hash(uuid, accountNumber) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int ordinal = table[slot] - 1;
+            if (numberMatches(ordinal, uuid, accountNumber)) {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up an account by number and returns a view of it.
+     *
+     * @param accountNumber the account number
+     * @return a view of the account, or null if it is not in the store
+     */
+    public Account find(String accountNumber) {
+        int ordinal = ordinalOf(accountNumber);
+        return ordinal < 0 ? null : view(ordinal);
+    }
+
+    public long getBalanceMinor(int ordinal) {
+        Page page = page(ordinal);
+        return (long) LONGS.getVolatile(page.balances, ordinal & PAGE_MASK);
+    }
+
+    public boolean compareAndSetBalance(int ordinal, long expectedMinor, long updatedMinor) {
+        Page page = page(ordinal);
+        return LONGS.compareAndSet(page.balances, ordinal & PAGE_MASK, expectedMinor, updatedMinor);
+    }
+
+    public long getAndSetBalance(int ordinal, long updatedMinor) {
+        Page page = page(ordinal);
+        return (long) LONGS.getAndSet(page.balances, ordinal & PAGE_MASK, updatedMinor);
+    }
+
+    /**
+     * Atomically adds to an account's balance.
+     *
+     * @param ordinal the account's ordinal
+     * @param amountMinor the amount to add in minor units
+     * @return the balance after the update
+     * @throws ArithmeticException if the balance would overflow; it is left unchanged
+     */
+    public long addToBalance(int ordinal, long amountMinor) {
+        Page page = page(ordinal);
+        int index = ordinal & PAGE_MASK;
+        while (true) {
+            long current = (long) LONGS.getVolatile(page.balances, index);
+            long updated = Math.addExact(current, amountMinor);
+            if (LONGS.compareAndSet(page.balances, index, current, updated)) {
+                return updated;
+            }
+        }
+    }
+
+    public byte getType(int ordinal) {
+        return page(ordinal).types[ordinal & PAGE_MASK];
+    }
+
+    public String getAccountType(int ordinal) {
+        return getType(ordinal) == SAVINGS ? "Savings" : "Current";
+    }
+
+    public String getAccountNumber(int ordinal) {
+        Page page = page(ordinal);
+        int index = ordinal & PAGE_MASK;
+        long high = page.numberHigh[index];
+        long low = page.numberLow[index];
+        if (high == 0 && low == 0) {
+            synchronized (this) {
+                return otherNumbers.get(ordinal);
+            }
+        }
+        return high == 0 ? SnowflakeIdGenerator.format(low) : new UUID(high, low).toString();
+    }
+
+    // Not synchronized: page() reads the volatile size, which append writes after the owner and customer
+    public Customer getCustomer(int ordinal) {
+        int owner = page(ordinal).owners[ordinal & PAGE_MASK];
+        return customers[owner];
+    }
+
+    public double getInterestRate(int ordinal) {
+        return getType(ordinal) == SAVINGS ? Double.longBitsToDouble(page(ordinal).termA[ordinal & PAGE_MASK]) : 0;
+    }
+
+    public double getOverdraftLimit(int ordinal) {
+        return getType(ordinal) == CURRENT ? Account.toAmount(page(ordinal).termA[ordinal & PAGE_MASK]) : 0;
+    }
+
+    public double getOverdraftFee(int ordinal) {
+        return getType(ordinal) == CURRENT ? Account.toAmount(page(ordinal).termB[ordinal & PAGE_MASK]) : 0;
+    }
+
+    /**
+     * Sums every balance in the store.
+     *
+     * @return the total in minor units
+     */
+    public long totalBalanceMinor() {
+        int count = size;
+        Page[] snapshot = pages;
+        return IntStream.range(0, pageCount(count)).parallel().mapToLong(p -> {
+            long[] balances = snapshot[p].balances;
+            long total = 0;
+            for (int i = 0, end = pageLength(p, count); i < end; i++) {
+                total += balances[i];
+            }
+            return total;
+        }).sum();
+    }
+
+    /**
+     * Credits one period of interest to every savings account, as
+     * {@link SavingsAccount#accrueInterest()} does for a single account.
+     *
+     * @return the total interest credited in minor units
+     */
+    public long accrueInterest() {
+        int count = size;
+        Page[] snapshot = pages;
+        return IntStream.range(0, pageCount(count)).parallel().mapToLong(p -> {
+            Page page = snapshot[p];
+            long total = 0;
+            for (int i = 0, end = pageLength(p, count); i < end; i++) {
+                if (page.types[i] != SAVINGS) {
+                    continue;
+                }
+                double rate = Double.longBitsToDouble(page.termA[i]);
+                while (true) {
+                    long current = (long) LONGS.getVolatile(page.balances, i);
+                    long interest = Math.round(current * (rate / 100));
+                    if (interest <= 0) {
+                        break;
+                    }
+                    if (LONGS.compareAndSet(page.balances, i, current, current + interest)) {
+                        total += interest;
+                        break;
+                    }
+                }
+            }
+            return total;
+        }).sum();
+    }
+
+    /**
+     * Charges the overdraft fee to every overdrawn current account, as
+     * {@link CurrentAccount#applyOverdraftFee()} does for a single account.
+     *
+     * @return the total of the fees charged in minor units
+     */
+    public long chargeOverdraftFees() {
+        int count = size;
+        Page[] snapshot = pages;
+        return IntStream.range(0, pageCount(count)).parallel().mapToLong(p -> {
+            Page page = snapshot[p];
+            long total = 0;
+            for (int i = 0, end = pageLength(p, count); i < end; i++) {
+                if (page.types[i] != CURRENT) {
+                    continue;
+                }
+                long floor = -page.termA[i];
+                long fee = page.termB[i];
+                while (true) {
+                    long current = (long) LONGS.getVolatile(page.balances, i);
+                    long updated = Math.max(current - fee, floor);
+                    if (current >= 0 || updated >= current) {
+                        break;
+                    }
+                    if (LONGS.compareAndSet(page.balances, i, current, updated)) {
+                        total += current - updated;
+                        break;
+                    }
+                }
+            }
+            return total;
+        }).sum();
+    }
+
+    /**
+     * Counts the accounts with a negative balance.
+     *
+     * @return the number of overdrawn accounts
+     */
+    public int countOverdrawn() {
+        int count = size;
+        Page[] snapshot = pages;
+        return IntStream.range(0, pageCount(count)).parallel().map(p -> {
+            long[] balances = snapshot[p].balances;
+            int overdrawn = 0;
+            for (int i = 0, end = pageLength(p, count); i < end; i++) {
+                if (balances[i] < 0) {
+                    overdrawn++;
+                }
+            }
+            return overdrawn;
+        }).sum();
+    }
+
+    private synchronized int append(String accountNumber, Customer customer, byte type, long balanceMinor, long termA, long termB) {
+        if (accountNumber == null || accountNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account number cannot be empty.");
+        }
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null.");
+        }
+        if (ordinalOf(accountNumber) >= 0) {
+            throw new IllegalArgumentException("Account number already in store: " + accountNumber);
+        }
+        int ordinal = size;
+        if ((ordinal >> PAGE_SHIFT) == pages.length) {
+            Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = new Page();
+            pages = grown;
+        }
+        Page page = pages[ordinal >> PAGE_SHIFT];
+        int index = ordinal & PAGE_MASK;
+        UUID uuid = parseUuid(accountNumber);
+        if (uuid != null) {
+            page.numberHigh[index] = uuid.getMostSignificantBits();
+            page.numberLow[index] = uuid.getLeastSignificantBits();
+        } else {
+            otherNumbers.put(ordinal, accountNumber);
+        }
+        page.types[index] = type;
+        page.termA[index] = termA;
+        page.termB[index] = termB;
+        page.owners[index] = customerOrdinal(customer);
+        page.balances[index] = balanceMinor;
+        size = ordinal + 1;
+        insertSlot(ordinal, uuid, accountNumber);
+        return ordinal;
+    }
+
+    private int customerOrdinal(Customer customer) {
+        Integer existing = customerOrdinals.get(customer);
+        if (existing != null) {
+            return existing;
+        }
+        if (customerCount == customers.length) {
+            customers = Arrays.copyOf(customers, customerCount * 2);
+        }
+        customers[customerCount] = customer;
+        customerOrdinals.put(customer, customerCount);
+        return customerCount++;
+    }
+
+    private void insertSlot(int ordinal, UUID uuid, String accountNumber) {
+        int[] table = slots;
+        if ((ordinal + 1) * 2 > table.length) {
+            int[] grown = new int[table.length * 2];
+            for (int existing = 0; existing < ordinal; existing++) {
+                place(grown, existing, hash(numberAsUuid(existing), null, existing));
+            }
+            table = grown;
+        }
+        place(table, ordinal, hash(uuid, accountNumber));
+        slots = table;
+    }
+
+    private static void place(int[] table, int ordinal, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = ordinal + 1;
+    }
+
+    private boolean numberMatches(int ordinal, UUID uuid, String accountNumber) {
+        Page page = page(ordinal);
+        int index = ordinal & PAGE_MASK;
+        if (uuid != null) {
+            return page.numberHigh[index] == uuid.getMostSignificantBits() && page.numberLow[index] == uuid.getLeastSignificantBits();
+        }
+        synchronized (this) {
+            return accountNumber.equals(otherNumbers.get(ordinal));
+        }
+    }
+
+    private UUID numberAsUuid(int ordinal) {
+        Page page = page(ordinal);
+        int index = ordinal & PAGE_MASK;
+        long high = page.numberHigh[index];
+        long low = page.numberLow[index];
+        return high == 0 && low == 0 ? null : new UUID(high, low);
+    }
+
+    // Hash of a stored number when rehashing: packed numbers by their bits, others by their string
+    private int hash(UUID uuid, String accountNumber, int ordinal) {
+        return uuid != null ? hash(uuid, null) : hash(null, otherNumbers.get(ordinal));
+    }
+
+    private static int hash(UUID uuid, String accountNumber) {
+        long bits = uuid != null ? uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits() : accountNumber.hashCode();
+        bits *= 0x9E3779B97F4A7C15L;
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    // Packs generated IDs and canonical UUIDs into two longs; anything else is stored as a string
+    private static UUID parseUuid(String accountNumber) {
+        long id = SnowflakeIdGenerator.parse(accountNumber);
+        if (id > 0) {
+            return new UUID(0, id);
+        }
+        if (accountNumber.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(accountNumber);
+            if (uuid.getMostSignificantBits() == 0 || !uuid.toString().equals(accountNumber)) {
+                return null;
+            }
+            return uuid;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Page page(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IllegalArgumentException("No account with ordinal " + ordinal + ".");
+        }
+        return pages[ordinal >> PAGE_SHIFT];
+    }
+
+    private static int pageCount(int count) {
+        return (count + PAGE_SIZE - 1) >> PAGE_SHIFT;
+    }
+
+    private static int pageLength(int page, int count) {
+        return Math.min(PAGE_SIZE, count - (page << PAGE_SHIFT));
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reference client for the {@link AtmServer}'s binary {@link AtmWireProtocol}.
+ * <p>
+ * Requests are buffered and sent together by {@link #flush()}, or as soon as the
+ * buffer fills, so a caller can pipeline many requests per write. Each request
+ * returns a future that a reader thread completes when the response with its
+ * correlation ID arrives. Futures are completed on that thread, so callbacks
+ * attached to them must not block. The client can be shared by several threads.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class AtmClient implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+    private final Map<Long, CompletableFuture<Response>> pending = new ConcurrentHashMap<>();
+    private final Thread reader;
+    private long nextCorrelationId;
+    private volatile IOException failure;
+
+    /**
+     * The server's answer to one request.
+     */
+    public static final class Response {
+        private final byte status;
+        private final long balanceMinor;
+        private final String message;
+
+        Response(byte status, long balanceMinor, String message) {
+            this.status = status;
+            this.balanceMinor = balanceMinor;
+            this.message = message;
+        }
+
+        /**
+         * @return one of the status codes in {@link AtmWireProtocol}
+         */
+        public byte getStatus() {
+            return status;
+        }
+
+        public boolean isOk() {
+            return status == AtmWireProtocol.OK;
+        }
+
+        /**
+         * @return the account's balance after the operation, or 0 if it was not applied
+         */
+        public double getBalance() {
+            return Account.toAmount(balanceMinor);
+        }
+
+        /**
+         * @return why the request was not applied, or null if it was
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private AtmClient(SocketChannel channel) {
+        this.channel = channel;
+        this.reader = new Thread(this::readResponses, "atm-client-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * Connects to a server.
+     *
+     * @param host the server's host name or address
+     * @param port the server's port
+     * @return the connected client
+     * @throws IOException if the connection fails
+     */
+    public static AtmClient connect(String host, int port) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        return new AtmClient(channel);
+    }
+
+    public CompletableFuture<Response> balance(String accountNumber) throws IOException {
+        return send(AtmWireProtocol.BALANCE, accountNumber, null, 0);
+    }
+
+    public CompletableFuture<Response> deposit(String accountNumber, double amount) throws IOException {
+        return send(AtmWireProtocol.DEPOSIT, accountNumber, null, Account.toMinorUnits(amount));
+    }
+
+    public CompletableFuture<Response> withdraw(String accountNumber, double amount) throws IOException {
+        return send(AtmWireProtocol.WITHDRAW, accountNumber, null, Account.toMinorUnits(amount));
+    }
+
+    public CompletableFuture<Response> transfer(String fromAccountNumber, String toAccountNumber, double amount)
+            throws IOException {
+        if (toAccountNumber == null) {
+            throw new IllegalArgumentException("Account number cannot be null.");
+        }
+        return send(AtmWireProtocol.TRANSFER, fromAccountNumber, toAccountNumber, Account.toMinorUnits(amount));
+    }
+
+    /**
+     * Sends every buffered request.
+     *
+     * @throws IOException if the connection has failed
+     */
+    public synchronized void flush() throws IOException {
+        checkOpen();
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        } finally {
+            out.compact();
+        }
+    }
+
+    /**
+     * @return the number of requests sent or buffered that have not been answered yet
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Closes the connection. Requests that have not been answered fail.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing ATM connection: " + e.getMessage());
+        }
+        try {
+            reader.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized CompletableFuture<Response> send(byte operation, String account, String target, long amountMinor)
+            throws IOException {
+        if (account == null) {
+            throw new IllegalArgumentException("Account number cannot be null.");
+        }
+        checkOpen();
+        int size = AtmWireProtocol.requestSize(account, target);
+        if (size - 4 > AtmWireProtocol.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Account number is too long.");
+        }
+        if (out.remaining() < size) {
+            flush();
+        }
+        long correlationId = nextCorrelationId++;
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        pending.put(correlationId, response);
+        AtmWireProtocol.putRequest(out, correlationId, operation, account, target, amountMinor);
+        return response;
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void readResponses() {
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                while (in.remaining() >= 4) {
+                    int length = in.getInt(in.position());
+                    if (length <= 0 || length > AtmWireProtocol.MAX_FRAME_BYTES) {
+                        throw new IOException("Malformed response from server.");
+                    }
+                    if (in.remaining() < 4 + length) {
+                        break;
+                    }
+                    int end = in.position() + 4 + length;
+                    int limit = in.limit();
+                    in.position(in.position() + 4).limit(end);
+                    complete(in);
+                    in.limit(limit).position(end);
+                }
+                in.compact();
+            }
+            fail(new IOException("Connection closed by server."));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void complete(ByteBuffer in) throws IOException {
+        try {
+            long correlationId = in.getLong();
+            byte status = in.get();
+            Response response = status == AtmWireProtocol.OK
+                    ? new Response(status, in.getLong(), null)
+                    : new Response(status, 0, AtmWireProtocol.getString(in));
+            CompletableFuture<Response> future = pending.remove(correlationId);
+            if (future != null) {
+                future.complete(response);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Malformed response from server.");
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        failure = e;
+        for (Long correlationId : pending.keySet()) {
+            CompletableFuture<Response> future = pending.remove(correlationId);
+            if (future != null) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves ATMs over the binary {@link AtmWireProtocol}, using non-blocking sockets.
+ * <p>
+ * Connections are spread over a fixed number of event loops, each a thread with its
+ * own selector. When a connection becomes readable its loop reads everything that
+ * has arrived, applies every complete request in order, and sends all of their
+ * responses with a single write, so a client that pipelines requests pays for one
+ * system call per batch rather than per request. Operations go through the
+ * {@link Bank}, so they are logged like any other posting.
+ * <p>
+ * A deposit, withdrawal or transfer is answered once its log records are durable,
+ * and answered as failed if they could not be logged. If they are still waiting on
+ * a batched log write, the loop carries on with the connection's other requests and
+ * the response follows when the write completes. Without batching the log is
+ * written on the loop's thread, so servers under load should enable batching.
+ * <p>
+ * A connection that sends a frame larger than {@link AtmWireProtocol#MAX_FRAME_BYTES}
+ * is closed. While a client is not reading its responses, the server stops reading
+ * its requests.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class AtmServer implements AutoCloseable {
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    // Stop reading from a connection while this many response bytes are waiting to be sent
+    private static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+    private static final String DEPOSIT_NOT_LOGGED = "Deposit could not be logged.";
+    private static final String WITHDRAWAL_NOT_LOGGED = "Withdrawal could not be logged.";
+    private static final String TRANSFER_NOT_LOGGED = "Transfer could not be logged.";
+
+    private final Bank bank;
+    private final ServerSocketChannel acceptor;
+    private final EventLoop[] loops;
+    private int nextLoop;
+    private volatile boolean running = true;
+
+    /**
+     * One connection's buffers. Touched only by its loop's thread, apart from
+     * {@link #deferred}, which other threads fill with late responses.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        ByteBuffer out = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        final Queue<byte[]> deferred = new ConcurrentLinkedQueue<>();
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        ByteBuffer reserve(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+            return out;
+        }
+    }
+
+    private final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        final Queue<Connection> withDeferred = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "atm-server-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerAccepted();
+                    sendDeferred();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                read(connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                flush(connection);
+                            }
+                        } catch (IOException e) {
+                            close(connection);
+                        }
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    System.err.println("Error in ATM server loop: " + e.getMessage());
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key);
+                }
+                closeQuietly(selector);
+            }
+        }
+
+        void hand(SocketChannel channel) {
+            accepted.add(channel);
+            selector.wakeup();
+        }
+
+        void defer(Connection connection, byte[] response) {
+            connection.deferred.add(response);
+            withDeferred.add(connection);
+            selector.wakeup();
+        }
+
+        private void registerAccepted() {
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new Connection(channel, key));
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+
+        private void sendDeferred() {
+            Connection connection;
+            while ((connection = withDeferred.poll()) != null) {
+                if (!connection.key.isValid()) {
+                    continue;
+                }
+                byte[] response;
+                while ((response = connection.deferred.poll()) != null) {
+                    connection.reserve(response.length).put(response);
+                }
+                try {
+                    flush(connection);
+                } catch (IOException e) {
+                    close(connection);
+                }
+            }
+        }
+
+        private void read(Connection connection) throws IOException {
+            ByteBuffer in = connection.in;
+            if (connection.channel.read(in) < 0) {
+                close(connection);
+                return;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > AtmWireProtocol.MAX_FRAME_BYTES) {
+                    close(connection);
+                    return;
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                int end = in.position() + 4 + length;
+                int limit = in.limit();
+                in.position(in.position() + 4).limit(end);
+                execute(this, connection, in);
+                in.limit(limit).position(end);
+            }
+            in.compact();
+            flush(connection);
+        }
+
+        private void flush(Connection connection) throws IOException {
+            ByteBuffer out = connection.out;
+            out.flip();
+            if (out.hasRemaining()) {
+                connection.channel.write(out);
+            }
+            int interest = out.hasRemaining() ? SelectionKey.OP_WRITE : 0;
+            if (out.remaining() < MAX_PENDING_OUTPUT) {
+                interest |= SelectionKey.OP_READ;
+            }
+            out.compact();
+            if (connection.key.interestOps() != interest) {
+                connection.key.interestOps(interest);
+            }
+        }
+
+        private void close(Connection connection) {
+            closeQuietly(connection.key);
+        }
+    }
+
+    private AtmServer(Bank bank, ServerSocketChannel acceptor, int loopCount) throws IOException {
+        this.bank = bank;
+        this.acceptor = acceptor;
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        acceptor.configureBlocking(false);
+        acceptor.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts a server on the loopback interface with one event loop per processor.
+     *
+     * @param bank the bank to serve (cannot be null)
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static AtmServer start(Bank bank, int port) throws IOException {
+        return start(bank, new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param bank the bank to serve (cannot be null)
+     * @param address the address to listen on
+     * @param loopCount the number of event loop threads (must be greater than zero)
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static AtmServer start(Bank bank, InetSocketAddress address, int loopCount) throws IOException {
+        if (bank == null) {
+            throw new IllegalArgumentException("Bank cannot be null.");
+        }
+        if (loopCount <= 0) {
+            throw new IllegalArgumentException("Loop count must be greater than zero.");
+        }
+        ServerSocketChannel acceptor = ServerSocketChannel.open();
+        try {
+            acceptor.bind(address, 1024);
+            AtmServer server = new AtmServer(bank, acceptor, loopCount);
+            for (EventLoop loop : server.loops) {
+                loop.thread.start();
+            }
+            return server;
+        } catch (IOException | RuntimeException e) {
+            acceptor.close();
+            throw e;
+        }
+    }
+
+    public int getPort() {
+        return acceptor.socket().getLocalPort();
+    }
+
+    /**
+     * Stops accepting connections and closes every open connection.
+     */
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(acceptor);
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Runs on the first loop, which also owns the acceptor
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = acceptor.accept()) != null) {
+            loops[nextLoop].hand(channel);
+            nextLoop = (nextLoop + 1) % loops.length;
+        }
+    }
+
+    // Applies one request; in is limited to the request's frame, positioned after its length
+    private void execute(EventLoop loop, Connection connection, ByteBuffer in) {
+        long correlationId;
+        byte operation;
+        try {
+            correlationId = in.getLong();
+            operation = in.get();
+        } catch (BufferUnderflowException e) {
+            respond(connection, 0, AtmWireProtocol.BAD_REQUEST, 0, "Malformed request.");
+            return;
+        }
+        try {
+            Account account = bank.findAccount(AtmWireProtocol.getString(in));
+            switch (operation) {
+                case AtmWireProtocol.BALANCE:
+                    if (account == null) {
+                        respond(connection, correlationId, AtmWireProtocol.NOT_FOUND, 0, "Account not found.");
+                        return;
+                    }
+                    break;
+                case AtmWireProtocol.DEPOSIT:
+                case AtmWireProtocol.WITHDRAW: {
+                    double amount = Account.toAmount(in.getLong());
+                    if (account == null) {
+                        respond(connection, correlationId, AtmWireProtocol.NOT_FOUND, 0, "Account not found.");
+                        return;
+                    }
+                    if (operation == AtmWireProtocol.DEPOSIT) {
+                        respondWhenLogged(loop, connection, correlationId,
+                                bank.deposit(account.getCustomer(), account, amount), account, DEPOSIT_NOT_LOGGED);
+                    } else {
+                        respondWhenLogged(loop, connection, correlationId,
+                                bank.withdraw(account.getCustomer(), account, amount), account, WITHDRAWAL_NOT_LOGGED);
+                    }
+                    return;
+                }
+                case AtmWireProtocol.TRANSFER: {
+                    Account target = bank.findAccount(AtmWireProtocol.getString(in));
+                    double amount = Account.toAmount(in.getLong());
+                    if (account == null || target == null) {
+                        respond(connection, correlationId, AtmWireProtocol.NOT_FOUND, 0, "Account not found.");
+                        return;
+                    }
+                    respondWhenLogged(loop, connection, correlationId,
+                            bank.transfer(account.getCustomer(), account, target, amount), account, TRANSFER_NOT_LOGGED);
+                    return;
+                }
+                default:
+                    respond(connection, correlationId, AtmWireProtocol.BAD_REQUEST, 0, "Unknown operation.");
+                    return;
+            }
+            respond(connection, correlationId, AtmWireProtocol.OK, account.getBalanceMinor(), null);
+        } catch (BufferUnderflowException e) {
+            respond(connection, correlationId, AtmWireProtocol.BAD_REQUEST, 0, "Malformed request.");
+        } catch (IllegalArgumentException e) {
+            respond(connection, correlationId, AtmWireProtocol.REJECTED, 0,
+                    e.getMessage() != null ? e.getMessage() : "Request refused.");
+        } catch (RuntimeException e) {
+            respond(connection, correlationId, AtmWireProtocol.FAILED, 0,
+                    e.getMessage() != null ? e.getMessage() : "Request failed.");
+        }
+    }
+
+    private static void respond(Connection connection, long correlationId, byte status, long balanceMinor, String message) {
+        AtmWireProtocol.putResponse(connection.reserve(AtmWireProtocol.responseSize(message)),
+                correlationId, status, balanceMinor, message);
+    }
+
+    // Answers with the account's balance after the posting, once the posting is logged
+    private static void respondWhenLogged(EventLoop loop, Connection connection, long correlationId,
+            CompletableFuture<Void> logged, Account account, String notLogged) {
+        long balance = account.getBalanceMinor();
+        if (!logged.isDone()) {
+            logged.whenComplete((ignored, failure) -> loop.defer(connection,
+                    loggedResponse(correlationId, balance, failure, notLogged)));
+            return;
+        }
+        if (logged.isCompletedExceptionally()) {
+            respond(connection, correlationId, AtmWireProtocol.FAILED, 0, notLogged);
+            return;
+        }
+        respond(connection, correlationId, AtmWireProtocol.OK, balance, null);
+    }
+
+    private static byte[] loggedResponse(long correlationId, long balanceMinor, Throwable failure, String notLogged) {
+        String message = failure == null ? null : notLogged;
+        ByteBuffer response = ByteBuffer.allocate(AtmWireProtocol.responseSize(message));
+        AtmWireProtocol.putResponse(response, correlationId, failure == null ? AtmWireProtocol.OK : AtmWireProtocol.FAILED,
+                balanceMinor, message);
+        byte[] bytes = new byte[response.position()];
+        response.flip().get(bytes);
+        return bytes;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closing; nothing more to do
+        }
+    }
+}
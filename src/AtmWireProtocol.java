@@ -0,0 +1,150 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary protocol spoken between ATMs and the {@link AtmServer}.
+ * <p>
+ * Every message is a frame: a four-byte length followed by that many bytes. All
+ * numbers are big-endian, amounts and balances are whole minor units (cents), and a
+ * string is a two-byte length followed by that many UTF-8 bytes.
+ * <pre>
+ *   request:  correlationId:long  operation:byte  fields
+ *     BALANCE   account:string
+ *     DEPOSIT   account:string  amount:long
+ *     WITHDRAW  account:string  amount:long
+ *     TRANSFER  from:string  to:string  amount:long
+ *
+ *   response: correlationId:long  status:byte  (balance:long if OK, else message:string)
+ * </pre>
+ * A client may send any number of requests without waiting for responses. Requests
+ * on one connection are applied in the order they were sent, but responses can
+ * arrive in a different order and are matched to requests by correlation ID. The
+ * balance in a response is the account's balance after the operation (the source
+ * account's, for a transfer).
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class AtmWireProtocol {
+
+    public static final byte BALANCE = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte TRANSFER = 4;
+
+    /** The operation was applied. */
+    public static final byte OK = 0;
+    /** The operation was refused, for example for insufficient funds. */
+    public static final byte REJECTED = 1;
+    /** An account in the request does not exist. */
+    public static final byte NOT_FOUND = 2;
+    /** The request could not be decoded. */
+    public static final byte BAD_REQUEST = 3;
+    /** The operation was applied but could not be logged. */
+    public static final byte FAILED = 4;
+
+    /** Largest frame accepted, not counting its length prefix. */
+    public static final int MAX_FRAME_BYTES = 4096;
+
+    private AtmWireProtocol() {
+    }
+
+    /**
+     * Returns an upper bound on the bytes a request takes, including its length prefix.
+     *
+     * @param account the account
+     * @param target the target account, or null
+     * @return the bound
+     */
+    static int requestSize(String account, String target) {
+        int size = 4 + 8 + 1 + 2 + account.length() * 3 + 8;
+        return target == null ? size : size + 2 + target.length() * 3;
+    }
+
+    /**
+     * Writes a request frame.
+     *
+     * @param out where the frame is written (must have room for {@link #requestSize})
+     * @param correlationId identifies the request in its response
+     * @param operation one of {@link #BALANCE}, {@link #DEPOSIT}, {@link #WITHDRAW}, {@link #TRANSFER}
+     * @param account the account, or the source account of a transfer
+     * @param target the target account of a transfer, otherwise ignored
+     * @param amountMinor the amount in minor units, ignored for a balance
+     */
+    static void putRequest(ByteBuffer out, long correlationId, byte operation, String account, String target,
+            long amountMinor) {
+        int start = out.position();
+        out.putInt(0).putLong(correlationId).put(operation);
+        putString(out, account);
+        if (operation == TRANSFER) {
+            putString(out, target);
+        }
+        if (operation != BALANCE) {
+            out.putLong(amountMinor);
+        }
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Writes a response frame.
+     *
+     * @param out where the frame is written
+     * @param correlationId the request's correlation ID
+     * @param status the outcome
+     * @param balanceMinor the balance, written only when the status is {@link #OK}
+     * @param message the reason, written only when the status is not {@link #OK}
+     */
+    static void putResponse(ByteBuffer out, long correlationId, byte status, long balanceMinor, String message) {
+        int start = out.position();
+        out.putInt(0).putLong(correlationId).put(status);
+        if (status == OK) {
+            out.putLong(balanceMinor);
+        } else {
+            putString(out, message);
+        }
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    /**
+     * Returns an upper bound on the bytes a response takes, including its length prefix.
+     *
+     * @param message the response's message, or null
+     * @return the bound
+     */
+    static int responseSize(String message) {
+        return 4 + 8 + 1 + Math.max(8, 2 + (message == null ? 0 : message.length() * 3));
+    }
+
+    static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String is too long to encode.");
+        }
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in positioned at the string
+     * @return the string
+     * @throws BufferUnderflowException if the string runs past the buffer's limit
+     */
+    static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
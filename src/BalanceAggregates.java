@@ -0,0 +1,97 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running balance totals for a bank, updated from balance change events.
+ * Keeps the total of all balances, totals per account type and per customer, the
+ * number of overdrawn accounts, and the number of savings accounts at or above
+ * {@link SavingsAccount#SPECIAL_TIER_THRESHOLD}. Each figure is a striped
+ * {@link LongAdder}, so concurrent postings update it without contending, and
+ * reading a figure never walks the accounts.
+ * <p>
+ * Every event adds the difference it reports, so events delivered out of order
+ * still add up to the right totals. An account's balance is counted once, when it
+ * is added to the bank; a posting that races with the account being added or
+ * removed can be counted twice or missed, so accounts should be added before use.
+ * Customer totals are keyed by customer ID and follow the accounts alone: removing
+ * or replacing a customer leaves its accounts in the bank, so their total is kept.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class BalanceAggregates implements BankListener {
+
+    private static final long SPECIAL_TIER_MINOR = Account.toMinorUnits(SavingsAccount.SPECIAL_TIER_THRESHOLD);
+
+    private final LongAdder total = new LongAdder();
+    private final Map<String, LongAdder> totalsByType = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> totalsByCustomer = new ConcurrentHashMap<>();
+    private final LongAdder overdrawn = new LongAdder();
+    private final LongAdder specialTier = new LongAdder();
+
+    public double getTotalBalance() {
+        return Account.toAmount(total.sum());
+    }
+
+    /**
+     * Returns the total balance of one type of account.
+     *
+     * @param accountType the account type, such as "Savings" or "Current"
+     * @return the total, zero if the bank has no accounts of that type
+     */
+    public double getTotalBalance(String accountType) {
+        LongAdder adder = totalsByType.get(accountType);
+        return adder == null ? 0 : Account.toAmount(adder.sum());
+    }
+
+    /**
+     * Returns the total balance across one customer's accounts.
+     *
+     * @param customer the customer
+     * @return the total, zero if the customer has no accounts in the bank
+     */
+    public double getTotalBalance(Customer customer) {
+        LongAdder adder = totalsByCustomer.get(customer.getCustomerID());
+        return adder == null ? 0 : Account.toAmount(adder.sum());
+    }
+
+    public int getOverdrawnCount() {
+        return (int) overdrawn.sum();
+    }
+
+    public int getSpecialTierCount() {
+        return (int) specialTier.sum();
+    }
+
+    @Override
+    public void accountAdded(Account account) {
+        apply(account, 0, account.getBalanceMinor());
+    }
+
+    @Override
+    public void accountRemoved(Account account) {
+        apply(account, account.getBalanceMinor(), 0);
+    }
+
+    @Override
+    public void balanceChanged(Account account, long previousMinor, long updatedMinor) {
+        apply(account, previousMinor, updatedMinor);
+    }
+
+    // Add the change from one balance to another; adding and removing an account count as a change from or to zero
+    private void apply(Account account, long fromMinor, long toMinor) {
+        long delta = toMinor - fromMinor;
+        if (delta != 0) {
+            total.add(delta);
+            totalsByType.computeIfAbsent(account.getAccountType(), type -> new LongAdder()).add(delta);
+            totalsByCustomer.computeIfAbsent(account.getCustomer().getCustomerID(), id -> new LongAdder()).add(delta);
+        }
+        if ((fromMinor < 0) != (toMinor < 0)) {
+            overdrawn.add(toMinor < 0 ? 1 : -1);
+        }
+        if (account instanceof SavingsAccount && (fromMinor >= SPECIAL_TIER_MINOR) != (toMinor >= SPECIAL_TIER_MINOR)) {
+            specialTier.add(toMinor >= SPECIAL_TIER_MINOR ? 1 : -1);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * Receives balance changes from an {@link Account}.
+ * Called after every successful update, on the thread that made it.
+ * Each call describes exactly one atomic update, so the deltas of all calls for an
+ * account add up to its balance, but calls for concurrent updates can arrive in any order.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public interface BalanceListener {
+
+    /**
+     * Called after an account's balance has changed.
+     *
+     * @param account the account that changed
+     * @param previousMinor the balance before the update, in minor units
+     * @param updatedMinor the balance after the update, in minor units
+     */
+    void balanceChanged(Account account, long previousMinor, long updatedMinor);
+}
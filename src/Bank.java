@@ -1,5 +1,10 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 /**
  * Represents a bank with customers, accounts, tellers, and ATMs.
@@ -11,17 +16,58 @@ import java.util.List;
 public class Bank {
 
     private String name;
-    private List<Customer> customers;
-    private List<Teller> tellers;
-    private List<Account> accounts;
-    private List<ATM> atms;
+    private final SnapshotList<Customer> customers;
+    private final SnapshotList<Teller> tellers;
+    private final SnapshotList<Account> accounts;
+    private final SnapshotList<ATM> atms;
+    private final Map<String, Customer> customersByID;
+    private final Map<String, Account> accountsByNumber;
+    private final TransferEngine transferEngine;
+    private final List<BankListener> listeners;
+    private final BalanceListener balanceDispatcher;
+    private final OverdraftIndex overdraftIndex;
+    private final BalanceAggregates aggregates;
+    private volatile IdempotencyCache idempotencyCache;
 
     public Bank(String name) {
         this.name = name;
-        this.customers = new ArrayList<>();
-        this.tellers = new ArrayList<>();
-        this.accounts = new ArrayList<>();
-        this.atms = new ArrayList<>();
+        this.customers = new SnapshotList<>();
+        this.tellers = new SnapshotList<>();
+        this.accounts = new SnapshotList<>();
+        this.atms = new SnapshotList<>();
+        this.customersByID = new ConcurrentHashMap<>();
+        this.accountsByNumber = new ConcurrentHashMap<>();
+        this.transferEngine = TransferEngine.shared();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.balanceDispatcher = this::dispatchBalanceChanged;
+        this.overdraftIndex = new OverdraftIndex();
+        this.listeners.add(overdraftIndex);
+        this.aggregates = new BalanceAggregates();
+        this.listeners.add(aggregates);
+        this.idempotencyCache = new IdempotencyCache(IdempotencyCache.DEFAULT_MAX_ENTRIES, IdempotencyCache.DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * Registers a listener for customer, account and balance changes in this bank.
+     * 
+     * @param listener the listener to add (cannot be null)
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(BankListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(BankListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void dispatchBalanceChanged(Account account, long previousMinor, long updatedMinor) {
+        for (BankListener listener : listeners) {
+            listener.balanceChanged(account, previousMinor, updatedMinor);
+        }
     }
 
     /**
@@ -34,14 +80,42 @@ public class Bank {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null.");
         }
+        Customer previous = customersByID.put(customer.getCustomerID(), customer);
+        if (previous != null) {
+            customers.remove(previous);
+            for (BankListener listener : listeners) {
+                listener.customerRemoved(previous);
+            }
+        }
         customers.add(customer);
+        for (BankListener listener : listeners) {
+            listener.customerAdded(customer);
+        }
     }
 
     public void removeCustomer(Customer customer) {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null.");
         }
-        customers.remove(customer);
+        if (customersByID.remove(customer.getCustomerID(), customer)) {
+            customers.remove(customer);
+            for (BankListener listener : listeners) {
+                listener.customerRemoved(customer);
+            }
+        }
+    }
+
+    /**
+     * Looks up a customer by customer ID using the bank's hash index.
+     * 
+     * @param customerID the unique identifier of the customer
+     * @return the matching Customer, or null if no customer has that ID
+     */
+    public Customer findCustomer(String customerID) {
+        if (customerID == null) {
+            return null;
+        }
+        return customersByID.get(customerID);
     }
 
     /**
@@ -52,16 +126,26 @@ public class Bank {
      * @throws IllegalArgumentException if customer with given ID is not found
      */
     public Customer getCustomerDetails(String customerID) {
-        for (Customer customer : customers) {
-            if (customer.getCustomerID().equals(customerID)) {
-                return customer;
-            }
+        Customer customer = findCustomer(customerID);
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer with ID " + customerID + " not found.");
         }
-        throw new IllegalArgumentException("Customer with ID " + customerID + " not found.");
+        return customer;
     }
 
     public List<Customer> getCustomers(){
-        return new ArrayList<>(customers);
+        return new ArrayList<>(customers.snapshot());
+    }
+
+    /**
+     * Returns an immutable point-in-time view of the bank's customers.
+     * Unlike {@link #getCustomers()} nothing is copied: the same view is returned
+     * until a customer is added or removed.
+     * 
+     * @return the current customers snapshot
+     */
+    public Snapshot<Customer> snapshotCustomers() {
+        return customers.snapshot();
     }
 
     public void addTeller(Teller teller) {
@@ -79,31 +163,102 @@ public class Bank {
     }
 
     public List<Teller> getTellers() {
-        return new ArrayList<>(tellers);
+        return new ArrayList<>(tellers.snapshot());
+    }
+
+    public Snapshot<Teller> snapshotTellers() {
+        return tellers.snapshot();
     }
 
     public void addAccount(Account account) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null.");
         }
+        Account previous = accountsByNumber.put(account.getAccountNumber(), account);
+        if (previous != null) {
+            accounts.remove(previous);
+            previous.setBalanceListener(null);
+            for (BankListener listener : listeners) {
+                listener.accountRemoved(previous);
+            }
+        }
         accounts.add(account);
+        account.setBalanceListener(balanceDispatcher);
+        for (BankListener listener : listeners) {
+            listener.accountAdded(account);
+        }
     }
 
     public void removeAccount(Account account) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null.");
         }
-        accounts.remove(account);
+        if (accountsByNumber.remove(account.getAccountNumber(), account)) {
+            accounts.remove(account);
+            account.setBalanceListener(null);
+            for (BankListener listener : listeners) {
+                listener.accountRemoved(account);
+            }
+        }
+    }
+
+    /**
+     * Looks up an account by account number using the bank's hash index.
+     * 
+     * @param accountNumber the account number to look up
+     * @return the matching Account, or null if no account has that number
+     */
+    public Account findAccount(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        BankEvents.AccountLookup event = new BankEvents.AccountLookup();
+        event.begin();
+        Account account = accountsByNumber.get(accountNumber);
+        event.record(accountNumber, account);
+        return account;
     }
 
     public List<Account> getAccounts() {
-        return new ArrayList<>(accounts);
+        return new ArrayList<>(accounts.snapshot());
+    }
+
+    /**
+     * Returns an immutable point-in-time view of the bank's accounts.
+     * Unlike {@link #getAccounts()} nothing is copied: the same view is returned
+     * until an account is added or removed.
+     * 
+     * @return the current accounts snapshot
+     */
+    public Snapshot<Account> snapshotAccounts() {
+        return accounts.snapshot();
+    }
+
+    /**
+     * Returns the current accounts that are overdrawn right now, from a live index
+     * rather than a scan of every account.
+     * 
+     * @return new list of current accounts with a negative balance
+     */
+    public List<CurrentAccount> getOverdrawnAccounts() {
+        return overdraftIndex.getOverdrawnAccounts();
+    }
+
+    /**
+     * Returns the bank's running balance totals, kept up to date on every posting
+     * so reports can read them without scanning the accounts.
+     * 
+     * @return the live aggregates
+     */
+    public BalanceAggregates getBalanceAggregates() {
+        return aggregates;
     }
 
     public void addATM(ATM atm) {
         if (atm == null) {
             throw new IllegalArgumentException("ATM cannot be null.");
         }
+        atm.useIdempotencyCache(idempotencyCache);
         atms.add(atm);
     }
 
@@ -115,46 +270,237 @@ public class Bank {
     }
 
     public List<ATM> getATMs() {
-        return new ArrayList<>(atms);
+        return new ArrayList<>(atms.snapshot());
+    }
+
+    public Snapshot<ATM> snapshotATMs() {
+        return atms.snapshot();
     }
 
-    public void deposit(Customer customer, Account account, double amount) {
+    /**
+     * Deposits funds into an account and logs the deposit.
+     * 
+     * @param customer the customer making the deposit
+     * @param account the account to credit
+     * @param amount the amount to deposit (must be greater than zero)
+     * @return a future that completes when the log record is durable
+     * @throws IllegalArgumentException if any argument is null or the amount is invalid
+     */
+    public CompletableFuture<Void> deposit(Customer customer, Account account, double amount) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> logged;
+        try {
+            if (customer == null || account == null) {
+                throw new IllegalArgumentException("Customer or Account cannot be null.");
+            }
+            account.deposit(amount);
+            // Log transaction
+            Transaction transaction = new Transaction(customer.getCustomerID(), account.getAccountNumber(), "Deposit", amount);
+            logged = TransactionLogger.log(transaction);
+        } catch (IllegalArgumentException e) {
+            BankMetrics.BANK_DEPOSIT.rejected(start);
+            throw e;
+        } catch (RuntimeException e) {
+            BankMetrics.BANK_DEPOSIT.failed(start);
+            throw e;
+        }
+        BankMetrics.BANK_DEPOSIT.succeeded(start);
+        return logged;
+    }
+
+    /**
+     * Deposits funds once per idempotency key, so a retried request is not applied twice.
+     * A retry with the same key returns the original deposit's future without depositing
+     * again, or a completed future if the original ran before a restart.
+     * 
+     * @param idempotencyKey identifies the request across retries (cannot be empty)
+     * @param customer the customer making the deposit
+     * @param account the account to credit
+     * @param amount the amount to deposit
+     * @return a future that completes when the log record is durable
+     * @throws IllegalArgumentException if the deposit was refused or the key was used for a different request
+     */
+    public CompletableFuture<Void> deposit(String idempotencyKey, Customer customer, Account account, double amount) {
+        CompletableFuture<Void> result = idempotencyCache.execute(idempotencyKey,
+                request("Deposit", account, null, amount), () -> deposit(customer, account, amount));
+        return result != null ? result : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Withdraws funds from an account and logs the withdrawal.
+     * 
+     * @param customer the customer making the withdrawal
+     * @param account the account to debit
+     * @param amount the amount to withdraw (must be greater than zero)
+     * @return a future that completes when the log record is durable
+     * @throws IllegalArgumentException if any argument is null, the amount is invalid or funds are insufficient
+     */
+    public CompletableFuture<Void> withdraw(Customer customer, Account account, double amount) {
         if (customer == null || account == null) {
             throw new IllegalArgumentException("Customer or Account cannot be null.");
         }
-        account.deposit(amount);
+        account.withdraw(amount);
         // Log transaction
-        Transaction transaction = new Transaction(customer.getCustomerID(), account.getAccountNumber(), "Deposit", amount);
-        TransactionLogger.log(transaction);
+        Transaction transaction = new Transaction(customer.getCustomerID(), account.getAccountNumber(), "Withdrawal", amount);
+        return TransactionLogger.log(transaction);
     }
 
-    public void withdraw(Customer customer, Account account, double amount) {
-        if (customer == null || account == null) {
-            throw new IllegalArgumentException("Customer or Account cannot be null.");
+    /**
+     * Withdraws funds once per idempotency key, so a retried request is not applied twice.
+     * A retry with the same key returns the original withdrawal's future without withdrawing
+     * again, or a completed future if the original ran before a restart, or rethrows the original refusal.
+     *
+     * @param idempotencyKey identifies the request across retries (cannot be empty)
+     * @param customer the customer making the withdrawal
+     * @param account the account to debit
+     * @param amount the amount to withdraw
+     * @return a future that completes when the log record is durable
+     * @throws IllegalArgumentException if the withdrawal was refused or the key was used for a different request
+     */
+    public CompletableFuture<Void> withdraw(String idempotencyKey, Customer customer, Account account, double amount) {
+        CompletableFuture<Void> result = idempotencyCache.execute(idempotencyKey,
+                request("Withdrawal", account, null, amount), () -> withdraw(customer, account, amount));
+        return result != null ? result : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Transfers funds between two accounts as one atomic unit.
+     * The debit, the credit and both log records (a "Transfer" on the source and a
+     * "Transfer In" on the target) are applied while the {@link TransferEngine}
+     * holds both accounts' locks.
+     * 
+     * @param customer the customer initiating the transfer
+     * @param sourceAccount the account to debit
+     * @param targetAccount the account to credit
+     * @param amount the amount to transfer (must be greater than zero)
+     * @return a future that completes when the log records are durable
+     * @throws IllegalArgumentException if any argument is null, the amount is invalid or funds are insufficient
+     */
+    public CompletableFuture<Void> transfer(Customer customer, Account sourceAccount, Account targetAccount, double amount) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> logged;
+        try {
+            if (customer == null || sourceAccount == null || targetAccount == null) {
+                throw new IllegalArgumentException("Customer or Account cannot be null.");
+            }
+            if (!(amount > 0)) {
+                throw new IllegalArgumentException("Transfer amount must be greater than zero.");
+            }
+            Transaction debit = new Transaction(customer.getCustomerID(), sourceAccount.getAccountNumber(), "Transfer", amount);
+            Transaction credit = new Transaction(targetAccount.getCustomer().getCustomerID(), targetAccount.getAccountNumber(), "Transfer In", amount);
+            logged = transferEngine.transfer(sourceAccount, targetAccount, amount, debit, credit);
+        } catch (IllegalArgumentException e) {
+            BankMetrics.BANK_TRANSFER.rejected(start);
+            throw e;
+        } catch (RuntimeException e) {
+            BankMetrics.BANK_TRANSFER.failed(start);
+            throw e;
         }
-        boolean success = account.withdraw(amount);
-        if (success) {
-            // Log transaction
-            Transaction transaction = new Transaction(customer.getCustomerID(), account.getAccountNumber(), "Withdrawal", amount);
-            TransactionLogger.log(transaction);
+        BankMetrics.BANK_TRANSFER.succeeded(start);
+        return logged;
+    }
+
+    /**
+     * Transfers funds once per idempotency key, so a retried request is not applied twice.
+     * A retry returns the original transfer's future, or a completed future if the
+     * original ran before a restart, or rethrows the original refusal.
+     * 
+     * @param idempotencyKey identifies the request across retries (cannot be empty)
+     * @param customer the customer initiating the transfer
+     * @param sourceAccount the account to debit
+     * @param targetAccount the account to credit
+     * @param amount the amount to transfer (must be greater than zero)
+     * @return a future that completes when the log records are durable
+     * @throws IllegalArgumentException if the transfer was refused or the key was used for a different request
+     */
+    public CompletableFuture<Void> transfer(String idempotencyKey, Customer customer, Account sourceAccount,
+            Account targetAccount, double amount) {
+        CompletableFuture<Void> result = idempotencyCache.execute(idempotencyKey,
+                request("Transfer", sourceAccount, targetAccount, amount),
+                () -> transfer(customer, sourceAccount, targetAccount, amount));
+        return result != null ? result : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Replaces the cache that remembers idempotency keys, for example with one opened
+     * from a journal so keys survive a restart. The bank's ATMs share the same cache.
+     * 
+     * @param cache the cache to use (cannot be null)
+     */
+    public void useIdempotencyCache(IdempotencyCache cache) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Idempotency cache cannot be null.");
+        }
+        idempotencyCache = cache;
+        for (ATM atm : atms.snapshot()) {
+            atm.useIdempotencyCache(cache);
         }
     }
 
-    public void transfer(Customer customer, Account sourceAccount, Account targetAccount, double amount) {
-        if (customer == null || sourceAccount == null || targetAccount == null) {
+    // Describes a posting, so a key reused for a different posting is detected
+    private static String request(String type, Account account, Account target, double amount) {
+        if (account == null) {
             throw new IllegalArgumentException("Customer or Account cannot be null.");
         }
-        sourceAccount.transfer(targetAccount, amount);
-        // Log transaction
-        Transaction transaction = new Transaction(customer.getCustomerID(), sourceAccount.getAccountNumber(), "Transfer", amount);
-        TransactionLogger.log(transaction);
+        return type + "," + account.getAccountNumber() + "," + (target == null ? "" : target.getAccountNumber()) + "," + amount;
     }
 
+    /**
+     * Retrieves the transactions logged against the given account.
+     * 
+     * @param account the account whose history is requested (cannot be null)
+     * @return List of the account's transactions in the order they were logged
+     * @throws IllegalArgumentException if account is null
+     */
     public List<Transaction> getTransactionHistory(Account account) {
         if (account == null) {
             throw new IllegalArgumentException("Account cannot be null.");
         }
-        return TransactionLogger.getTransactions();
+        return TransactionLogger.getTransactionsForAccount(account.getAccountNumber());
+    }
+
+    /**
+     * Retrieves one page of the given account's transactions, oldest first.
+     *
+     * @param account the account whose history is requested (cannot be null)
+     * @param pageSize the most transactions to return (must be greater than zero)
+     * @param pageToken the token from the previous page, or null for the first page
+     * @return the page and the token for the next one
+     * @throws IllegalArgumentException if account is null or the page size or token is invalid
+     */
+    public TransactionPage getTransactionHistoryPage(Account account, int pageSize, String pageToken) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account cannot be null.");
+        }
+        return TransactionLogger.getTransactionPage(account.getAccountNumber(), pageSize, pageToken);
+    }
+
+    /**
+     * Streams the given account's transactions lazily, oldest first.
+     *
+     * @param account the account whose history is requested (cannot be null)
+     * @return a sequential stream that reads the log one page at a time
+     * @throws IllegalArgumentException if account is null
+     */
+    public Stream<Transaction> streamTransactionHistory(Account account) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account cannot be null.");
+        }
+        return TransactionLogger.streamTransactions(account.getAccountNumber());
+    }
+
+    /**
+     * Retrieves the transactions logged by the given customer across all of their accounts.
+     * 
+     * @param customer the customer whose history is requested (cannot be null)
+     * @return List of the customer's transactions in the order they were logged
+     * @throws IllegalArgumentException if customer is null
+     */
+    public List<Transaction> getTransactionHistory(Customer customer) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null.");
+        }
+        return TransactionLogger.getTransactionsForCustomer(customer.getCustomerID());
     }
 
     @Override
@@ -0,0 +1,186 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder events for each stage of a posting.
+ * <p>
+ * A deposit or withdrawal shows up in a recording as an account lookup, a balance
+ * change and a transaction log write, next to the JVM's own GC, safepoint and file
+ * I/O events; loading the account file shows up as one account load. Start a
+ * recording with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}
+ * and open it in JDK Mission Control under "Bank Management System".
+ * <p>
+ * Each call site creates the event, calls {@code begin()}, and calls the event's
+ * {@code record} method when the stage is done. Fields are only filled in when the
+ * event will actually be written, and when no recording is running the JIT removes
+ * the event entirely, so instrumentation costs next to nothing in production. The
+ * lookup and balance events are on every posting's path, so by default they are
+ * only written when they take longer than their threshold: a recording captures the
+ * spikes rather than every call. A recording can lower the threshold to see them all.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class BankEvents {
+
+    private static final String CATEGORY = "Bank Management System";
+
+    private BankEvents() {
+    }
+
+    /**
+     * An account looked up by number.
+     */
+    @Name("bank.AccountLookup")
+    @Label("Account Lookup")
+    @Category({ CATEGORY, "Posting" })
+    @Threshold("10 us")
+    @StackTrace(false)
+    public static final class AccountLookup extends Event {
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Found")
+        boolean found;
+
+        void record(String accountNumber, Account account) {
+            if (shouldCommit()) {
+                this.accountNumber = accountNumber;
+                this.found = account != null;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A deposit or withdrawal applied to an account's balance.
+     */
+    @Name("bank.BalanceChange")
+    @Label("Balance Change")
+    @Category({ CATEGORY, "Posting" })
+    @Threshold("10 us")
+    @StackTrace(false)
+    public static final class BalanceChange extends Event {
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Type")
+        String type;
+
+        @Label("Amount")
+        double amount;
+
+        @Label("Balance")
+        @Description("The balance after the change")
+        double balance;
+
+        void record(Account account, String type, double amount, long balanceMinor) {
+            if (shouldCommit()) {
+                this.accountNumber = account.getAccountNumber();
+                this.type = type;
+                this.amount = amount;
+                this.balance = Account.toAmount(balanceMinor);
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A transaction appended to the log on the caller's thread.
+     */
+    @Name("bank.TransactionWrite")
+    @Label("Transaction Write")
+    @Category({ CATEGORY, "Posting" })
+    public static final class TransactionWrite extends Event {
+        @Label("Account Number")
+        String accountNumber;
+
+        @Label("Type")
+        String type;
+
+        @Label("Amount")
+        double amount;
+
+        @Label("Record Size")
+        @DataAmount
+        int bytes;
+
+        @Label("Succeeded")
+        boolean succeeded;
+
+        void record(Transaction transaction, int bytes, boolean succeeded) {
+            if (shouldCommit()) {
+                this.accountNumber = transaction.getAccountNumber();
+                this.type = transaction.getType();
+                this.amount = transaction.getAmount();
+                this.bytes = bytes;
+                this.succeeded = succeeded;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * A batch of transactions appended to the log together, by {@code logAll} or by
+     * the batching writer. A writer batch's duration includes its fsync.
+     */
+    @Name("bank.TransactionBatchWrite")
+    @Label("Transaction Batch Write")
+    @Category({ CATEGORY, "Posting" })
+    public static final class TransactionBatchWrite extends Event {
+        @Label("Transactions")
+        int count;
+
+        @Label("Batch Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Succeeded")
+        boolean succeeded;
+
+        void record(int count, long bytes, boolean succeeded) {
+            if (shouldCommit()) {
+                this.count = count;
+                this.bytes = bytes;
+                this.succeeded = succeeded;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * The account file read into the bank at startup.
+     */
+    @Name("bank.AccountLoad")
+    @Label("Account Load")
+    @Category({ CATEGORY, "Loading" })
+    public static final class AccountLoad extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Parallel")
+        boolean parallel;
+
+        @Label("Accounts Loaded")
+        int loaded;
+
+        @Label("Records Rejected")
+        int rejected;
+
+        void record(String file, boolean parallel, int loaded, int rejected) {
+            if (shouldCommit()) {
+                this.file = file;
+                this.parallel = parallel;
+                this.loaded = loaded;
+                this.rejected = rejected;
+                commit();
+            }
+        }
+    }
+}
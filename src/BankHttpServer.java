@@ -0,0 +1,536 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves deposits, withdrawals, transfers, balances and transaction history over
+ * HTTP with JSON bodies, so many ATM and branch clients can use one {@link Bank}
+ * at the same time.
+ * <pre>
+ *   GET  /accounts/{accountNumber}                  balance and details
+ *   POST /accounts/{accountNumber}/deposit          {"amount": 100.0}
+ *   POST /accounts/{accountNumber}/withdraw         {"amount": 100.0}
+ *   POST /transfers                                 {"from": "...", "to": "...", "amount": 100.0}
+ *   GET  /accounts/{accountNumber}/transactions     ?pageSize=20&amp;pageToken=...
+ * </pre>
+ * A posting sent with an {@code Idempotency-Key} header is applied once however often
+ * it is retried. A refused request gets 400, an unknown account 404, and every
+ * error body is {@code {"error": "message"}}.
+ * <p>
+ * Each request runs on its own virtual thread when the JVM supports them (Java 21
+ * and later), so a request blocked on the transaction log ties up no platform
+ * thread. On older JVMs requests run on a fixed pool of platform threads.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class BankHttpServer implements AutoCloseable {
+
+    /** Most bytes read from a request body. */
+    public static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String ACCOUNTS = "/accounts/";
+
+    static {
+        // The JDK server writes a response's headers and body separately; without
+        // TCP_NODELAY the body waits on the client's delayed acknowledgement (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Bank bank;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * A request that cannot be served, with the HTTP status to answer it with.
+     */
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private BankHttpServer(Bank bank, HttpServer server, ExecutorService executor) {
+        this.bank = bank;
+        this.server = server;
+        this.executor = executor;
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param bank the bank to serve (cannot be null)
+     * @param port the port to listen on, or 0 for any free port
+     * @return the running server
+     * @throws IOException if the port cannot be bound
+     */
+    public static BankHttpServer start(Bank bank, int port) throws IOException {
+        return start(bank, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Starts a server on the given address.
+     *
+     * @param bank the bank to serve (cannot be null)
+     * @param address the address to listen on
+     * @return the running server
+     * @throws IOException if the address cannot be bound
+     */
+    public static BankHttpServer start(Bank bank, InetSocketAddress address) throws IOException {
+        if (bank == null) {
+            throw new IllegalArgumentException("Bank cannot be null.");
+        }
+        BankHttpServer server = new BankHttpServer(bank, HttpServer.create(address, BACKLOG), newRequestExecutor());
+        server.server.start();
+        return server;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for those in progress, and
+     * stops the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread, or a fixed pool
+     * of daemon platform threads if this JVM has no virtual threads. Looked up
+     * reflectively so the project still builds and runs on Java 17.
+     *
+     * @return the executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threads = task -> {
+                Thread thread = new Thread(task, "bank-http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 4), threads);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange);
+        } catch (RequestException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI()
+                    + ": " + e);
+            status = 500;
+            body = error("Internal error.");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/transfers")) {
+            requireMethod(method, "POST");
+            return transfer(exchange);
+        }
+        if (!path.startsWith(ACCOUNTS)) {
+            throw new RequestException(404, "Not found.");
+        }
+        String rest = path.substring(ACCOUNTS.length());
+        int slash = rest.indexOf('/');
+        Account account = account(slash < 0 ? rest : rest.substring(0, slash));
+        String action = slash < 0 ? "" : rest.substring(slash + 1);
+        switch (action) {
+            case "":
+                requireMethod(method, "GET");
+                return accountJson(account);
+            case "deposit":
+                requireMethod(method, "POST");
+                return deposit(exchange, account);
+            case "withdraw":
+                requireMethod(method, "POST");
+                return withdraw(exchange, account);
+            case "transactions":
+                requireMethod(method, "GET");
+                return transactions(exchange.getRequestURI(), account);
+            default:
+                throw new RequestException(404, "Not found.");
+        }
+    }
+
+    private String deposit(HttpExchange exchange, Account account) throws IOException {
+        double amount = amount(readBody(exchange));
+        String key = idempotencyKey(exchange.getRequestHeaders());
+        try {
+            if (key == null) {
+                bank.deposit(account.getCustomer(), account, amount).join();
+            } else {
+                bank.deposit(key, account.getCustomer(), account, amount).join();
+            }
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Deposit was applied but could not be logged.", e.getCause());
+        }
+        return accountJson(account);
+    }
+
+    private String withdraw(HttpExchange exchange, Account account) throws IOException {
+        double amount = amount(readBody(exchange));
+        String key = idempotencyKey(exchange.getRequestHeaders());
+        try {
+            if (key == null) {
+                bank.withdraw(account.getCustomer(), account, amount).join();
+            } else {
+                bank.withdraw(key, account.getCustomer(), account, amount).join();
+            }
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Withdrawal was applied but could not be logged.", e.getCause());
+        }
+        return accountJson(account);
+    }
+
+    private String transfer(HttpExchange exchange) throws IOException {
+        Map<String, String> request = readBody(exchange);
+        Account source = account(required(request, "from"));
+        Account target = account(required(request, "to"));
+        double amount = amount(request);
+        String key = idempotencyKey(exchange.getRequestHeaders());
+        try {
+            if (key == null) {
+                bank.transfer(source.getCustomer(), source, target, amount).join();
+            } else {
+                bank.transfer(key, source.getCustomer(), source, target, amount).join();
+            }
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Transfer was applied but could not be logged.", e.getCause());
+        }
+        StringBuilder json = new StringBuilder(160).append("{\"from\":");
+        appendString(json, source.getAccountNumber()).append(",\"to\":");
+        appendString(json, target.getAccountNumber()).append(",\"amount\":").append(amount)
+                .append(",\"fromBalance\":").append(source.getBalance())
+                .append(",\"toBalance\":").append(target.getBalance()).append('}');
+        return json.toString();
+    }
+
+    private String transactions(URI uri, Account account) {
+        Map<String, String> query = parseQuery(uri.getRawQuery());
+        int pageSize = DEFAULT_PAGE_SIZE;
+        if (query.containsKey("pageSize")) {
+            try {
+                pageSize = Integer.parseInt(query.get("pageSize"));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Page size must be a whole number.");
+            }
+        }
+        TransactionPage page = bank.getTransactionHistoryPage(account, pageSize, query.get("pageToken"));
+        StringBuilder json = new StringBuilder(64 + page.getTransactions().size() * 96).append("{\"transactions\":[");
+        List<Transaction> transactions = page.getTransactions();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            json.append(i == 0 ? "{\"customerID\":" : ",{\"customerID\":");
+            appendString(json, transaction.getCustomerID()).append(",\"accountNumber\":");
+            appendString(json, transaction.getAccountNumber()).append(",\"type\":");
+            appendString(json, transaction.getType()).append(",\"amount\":").append(transaction.getAmount()).append('}');
+        }
+        json.append("],\"nextPageToken\":");
+        if (page.hasNextPage()) {
+            appendString(json, page.getNextPageToken());
+        } else {
+            json.append("null");
+        }
+        return json.append('}').toString();
+    }
+
+    private Account account(String accountNumber) {
+        Account account = bank.findAccount(accountNumber);
+        if (account == null) {
+            throw new RequestException(404, "Account not found.");
+        }
+        return account;
+    }
+
+    private static String accountJson(Account account) {
+        StringBuilder json = new StringBuilder(128).append("{\"accountNumber\":");
+        appendString(json, account.getAccountNumber()).append(",\"accountType\":");
+        appendString(json, account.getAccountType()).append(",\"customerID\":");
+        appendString(json, account.getCustomer().getCustomerID()).append(",\"balance\":")
+                .append(account.getBalance()).append('}');
+        return json.toString();
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new RequestException(405, "Method not allowed.");
+        }
+    }
+
+    private static String idempotencyKey(Headers headers) {
+        return headers.getFirst("Idempotency-Key");
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new RequestException(413, "Request body is too large.");
+            }
+            return parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String required(Map<String, String> request, String name) {
+        String value = request.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field: " + name + ".");
+        }
+        return value;
+    }
+
+    private static double amount(Map<String, String> request) {
+        try {
+            return Double.parseDouble(required(request, "amount"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Amount must be a number.");
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> values = new HashMap<>();
+        if (query == null) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static String error(String message) {
+        return appendString(new StringBuilder(64).append("{\"error\":"), message).append('}').toString();
+    }
+
+    /**
+     * Parses a flat JSON object whose values are strings, numbers, booleans or null.
+     * Values are returned as written, with strings unescaped; a null value is left out.
+     *
+     * @param json the object
+     * @return the object's fields by name
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> fields = new HashMap<>();
+        int[] at = { skipSpace(json, 0) };
+        expect(json, at, '{');
+        if (peek(json, at) == '}') {
+            at[0]++;
+        } else {
+            while (true) {
+                String name = readString(json, at);
+                expect(json, at, ':');
+                String value = readValue(json, at);
+                if (value != null) {
+                    fields.put(name, value);
+                }
+                if (peek(json, at) == ',') {
+                    at[0]++;
+                    continue;
+                }
+                expect(json, at, '}');
+                break;
+            }
+        }
+        if (skipSpace(json, at[0]) != json.length()) {
+            throw new IllegalArgumentException("Invalid JSON.");
+        }
+        return fields;
+    }
+
+    /**
+     * Appends a string as a JSON string literal.
+     *
+     * @param out where the JSON is being built
+     * @param value the string
+     * @return {@code out}
+     */
+    static StringBuilder appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    private static String readValue(String json, int[] at) {
+        char c = peek(json, at);
+        if (c == '"') {
+            return readString(json, at);
+        }
+        int start = at[0];
+        int end = start;
+        while (end < json.length() && ",}] \t\r\n".indexOf(json.charAt(end)) < 0) {
+            end++;
+        }
+        String literal = json.substring(start, end);
+        if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+            throw new IllegalArgumentException("Invalid JSON.");
+        }
+        at[0] = end;
+        return literal.equals("null") ? null : literal;
+    }
+
+    private static String readString(String json, int[] at) {
+        expect(json, at, '"');
+        StringBuilder value = new StringBuilder();
+        int i = at[0];
+        while (true) {
+            if (i >= json.length()) {
+                throw new IllegalArgumentException("Invalid JSON.");
+            }
+            char c = json.charAt(i++);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                throw new IllegalArgumentException("Invalid JSON.");
+            }
+            char escape = json.charAt(i++);
+            switch (escape) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > json.length()) {
+                        throw new IllegalArgumentException("Invalid JSON.");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid JSON.");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    value.append(escape);
+            }
+        }
+        at[0] = i;
+        return value.toString();
+    }
+
+    private static void expect(String json, int[] at, char expected) {
+        if (peek(json, at) != expected) {
+            throw new IllegalArgumentException("Invalid JSON.");
+        }
+        at[0]++;
+    }
+
+    // Skips white space and returns the next character, or 0 at the end
+    private static char peek(String json, int[] at) {
+        at[0] = skipSpace(json, at[0]);
+        return at[0] < json.length() ? json.charAt(at[0]) : 0;
+    }
+
+    private static int skipSpace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
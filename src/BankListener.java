@@ -0,0 +1,26 @@
+/**
+ * Receives changes to a {@link Bank}'s customers, accounts and balances.
+ * Register with {@link Bank#addListener}. All methods default to doing nothing,
+ * so listeners only override the events they care about.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public interface BankListener extends BalanceListener {
+
+    default void customerAdded(Customer customer) {
+    }
+
+    default void customerRemoved(Customer customer) {
+    }
+
+    default void accountAdded(Account account) {
+    }
+
+    default void accountRemoved(Account account) {
+    }
+
+    @Override
+    default void balanceChanged(Account account, long previousMinor, long updatedMinor) {
+    }
+}
@@ -0,0 +1,95 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * The metrics recorded by the banking operations, and their JMX registration.
+ * <p>
+ * Each instrumented operation has an {@link OperationMetrics} here. After
+ * {@link #registerMBeans()} they appear in JConsole or VisualVM under
+ * {@code BankManagementSystem:type=Operation}, next to a
+ * {@code BankManagementSystem:type=TransactionLog} bean that reports how many
+ * transactions are queued for the batching log writer.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class BankMetrics {
+
+    public static final OperationMetrics BANK_DEPOSIT = new OperationMetrics("Bank.deposit");
+    public static final OperationMetrics BANK_TRANSFER = new OperationMetrics("Bank.transfer");
+    public static final OperationMetrics TRANSACTION_LOG = new OperationMetrics("TransactionLogger.log");
+    public static final OperationMetrics SAVE_ACCOUNTS = new OperationMetrics("DataManager.saveAccounts");
+    public static final OperationMetrics ATM_WITHDRAW = new OperationMetrics("ATM.withdraw");
+    public static final OperationMetrics TELLER_TRANSFER = new OperationMetrics("Teller.assistTransfer");
+
+    private static final List<OperationMetrics> ALL = Collections.unmodifiableList(Arrays.asList(
+            BANK_DEPOSIT, BANK_TRANSFER, TRANSACTION_LOG, SAVE_ACCOUNTS, ATM_WITHDRAW, TELLER_TRANSFER));
+
+    private static final String DOMAIN = "BankManagementSystem";
+
+    /**
+     * JMX view of the transaction log.
+     */
+    public interface TransactionLogMBean {
+        int getQueueDepth();
+    }
+
+    private BankMetrics() {
+    }
+
+    /**
+     * @return every operation's metrics, in a fixed order
+     */
+    public static List<OperationMetrics> getAll() {
+        return ALL;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server. Calling it again does nothing.
+     *
+     * @throws IllegalStateException if the beans cannot be registered
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics metrics : ALL) {
+                ObjectName name = new ObjectName(DOMAIN + ":type=Operation,name=" + metrics.getName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new StandardMBean(metrics, OperationMetricsMBean.class), name);
+                }
+            }
+            ObjectName log = new ObjectName(DOMAIN + ":type=TransactionLog");
+            if (!server.isRegistered(log)) {
+                TransactionLogMBean view = TransactionLogger::getQueueDepth;
+                server.registerMBean(new StandardMBean(view, TransactionLogMBean.class), log);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Formats every operation's counts and latency percentiles as a table, followed
+     * by the transaction log's queue depth.
+     *
+     * @return the report
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder(128 * (ALL.size() + 2));
+        report.append(String.format("%-26s %10s %9s %7s %10s %10s %10s %10s%n", "Operation", "OK", "Rejected",
+                "Failed", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (OperationMetrics metrics : ALL) {
+            report.append(String.format("%-26s %10d %9d %7d %10.1f %10.1f %10.1f %10.1f%n", metrics.getName(),
+                    metrics.getSucceeded(), metrics.getRejected(), metrics.getFailed(), metrics.getP50Micros(),
+                    metrics.getP99Micros(), metrics.getP999Micros(), metrics.getMaxMicros()));
+        }
+        report.append("Transaction log queue depth: ").append(TransactionLogger.getQueueDepth());
+        return report.toString();
+    }
+}
@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary transaction journal written through memory-mapped segments.
+ * <p>
+ * The file starts with a fixed header (magic, version, committed end, segment size)
+ * followed by length-prefixed records:
+ * <pre>
+ *   int length | int crc32 | double amount | short len + customerID | short len + accountNumber | short len + type
+ * </pre>
+ * where {@code length} and {@code crc32} cover the payload that follows them.
+ * Records never straddle a segment; a length of {@code -1} pads to the next segment
+ * and a length of {@code 0} marks the end of the journal. Appends encode fields
+ * straight into the mapped segment and readers decode straight out of it.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class BinaryTransactionJournal implements TransactionStore {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final int MAGIC = 0x54584A31; // "TXJ1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_HEADER_SIZE = 8;
+    private static final int END_OFFSET_POSITION = 8;
+    private static final int SEGMENT_SIZE_POSITION = 16;
+    private static final int PADDING = -1;
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private volatile MappedByteBuffer[] segments;
+    private volatile long end;
+
+    public BinaryTransactionJournal(String fileName) throws IOException {
+        this(fileName, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens or creates a journal.
+     * An existing journal keeps the segment size it was created with.
+     *
+     * @param fileName the journal file
+     * @param segmentSize size of each mapped segment for a new journal
+     * @throws IOException if the journal cannot be opened or is not a journal file
+     */
+    public BinaryTransactionJournal(String fileName, int segmentSize) throws IOException {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Journal file name cannot be empty.");
+        }
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Segment size must be at least 4096 bytes.");
+        }
+        this.channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segments = new MappedByteBuffer[0];
+        if (channel.size() == 0) {
+            this.segmentSize = segmentSize;
+            MappedByteBuffer header = segment(0);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(END_OFFSET_POSITION, HEADER_SIZE);
+            header.putInt(SEGMENT_SIZE_POSITION, segmentSize);
+            this.end = HEADER_SIZE;
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Not a transaction journal: " + fileName);
+            }
+            this.segmentSize = header.getInt(SEGMENT_SIZE_POSITION);
+            this.end = recoverEnd(header.getLong(END_OFFSET_POSITION));
+        }
+    }
+
+    @Override
+    public synchronized long append(Transaction[] transactions, int count, long[] offsets, int[] lengths) throws IOException {
+        long position = end;
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = transactions[i];
+            int payloadLength = 8 + encodedLength(transaction.getCustomerID())
+                    + encodedLength(transaction.getAccountNumber()) + encodedLength(transaction.getType());
+            int recordLength = RECORD_HEADER_SIZE + payloadLength;
+            if (recordLength > segmentSize - HEADER_SIZE) {
+                throw new IOException("Transaction record is larger than a journal segment.");
+            }
+            int within = (int) (position % segmentSize);
+            if (within + recordLength > segmentSize) {
+                if (segmentSize - within >= 4) {
+                    segment(position).putInt(within, PADDING);
+                }
+                position += segmentSize - within;
+                within = 0;
+            }
+            MappedByteBuffer buffer = segment(position);
+            int cursor = within + RECORD_HEADER_SIZE;
+            buffer.putDouble(cursor, transaction.getAmount());
+            cursor = putString(buffer, cursor + 8, transaction.getCustomerID());
+            cursor = putString(buffer, cursor, transaction.getAccountNumber());
+            putString(buffer, cursor, transaction.getType());
+            buffer.putInt(within + 4, crc(buffer, within + RECORD_HEADER_SIZE, payloadLength));
+            buffer.putInt(within, payloadLength);
+            offsets[i] = position;
+            lengths[i] = recordLength;
+            position += recordLength;
+        }
+        segment(0).putLong(END_OFFSET_POSITION, position);
+        end = position;
+        return position;
+    }
+
+    @Override
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public Transaction read(long offset, int length) throws IOException {
+        if (offset < HEADER_SIZE || offset + length > end) {
+            throw new IOException("Journal offset " + offset + " is outside the journal.");
+        }
+        MappedByteBuffer buffer = segment(offset);
+        Transaction transaction = decode(buffer, (int) (offset % segmentSize));
+        if (transaction == null) {
+            throw new IOException("Corrupt journal record at offset " + offset + ".");
+        }
+        return transaction;
+    }
+
+    @Override
+    public long scan(long fromOffset, int maxRecords, RecordVisitor visitor) throws IOException {
+        long limit = end;
+        long position = Math.max(fromOffset, HEADER_SIZE);
+        int visited = 0;
+        while (position < limit && visited < maxRecords) {
+            MappedByteBuffer buffer = segment(position);
+            int within = (int) (position % segmentSize);
+            int payloadLength = segmentSize - within < RECORD_HEADER_SIZE ? PADDING : buffer.getInt(within);
+            if (payloadLength == PADDING) {
+                position += segmentSize - within;
+                continue;
+            }
+            if (!isValidLength(payloadLength, within)) {
+                // A length that cannot be right gives no way to find the next record
+                System.err.println("Journal record at offset " + position + " has an invalid length; stopping there.");
+                break;
+            }
+            int recordLength = RECORD_HEADER_SIZE + payloadLength;
+            Transaction transaction = decode(buffer, within);
+            if (transaction == null) {
+                System.err.println("Skipping corrupt journal record at offset " + position + ".");
+            } else {
+                visitor.visit(transaction, position, recordLength, position + recordLength);
+                visited++;
+            }
+            position += recordLength;
+        }
+        return Math.min(position, limit);
+    }
+
+    @Override
+    public long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Walks forward from the committed end recorded in the header, accepting records
+     * whose CRC checks out. This recovers appends that reached the segment but not the header.
+     */
+    private long recoverEnd(long committedEnd) throws IOException {
+        long position = Math.max(committedEnd, HEADER_SIZE);
+        long fileSize = channel.size();
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            MappedByteBuffer buffer = segment(position);
+            int within = (int) (position % segmentSize);
+            if (segmentSize - within < RECORD_HEADER_SIZE) {
+                position += segmentSize - within;
+                continue;
+            }
+            int payloadLength = buffer.getInt(within);
+            if (payloadLength == PADDING) {
+                position += segmentSize - within;
+                continue;
+            }
+            if (!isValidLength(payloadLength, within) || decode(buffer, within) == null) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + payloadLength;
+        }
+        return position;
+    }
+
+    // A record must fit in what is left of its segment
+    private boolean isValidLength(int payloadLength, int within) {
+        return payloadLength > 0 && payloadLength <= segmentSize - within - RECORD_HEADER_SIZE;
+    }
+
+    private Transaction decode(MappedByteBuffer buffer, int within) {
+        int payloadLength = buffer.getInt(within);
+        if (payloadLength <= 8 || within + RECORD_HEADER_SIZE + payloadLength > segmentSize) {
+            return null;
+        }
+        int payloadStart = within + RECORD_HEADER_SIZE;
+        if (buffer.getInt(within + 4) != crc(buffer, payloadStart, payloadLength)) {
+            return null;
+        }
+        double amount = buffer.getDouble(payloadStart);
+        int cursor = payloadStart + 8;
+        String customerID = getString(buffer, cursor);
+        cursor += 2 + (buffer.getShort(cursor) & 0xFFFF);
+        String accountNumber = getString(buffer, cursor);
+        cursor += 2 + (buffer.getShort(cursor) & 0xFFFF);
+        String type = getString(buffer, cursor);
+        try {
+            return new Transaction(customerID, accountNumber, type, amount);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private MappedByteBuffer segment(long position) throws IOException {
+        int segmentIndex = (int) (position / segmentSize);
+        MappedByteBuffer[] current = segments;
+        if (segmentIndex < current.length) {
+            return current[segmentIndex];
+        }
+        synchronized (this) {
+            current = segments;
+            if (segmentIndex >= current.length) {
+                MappedByteBuffer[] grown = Arrays.copyOf(current, segmentIndex + 1);
+                for (int i = current.length; i <= segmentIndex; i++) {
+                    grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+                }
+                segments = grown;
+                current = grown;
+            }
+            return current[segmentIndex];
+        }
+    }
+
+    private static int crc(MappedByteBuffer buffer, int start, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        view.position(start).limit(start + length);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private static int encodedLength(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                length = value.getBytes(StandardCharsets.UTF_8).length;
+                break;
+            }
+        }
+        if (length > 0xFFFF) {
+            throw new IllegalArgumentException("Journal field is too long.");
+        }
+        return 2 + length;
+    }
+
+    private static int putString(MappedByteBuffer buffer, int position, String value) {
+        int length = encodedLength(value) - 2;
+        buffer.putShort(position, (short) length);
+        if (length == value.length()) {
+            for (int i = 0; i < length; i++) {
+                buffer.put(position + 2 + i, (byte) value.charAt(i));
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(position + 2 + i, bytes[i]);
+            }
+        }
+        return position + 2 + length;
+    }
+
+    private static String getString(MappedByteBuffer buffer, int position) {
+        int length = buffer.getShort(position) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
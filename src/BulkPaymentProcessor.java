@@ -0,0 +1,291 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Posts payroll, utility and other batch payment files against a {@link Bank}.
+ * <p>
+ * Each non-empty line of the input file is one posting:
+ * <pre>
+ *   reference,accountNumber,CREDIT|DEBIT,amount
+ * </pre>
+ * The file is parsed, validated and resolved to accounts in parallel chunks. Postings
+ * are then grouped by account and the groups applied in parallel, each group in file
+ * order by a single task, so no two postings to the same account ever race. Accepted
+ * postings are logged as "Deposit" and "Withdrawal" transactions with one log write
+ * per {@link #LOG_BATCH_SIZE} postings rather than one per line.
+ * <p>
+ * A report is written with one line per posting, in file order:
+ * <pre>
+ *   lineNumber,reference,ACCEPTED|REJECTED,reason
+ * </pre>
+ * where line numbers count the non-empty lines of the input from one.
+ * <p>
+ * If the transaction log cannot be written, the postings not yet logged are reversed,
+ * so balances never run ahead of the log, and are reported as rejected before the
+ * error is rethrown.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class BulkPaymentProcessor {
+
+    /** Most postings logged with a single write. */
+    public static final int LOG_BATCH_SIZE = 65536;
+
+    private static final String CREDIT = "CREDIT";
+    private static final String DEBIT = "DEBIT";
+    private static final String ACCEPTED = "ACCEPTED";
+    private static final String REJECTED = "REJECTED";
+    private static final String NOT_LOGGED = "Could not be logged.";
+    // Account groups are applied in tasks of roughly this many postings
+    private static final int APPLY_TASK_SIZE = 4096;
+
+    private final Bank bank;
+    private final ForkJoinPool pool;
+    private final ChunkedCsvReader reader;
+
+    /**
+     * Outcome of one file.
+     */
+    public static final class Summary {
+        private final int accepted;
+        private final int rejected;
+        private final long creditsMinor;
+        private final long debitsMinor;
+
+        Summary(int accepted, int rejected, long creditsMinor, long debitsMinor) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.creditsMinor = creditsMinor;
+            this.debitsMinor = debitsMinor;
+        }
+
+        public int getAccepted() {
+            return accepted;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        public double getTotalCredits() {
+            return Account.toAmount(creditsMinor);
+        }
+
+        public double getTotalDebits() {
+            return Account.toAmount(debitsMinor);
+        }
+    }
+
+    // One line of the input; reason is set once the posting is rejected
+    private static final class Posting {
+        final String reference;
+        final Account account;
+        final boolean debit;
+        final double amount;
+        String reason;
+        boolean logged;
+
+        Posting(String reference, Account account, boolean debit, double amount, String reason) {
+            this.reference = reference;
+            this.account = account;
+            this.debit = debit;
+            this.amount = amount;
+            this.reason = reason;
+        }
+    }
+
+    public BulkPaymentProcessor(Bank bank, ForkJoinPool pool) {
+        if (bank == null || pool == null) {
+            throw new IllegalArgumentException("Bank and pool cannot be null.");
+        }
+        this.bank = bank;
+        this.pool = pool;
+        this.reader = new ChunkedCsvReader(pool, ChunkedCsvReader.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Applies every valid posting in a file and reports on each line.
+     *
+     * @param input the payment file
+     * @param report where the per-line report is written (replaced if it exists)
+     * @return counts and totals of the accepted and rejected postings
+     * @throws IOException if the input cannot be read, or the report or transaction log cannot be written
+     */
+    public Summary process(File input, File report) throws IOException {
+        List<Posting> postings = reader.read(input, Collections.emptySet(), this::parse).getRecords();
+
+        Map<Account, List<Posting>> byAccount = new LinkedHashMap<>();
+        for (Posting posting : postings) {
+            if (posting.reason == null) {
+                byAccount.computeIfAbsent(posting.account, account -> new ArrayList<>()).add(posting);
+            }
+        }
+        applyGroups(new ArrayList<>(byAccount.values()));
+
+        List<Posting> batch = new ArrayList<>(Math.min(postings.size(), LOG_BATCH_SIZE));
+        try {
+            for (Posting posting : postings) {
+                if (posting.reason == null) {
+                    batch.add(posting);
+                    if (batch.size() == LOG_BATCH_SIZE) {
+                        logBatch(batch);
+                    }
+                }
+            }
+            logBatch(batch);
+        } catch (IOException | RuntimeException e) {
+            reverseUnlogged(postings);
+            try {
+                writeReport(report, postings);
+            } catch (IOException reportFailure) {
+                e.addSuppressed(reportFailure);
+            }
+            throw e;
+        }
+        writeReport(report, postings);
+
+        int accepted = 0;
+        long credits = 0;
+        long debits = 0;
+        for (Posting posting : postings) {
+            if (posting.reason != null) {
+                continue;
+            }
+            accepted++;
+            if (posting.debit) {
+                debits += Account.toMinorUnits(posting.amount);
+            } else {
+                credits += Account.toMinorUnits(posting.amount);
+            }
+        }
+        return new Summary(accepted, postings.size() - accepted, credits, debits);
+    }
+
+    // Never throws, so every line reaches the report; a bad line becomes a rejected posting
+    private Posting parse(CsvCodec.Fields fields) {
+        String reference = fields.get(0);
+        if (fields.count() != 4) {
+            return rejected(reference, "Expected 4 fields.");
+        }
+        boolean debit;
+        if (fields.fieldEquals(2, CREDIT)) {
+            debit = false;
+        } else if (fields.fieldEquals(2, DEBIT)) {
+            debit = true;
+        } else {
+            return rejected(reference, "Unknown posting type: " + fields.get(2));
+        }
+        double amount;
+        try {
+            amount = fields.getDouble(3);
+        } catch (NumberFormatException e) {
+            return rejected(reference, "Invalid amount.");
+        }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            return rejected(reference, "Amount must be greater than zero.");
+        }
+        Account account = bank.findAccount(fields.get(1));
+        if (account == null) {
+            return rejected(reference, "Account not found.");
+        }
+        return new Posting(reference, account, debit, amount, null);
+    }
+
+    private static Posting rejected(String reference, String reason) {
+        return new Posting(reference, null, false, 0, reason);
+    }
+
+    private void applyGroups(List<List<Posting>> groups) throws IOException {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        int from = 0;
+        int size = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            size += groups.get(i).size();
+            if (size >= APPLY_TASK_SIZE || i == groups.size() - 1) {
+                List<List<Posting>> slice = groups.subList(from, i + 1);
+                tasks.add(pool.submit(() -> slice.forEach(BulkPaymentProcessor::applyGroup)));
+                from = i + 1;
+                size = 0;
+            }
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    // Postings to one account, applied in file order by one thread
+    private static void applyGroup(List<Posting> group) {
+        for (Posting posting : group) {
+            try {
+                if (posting.debit) {
+                    posting.account.withdraw(posting.amount);
+                } else {
+                    posting.account.deposit(posting.amount);
+                }
+            } catch (IllegalArgumentException e) {
+                posting.reason = e.getMessage();
+            }
+        }
+    }
+
+    private static void logBatch(List<Posting> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (Posting posting : batch) {
+            transactions.add(new Transaction(posting.account.getCustomer().getCustomerID(),
+                    posting.account.getAccountNumber(), posting.debit ? "Withdrawal" : "Deposit", posting.amount));
+        }
+        try {
+            TransactionLogger.logAll(transactions).join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        for (Posting posting : batch) {
+            posting.logged = true;
+        }
+        batch.clear();
+    }
+
+    // Undo every applied posting the log does not hold, the way a failed transfer credits its source back.
+    // The reversal is unconditional: the funds were already moved, so no limit check applies.
+    private static void reverseUnlogged(List<Posting> postings) {
+        for (Posting posting : postings) {
+            if (posting.reason == null && !posting.logged) {
+                long amountMinor = Account.toPostingMinorUnits(posting.amount);
+                posting.account.credit(posting.debit ? amountMinor : -amountMinor);
+                posting.reason = NOT_LOGGED;
+            }
+        }
+    }
+
+    private static void writeReport(File report, List<Posting> postings) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(report.toPath())) {
+            CsvCodec.RecordWriter records = new CsvCodec.RecordWriter(writer);
+            for (int i = 0; i < postings.size(); i++) {
+                Posting posting = postings.get(i);
+                StringBuilder line = records.begin().append(i + 1).append(',');
+                CsvCodec.appendField(line, posting.reference).append(',');
+                line.append(posting.reason == null ? ACCEPTED : REJECTED).append(',');
+                if (posting.reason != null) {
+                    CsvCodec.appendField(line, posting.reason);
+                }
+                records.end();
+            }
+        }
+    }
+}
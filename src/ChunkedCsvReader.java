@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads a CSV file in parallel.
+ * The file is split into byte ranges whose boundaries are moved forward to the next
+ * line break, and each range is read and parsed on a fork-join pool. Each line is
+ * parsed in place by a {@link CsvCodec.Fields} reused for the whole range and handed to
+ * a parser; records come back in file order. Invalid lines are counted rather than printed.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class ChunkedCsvReader {
+
+    /** Default size of each byte range. */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Turns the fields of one line into a record.
+     * Throwing {@link IllegalArgumentException} rejects the line.
+     */
+    public interface LineParser<T> {
+        T parse(CsvCodec.Fields fields);
+    }
+
+    /**
+     * Records parsed from a file and the number of lines rejected.
+     */
+    public static final class Result<T> {
+        private final List<T> records;
+        private final int rejected;
+
+        Result(List<T> records, int rejected) {
+            this.records = records;
+            this.rejected = rejected;
+        }
+
+        public List<T> getRecords() {
+            return records;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Creates a reader.
+     *
+     * @param pool the pool that parses the chunks
+     * @param chunkSize the approximate size of each chunk in bytes (must be positive)
+     */
+    public ChunkedCsvReader(ForkJoinPool pool, int chunkSize) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero.");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a reader on the common fork-join pool with the default chunk size.
+     */
+    public ChunkedCsvReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Parses every line of a file.
+     *
+     * @param file the file to read
+     * @param skipKeys lines whose first field is in this set are ignored (may be empty)
+     * @param parser turns each line's fields into a record
+     * @return the records in file order and the number of rejected lines
+     * @throws IOException if the file cannot be read
+     */
+    public <T> Result<T> read(File file, Set<String> skipKeys, LineParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<ForkJoinTask<Result<T>>> tasks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(channel, start, end, skipKeys, parser)));
+            }
+            List<T> records = new ArrayList<>();
+            int rejected = 0;
+            for (ForkJoinTask<Result<T>> task : tasks) {
+                Result<T> chunk;
+                try {
+                    chunk = task.join();
+                } catch (RuntimeException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw e;
+                }
+                records.addAll(chunk.records);
+                rejected += chunk.rejected;
+            }
+            return new Result<>(records, rejected);
+        }
+    }
+
+    // Chunk start offsets, each just after a line break, followed by the file size
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long next = chunkSize;
+        while (next < size) {
+            long lineStart = -1;
+            long position = next;
+            while (lineStart < 0 && position < size) {
+                window.clear();
+                int read = channel.read(window, position);
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        lineStart = position + i + 1;
+                        break;
+                    }
+                }
+                position += Math.max(read, 0);
+            }
+            if (lineStart < 0 || lineStart >= size) {
+                break;
+            }
+            bounds.add(lineStart);
+            next = lineStart + chunkSize;
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static <T> Result<T> parseChunk(FileChannel channel, long start, long end,
+            Set<String> skipKeys, LineParser<T> parser) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        List<T> records = new ArrayList<>();
+        int rejected = 0;
+        CsvCodec.Fields fields = new CsvCodec.Fields();
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd > lineStart) {
+                fields.parse(bytes, lineStart, contentEnd);
+                if (skipKeys.isEmpty() || !skipKeys.contains(fields.get(0))) {
+                    try {
+                        records.add(parser.parse(fields));
+                    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                        rejected++;
+                    }
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return new Result<>(records, rejected);
+    }
+}
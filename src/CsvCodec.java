@@ -0,0 +1,363 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the comma-separated records used by the data files, the
+ * transaction log and the write-ahead log.
+ * <p>
+ * A field containing a comma, a double quote, a backslash or a line break is written
+ * in double quotes with any quote inside it doubled, as in RFC 4180, so addresses and
+ * names with commas no longer shift the fields after them. Every reader splits files
+ * on line breaks, so inside quotes a line break is written as {@code \n} or
+ * {@code \r} and a backslash as {@code \\}, and every record stays on one line.
+ * Every other field is written as is, so records without such characters are
+ * unchanged from earlier versions.
+ * <p>
+ * {@link Fields} parses a record in one pass, recording where each field starts and
+ * ends rather than creating a string per field. Numbers are read straight from those
+ * offsets, and a string is only created for a field that is actually needed.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class CsvCodec {
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    // Up to 15 digits fit exactly in a double, so dividing by an exact power of ten rounds correctly
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private CsvCodec() {
+    }
+
+    /**
+     * The fields of one record, as offsets into the text or bytes it was parsed from.
+     * An instance can be reused for any number of records but is not thread-safe.
+     */
+    public static final class Fields {
+        private CharSequence text;
+        private byte[] bytes;
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        // Whether the field was quoted and contains doubled quotes or backslash escapes to decode
+        private boolean[] escaped = new boolean[8];
+        private int count;
+
+        /**
+         * Parses a record held in a string.
+         *
+         * @param record one record, without its line break
+         * @return this instance
+         */
+        public Fields parse(CharSequence record) {
+            this.text = record;
+            this.bytes = null;
+            split(0, record.length());
+            return this;
+        }
+
+        /**
+         * Parses a UTF-8 record held in a byte array.
+         *
+         * @param source the bytes
+         * @param from offset of the record's first byte
+         * @param to offset just past the record's last byte
+         * @return this instance
+         */
+        public Fields parse(byte[] source, int from, int to) {
+            this.text = null;
+            this.bytes = source;
+            split(from, to);
+            return this;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Returns a field as a string.
+         *
+         * @param index the field's position, from zero
+         * @return the field's value, without quotes
+         * @throws IllegalArgumentException if the record has no such field
+         */
+        public String get(int index) {
+            check(index);
+            String value = bytes != null
+                    ? new String(bytes, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8)
+                    : text.subSequence(starts[index], ends[index]).toString();
+            return escaped[index] ? unescape(value) : value;
+        }
+
+        private static String unescape(String value) {
+            StringBuilder out = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    char next = ++i < value.length() ? value.charAt(i) : c;
+                    c = c == '"' ? '"' : next == 'n' ? '\n' : next == 'r' ? '\r' : next;
+                }
+                out.append(c);
+            }
+            return out.toString();
+        }
+
+        /**
+         * Compares a field with a string without creating a string for the field.
+         *
+         * @param index the field's position, from zero
+         * @param value the string to compare with
+         * @return true if the field equals the string
+         */
+        public boolean fieldEquals(int index, String value) {
+            check(index);
+            if (escaped[index] || bytes != null) {
+                return get(index).equals(value);
+            }
+            int start = starts[index];
+            if (ends[index] - start != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (text.charAt(start + i) != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Reads a field as a double, with the same result as {@link Double#parseDouble(String)}.
+         * Plain decimals such as "-1250.75" are read in place; anything else falls back
+         * to {@code parseDouble}.
+         *
+         * @param index the field's position, from zero
+         * @return the value
+         * @throws NumberFormatException if the field is not a number
+         */
+        public double getDouble(int index) {
+            check(index);
+            int i = starts[index];
+            int end = ends[index];
+            boolean negative = i < end && charAt(i) == '-';
+            if (negative) {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fractionDigits = -1;
+            for (; i < end; i++) {
+                char c = charAt(i);
+                if (c >= '0' && c <= '9') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else if (c == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else {
+                    break;
+                }
+            }
+            if (i < end || digits == 0 || digits > MAX_FAST_DIGITS) {
+                return Double.parseDouble(get(index));
+            }
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads a field as a long, with the same result as {@link Long#parseLong(String)}.
+         *
+         * @param index the field's position, from zero
+         * @return the value
+         * @throws NumberFormatException if the field is not a whole number
+         */
+        public long getLong(int index) {
+            check(index);
+            int i = starts[index];
+            int end = ends[index];
+            boolean negative = i < end && charAt(i) == '-';
+            if (negative) {
+                i++;
+            }
+            if (i == end || end - i > 18) {
+                return Long.parseLong(get(index));
+            }
+            long value = 0;
+            for (; i < end; i++) {
+                char c = charAt(i);
+                if (c < '0' || c > '9') {
+                    return Long.parseLong(get(index));
+                }
+                value = value * 10 + (c - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        private void check(int index) {
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("Record has no field " + index + ".");
+            }
+        }
+
+        // Only ASCII is ever compared, and no byte of a multi-byte UTF-8 character is ASCII
+        private char charAt(int i) {
+            return bytes != null ? (char) (bytes[i] & 0xFF) : text.charAt(i);
+        }
+
+        private void split(int from, int to) {
+            count = 0;
+            int i = from;
+            while (true) {
+                if (count == starts.length) {
+                    grow();
+                }
+                if (i < to && charAt(i) == '"') {
+                    int start = ++i;
+                    boolean doubled = false;
+                    while (i < to) {
+                        if (charAt(i) == '\\' && i + 1 < to) {
+                            doubled = true;
+                            i += 2;
+                            continue;
+                        }
+                        if (charAt(i) == '"') {
+                            if (i + 1 < to && charAt(i + 1) == '"') {
+                                doubled = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    starts[count] = start;
+                    ends[count] = i;
+                    escaped[count] = doubled;
+                    // Anything between the closing quote and the next comma is ignored
+                    while (i < to && charAt(i) != ',') {
+                        i++;
+                    }
+                } else {
+                    int start = i;
+                    while (i < to && charAt(i) != ',') {
+                        i++;
+                    }
+                    starts[count] = start;
+                    ends[count] = i;
+                    escaped[count] = false;
+                }
+                count++;
+                if (i >= to) {
+                    return;
+                }
+                i++;
+            }
+        }
+
+        private void grow() {
+            int size = starts.length * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            escaped = Arrays.copyOf(escaped, size);
+        }
+    }
+
+    /**
+     * Writes records to a file, one per line, through a single reused buffer.
+     */
+    public static final class RecordWriter {
+        private final BufferedWriter writer;
+        private final StringBuilder record = new StringBuilder(128);
+        private char[] chars = new char[128];
+
+        public RecordWriter(BufferedWriter writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Starts a new record.
+         *
+         * @return the empty buffer to append the record's fields to
+         */
+        public StringBuilder begin() {
+            record.setLength(0);
+            return record;
+        }
+
+        /**
+         * Writes the record built since {@link #begin()} and a line break.
+         *
+         * @throws IOException if the record cannot be written
+         */
+        public void end() throws IOException {
+            int length = record.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            record.getChars(0, length, chars, 0);
+            writer.write(chars, 0, length);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Appends a field, quoting it if it contains a comma, a double quote, a backslash
+     * or a line break, and escaping line breaks so the record stays on one line.
+     *
+     * @param out where the record is being built
+     * @param value the field's value
+     * @return {@code out}
+     */
+    public static StringBuilder appendField(StringBuilder out, String value) {
+        if (!needsQuotes(value)) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append("\"\"");
+            } else if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else if (c == '\r') {
+                out.append("\\r");
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Returns a record's first field, which is the key of customer and account records.
+     *
+     * @param record one record
+     * @return the first field, without quotes
+     */
+    public static String firstField(String record) {
+        if (!record.startsWith("\"")) {
+            int comma = record.indexOf(',');
+            return comma < 0 ? record : record.substring(0, comma);
+        }
+        return new Fields().parse(record).get(0);
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\\' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
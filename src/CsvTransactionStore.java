@@ -0,0 +1,138 @@
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transaction store backed by the text {@code transactions.csv} log.
+ * One transaction per line, in {@link Transaction#toCSV()} format.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class CsvTransactionStore implements TransactionStore {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private long end;
+
+    public CsvTransactionStore(String fileName) throws IOException {
+        if (fileName == null || fileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Log file name cannot be empty.");
+        }
+        this.channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.end = channel.size();
+    }
+
+    @Override
+    public synchronized long append(Transaction[] transactions, int count, long[] offsets, int[] lengths) throws IOException {
+        byte[][] records = new byte[count][];
+        int totalBytes = 0;
+        for (int i = 0; i < count; i++) {
+            records[i] = transactions[i].toCSV().getBytes(StandardCharsets.UTF_8);
+            totalBytes += records[i].length + LINE_SEPARATOR.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(totalBytes);
+        for (int i = 0; i < count; i++) {
+            offsets[i] = end + buffer.position();
+            lengths[i] = records[i].length;
+            buffer.put(records[i]).put(LINE_SEPARATOR);
+        }
+        buffer.flip();
+        long position = end;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        end = position;
+        return end;
+    }
+
+    @Override
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public Transaction read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Transaction log is shorter than its index.");
+            }
+        }
+        return Transaction.fromFields(new CsvCodec.Fields().parse(buffer.array(), 0, length));
+    }
+
+    @Override
+    public long scan(long fromOffset, int maxRecords, RecordVisitor visitor) throws IOException {
+        long limit = size();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        CsvCodec.Fields fields = new CsvCodec.Fields();
+        long position = fromOffset;
+        long recordStart = fromOffset;
+        int visited = 0;
+        while (position < limit && visited < maxRecords) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining() && position < limit && visited < maxRecords) {
+                byte b = buffer.get();
+                position++;
+                if (b == '\r') {
+                    continue;
+                }
+                if (b != '\n') {
+                    record.write(b);
+                    continue;
+                }
+                if (visitLine(record, fields, recordStart, position, visitor)) {
+                    visited++;
+                }
+                record.reset();
+                recordStart = position;
+            }
+        }
+        if (record.size() > 0 && visited < maxRecords && position >= limit) {
+            visitLine(record, fields, recordStart, position, visitor);
+            recordStart = position;
+        }
+        return visited < maxRecords ? limit : recordStart;
+    }
+
+    private static boolean visitLine(ByteArrayOutputStream record, CsvCodec.Fields fields,
+            long offset, long nextOffset, RecordVisitor visitor) {
+        if (record.size() == 0) {
+            return false;
+        }
+        try {
+            byte[] bytes = record.toByteArray();
+            Transaction transaction = Transaction.fromFields(fields.parse(bytes, 0, bytes.length));
+            visitor.visit(transaction, offset, record.size(), nextOffset);
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping invalid transaction record: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
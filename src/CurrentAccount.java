@@ -22,6 +22,32 @@ public class CurrentAccount extends Account{
         this.overdraftFee = overdraftFee;
     }
 
+    CurrentAccount(String accountNumber, Customer customer, double balance, double overdraftLimit, double overdraftFee) {
+        super(accountNumber, "Current", customer);
+        if (overdraftLimit < 0) {
+            throw new IllegalArgumentException("Overdraft limit cannot be negative.");
+        }
+        if (overdraftFee < 0) {
+            throw new IllegalArgumentException("Overdraft fee cannot be negative.");
+        }
+        this.overdraftLimit = overdraftLimit;
+        this.overdraftFee = overdraftFee;
+        setBalance(balance);
+    }
+
+    // View over an account held in an AccountStore
+    CurrentAccount(AccountStore store, int ordinal) {
+        super(store, ordinal);
+    }
+
+    public double getOverdraftLimit() {
+        return store == null ? overdraftLimit : store.getOverdraftLimit(ordinal);
+    }
+
+    public double getOverdraftFee() {
+        return store == null ? overdraftFee : store.getOverdraftFee(ordinal);
+    }
+
     /**
      * Validates that the account balance does not exceed the overdraft limit.
      * 
@@ -29,14 +55,14 @@ public class CurrentAccount extends Account{
      */
     @Override
     public void specificFunctionality(){
-        if (balance < -overdraftLimit){
+        if (getBalance() < -getOverdraftLimit()){
             throw new IllegalArgumentException("Exceeds overdraft limit.");
         }
     }
 
     /**
      * Withdraws the specified amount from the current account.
-     * Allows withdrawals up to the overdraft limit.
+     * Allows withdrawals up to the overdraft limit; the limit is checked atomically with the update.
      * 
      * @param amount the amount to withdraw (must be greater than zero)
      * @return true if withdrawal was successful
@@ -44,13 +70,14 @@ public class CurrentAccount extends Account{
      */
     @Override
     public boolean withdraw(double amount) {
-        if (amount <= 0) {
+        if (!(amount > 0)) {
             throw new IllegalArgumentException("Withdrawal amount must be greater than zero.");
         }
-        if (balance - amount < -overdraftLimit) {
-            throw new IllegalArgumentException("Insufficient balance.");
-        }
-        balance -= amount;
+        long amountMinor = toPostingMinorUnits(amount);
+        BankEvents.BalanceChange event = new BankEvents.BalanceChange();
+        event.begin();
+        long balance = debit(amountMinor, -toMinorUnits(getOverdraftLimit()));
+        event.record(this, "Withdrawal", amount, balance);
         return true;
     }
 
@@ -59,42 +86,58 @@ public class CurrentAccount extends Account{
      * Ensures fee application does not exceed overdraft limit.
      */
     public void applyOverdraftFee(){
-        if (balance < 0) {
-            double feeToApply = overdraftFee;
-            double potentialNewBalance = balance - feeToApply;
-            if (potentialNewBalance < -overdraftLimit) {
-                feeToApply = Math.abs(balance + overdraftLimit);
+        chargeOverdraftFee();
+    }
+
+    /**
+     * Applies the overdraft fee like {@link #applyOverdraftFee()} and reports what was charged.
+     *
+     * @return the fee charged in minor units, zero if the account was not overdrawn or already at its limit
+     */
+    long chargeOverdraftFee() {
+        long floor = -toMinorUnits(getOverdraftLimit());
+        long fee = toMinorUnits(getOverdraftFee());
+        while (true) {
+            long current = getBalanceMinor();
+            if (current >= 0) {
+                return 0;
+            }
+            long updated = Math.max(current - fee, floor);
+            if (updated >= current) {
+                return 0;
+            }
+            if (compareAndSetBalance(current, updated)) {
+                return current - updated;
             }
-            balance -= feeToApply;
         }
     }
 
     @Override
     public String toString() {
         return super.toString() + "\n" +
-            "Overdraft Limit: " + overdraftLimit + "\n" +
-            "Overdraft Fee: " + overdraftFee;
+            "Overdraft Limit: " + getOverdraftLimit() + "\n" +
+            "Overdraft Fee: " + getOverdraftFee();
     }
 
     @Override
-    public String toCSV() {
-        return String.join(",", super.toCSV(), Double.toString(overdraftLimit), Double.toString(overdraftFee));
+    public StringBuilder appendCSV(StringBuilder out) {
+        return super.appendCSV(out).append(',').append(getOverdraftLimit()).append(',').append(getOverdraftFee());
     }
     public static CurrentAccount fromCSV(String csv, Customer customer) {
-        String[] values = csv.split(",");
-        if (values.length < 6) { // Ensure there are enough values
+        return fromFields(new CsvCodec.Fields().parse(csv), customer);
+    }
+
+    static CurrentAccount fromFields(CsvCodec.Fields values, Customer customer) {
+        if (values.count() < 6) { // Ensure there are enough values
             throw new IllegalArgumentException("Invalid CSV data for CurrentAccount.");
         }
         
-        String accountNumber = values[0];
-        double balance = Double.parseDouble(values[1]);
-        double overdraftLimit = Double.parseDouble(values[4]); // Correct index for overdraftLimit
-        double overdraftFee = Double.parseDouble(values[5]); // Correct index for overdraftFee
+        String accountNumber = values.get(0);
+        double balance = values.getDouble(1);
+        double overdraftLimit = values.getDouble(4); // Correct index for overdraftLimit
+        double overdraftFee = values.getDouble(5); // Correct index for overdraftFee
         
-        CurrentAccount account = new CurrentAccount(customer, overdraftLimit, overdraftFee);
-        account.setAccountNumber(accountNumber);
-        account.setBalance(balance);
-        return account;
+        return new CurrentAccount(accountNumber, customer, balance, overdraftLimit, overdraftFee);
     }
     
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Represents a bank customer with personal information and associated accounts.
@@ -16,7 +15,7 @@ public class Customer {
     private String customerID;
     private String phoneNumber;
     private String CNIC;
-    private List<Account> accounts;
+    private final SnapshotList<Account> accounts;
 
     public Customer(String customerID, String name, String address, String phoneNumber, String CNIC) {
         
@@ -31,7 +30,7 @@ public class Customer {
         this.address = address;
         this.phoneNumber = phoneNumber;
         this.CNIC = CNIC;
-        this.accounts = new ArrayList<>();
+        this.accounts = new SnapshotList<>();
     }
 
     public Customer(String customerID, String name, String address, String phoneNumber, String CNIC, List<Account> accounts) {
@@ -47,7 +46,7 @@ public class Customer {
         this.address = address;
         this.phoneNumber = phoneNumber;
         this.CNIC = CNIC;
-        this.accounts = accounts;
+        this.accounts = new SnapshotList<>(accounts);
     }
 
     public String getCustomerID() {
@@ -84,7 +83,17 @@ public class Customer {
      * @return new ArrayList containing all customer accounts
      */
     public List<Account> viewAccounts() {
-        return new ArrayList<>(accounts); // Return a copy to prevent modification
+        return new ArrayList<>(accounts.snapshot()); // Return a copy to prevent modification
+    }
+
+    /**
+     * Returns an immutable point-in-time view of this customer's accounts,
+     * shared by every caller until an account is added or removed.
+     * 
+     * @return the current accounts snapshot
+     */
+    public Snapshot<Account> snapshotAccounts() {
+        return accounts.snapshot();
     }
 
     private void validateInput(String input, String errorMessage) {
@@ -94,23 +103,46 @@ public class Customer {
     }
 
     public String toCSV() {
-        // Convert list of account IDs to a semicolon-separated string
-        String accountIDs = accounts.stream()
-                                    .map(Account::getAccountNumber)
-                                    .collect(Collectors.joining(";"));
-        return String.join(",", customerID, name, address, phoneNumber, CNIC, accountIDs);
+        return appendCSV(new StringBuilder(128)).toString();
+    }
+
+    /**
+     * Appends this customer in CSV format, so callers saving many customers can reuse one buffer.
+     * The last field lists the customer's account numbers separated by semicolons.
+     *
+     * @param out where the record is being built
+     * @return {@code out}
+     */
+    public StringBuilder appendCSV(StringBuilder out) {
+        CsvCodec.appendField(out, customerID).append(',');
+        CsvCodec.appendField(out, name).append(',');
+        CsvCodec.appendField(out, address).append(',');
+        CsvCodec.appendField(out, phoneNumber).append(',');
+        CsvCodec.appendField(out, CNIC).append(',');
+        StringBuilder accountIDs = new StringBuilder();
+        for (Account account : accounts.snapshot()) {
+            if (accountIDs.length() > 0) {
+                accountIDs.append(';');
+            }
+            accountIDs.append(account.getAccountNumber());
+        }
+        return CsvCodec.appendField(out, accountIDs.toString());
     }
     public static Customer fromCSV(String csv) {
-        String[] values = csv.split(",", -1); // Use -1 to handle trailing empty values
-        if (values.length < 6) {
+        return fromFields(new CsvCodec.Fields().parse(csv)); // Keeps trailing empty values
+    }
+
+    // Build a customer from already parsed CSV fields, so loaders parse each line only once
+    static Customer fromFields(CsvCodec.Fields values) {
+        if (values.count() < 6) {
             throw new IllegalArgumentException("Invalid CSV data for Customer.");
         }
 
-        String customerID = values[0];
-        String name = values[1];
-        String address = values[2];
-        String phoneNumber = values[3];
-        String CNIC = values[4];
+        String customerID = values.get(0);
+        String name = values.get(1);
+        String address = values.get(2);
+        String phoneNumber = values.get(3);
+        String CNIC = values.get(4);
 
         List<Account> accounts = new ArrayList<Account>();
         return new Customer(customerID, name, address, phoneNumber, CNIC, accounts);
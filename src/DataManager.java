@@ -1,24 +1,56 @@
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class DataManager {
 
     private static final String CUSTOMER_FILE = "customers.csv";
     private static final String ACCOUNT_FILE = "accounts.csv";
 
+    // Delta records: "U,<csv>" replaces a record, "D,<key>" removes it, and "E" ends a save
+    private static final String DELTA_SUFFIX = ".delta";
+    private static final String MERGING_SUFFIX = ".merging";
+    private static final String UPSERT = "U";
+    private static final String DELETE = "D";
+    private static final String END_OF_SAVE = "E";
+
+    // Guards appends to and rotation of delta files. Full saves hold it while they write
+    // the base file and delete the deltas it replaces, so a delta appended meanwhile is not lost.
+    private static final Object DELTA_LOCK = new Object();
+    // Guards rewrites of the base files; always taken before DELTA_LOCK
+    private static final Object MERGE_LOCK = new Object();
+
+    private static final ChunkedCsvReader CSV_READER = new ChunkedCsvReader();
+
+    private static String customerFileName = CUSTOMER_FILE;
+    private static String accountFileName = ACCOUNT_FILE;
+
+    // Point the manager at different data files (used by tests and benchmarks)
+    static void useFiles(String customerFile, String accountFile) {
+        customerFileName = customerFile;
+        accountFileName = accountFile;
+    }
+
     // Load all customers from the CSV file
     public static Map<String, Customer> loadCustomers() {
         Map<String, Customer> customers = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(CUSTOMER_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
+        try {
+            readRecords(customerFileName, line -> {
                 try {
                     Customer customer = Customer.fromCSV(line);
                     customers.put(customer.getCustomerID(), customer);
                 } catch (IllegalArgumentException e) {
                     System.err.println("Skipping invalid customer record: " + e.getMessage());
                 }
-            }
+            });
         } catch (IOException e) {
             System.err.println("Error reading customers from file: " + e.getMessage());
         }
@@ -27,13 +59,16 @@ public class DataManager {
 
     // Load all accounts from the CSV file
     public static void loadAccounts(Map<String, Customer> customers,Bank bank) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACCOUNT_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
+        BankEvents.AccountLoad event = new BankEvents.AccountLoad();
+        event.begin();
+        int[] counts = new int[2]; // loaded, rejected
+        CsvCodec.Fields values = new CsvCodec.Fields();
+        try {
+            readRecords(accountFileName, line -> {
                 try {
-                    String[] values = line.split(",");
+                    values.parse(line);
 
-                    String customerID = values[3].trim();
+                    String customerID = values.get(3).trim();
                     System.out.println("Looking up customer with ID: " + customerID);
                     Customer customer = customers.get(customerID);
                     if (customer == null) {
@@ -43,43 +78,369 @@ public class DataManager {
                     }
 
                     if (customer != null) {
-                        Account account = Account.fromCSV(line, customer);
+                        Account account = Account.fromFields(values, customer);
                         customer.addAccount(account);
                         bank.addAccount(account);
+                        counts[0]++;
                     } else {
-                        System.err.println("Customer not found for account: " + values[1]); // Assuming second value is the account number
+                        System.err.println("Customer not found for account: " + values.get(0));
+                        counts[1]++;
                     }
                 } catch (IllegalArgumentException e) {
                     System.err.println("Skipping invalid account record: " + e.getMessage());
+                    counts[1]++;
                 }
-            }
+            });
         } catch (IOException e) {
             System.err.println("Error reading accounts from file: " + e.getMessage());
         }
+        event.record(accountFileName, false, counts[0], counts[1]);
     }
 
+    // Load all customers on every core, printing one summary line instead of a line per record
+    public static Map<String, Customer> loadCustomersParallel() {
+        Map<String, Customer> customers = new HashMap<>();
+        int rejected = 0;
+        try {
+            Map<String, String> pending = readPendingDeltas(customerFileName);
+            File base = new File(customerFileName);
+            if (base.exists() || pending.isEmpty()) {
+                ChunkedCsvReader.Result<Customer> result = CSV_READER.read(base, pending.keySet(), Customer::fromFields);
+                customers = new HashMap<>(result.getRecords().size() * 4 / 3 + 1);
+                for (Customer customer : result.getRecords()) {
+                    customers.put(customer.getCustomerID(), customer);
+                }
+                rejected = result.getRejected();
+            }
+            for (String record : pending.values()) {
+                if (record == null) {
+                    continue;
+                }
+                try {
+                    Customer customer = Customer.fromCSV(record);
+                    customers.put(customer.getCustomerID(), customer);
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading customers from file: " + e.getMessage());
+        }
+        System.out.println("Loaded " + customers.size() + " customers (" + rejected + " rejected).");
+        return customers;
+    }
+
+    // Load all accounts on every core, printing one summary line instead of a line per record
+    public static int loadAccountsParallel(Map<String, Customer> customers, Bank bank) {
+        BankEvents.AccountLoad event = new BankEvents.AccountLoad();
+        event.begin();
+        ChunkedCsvReader.LineParser<Account> parser = values -> {
+            Customer customer = values.count() > 3 ? customers.get(values.get(3).trim()) : null;
+            if (customer == null) {
+                throw new IllegalArgumentException("Customer not found for account.");
+            }
+            return Account.fromFields(values, customer);
+        };
+        List<Account> accounts = new ArrayList<>();
+        int rejected = 0;
+        try {
+            Map<String, String> pending = readPendingDeltas(accountFileName);
+            File base = new File(accountFileName);
+            if (base.exists() || pending.isEmpty()) {
+                ChunkedCsvReader.Result<Account> result = CSV_READER.read(base, pending.keySet(), parser);
+                accounts = result.getRecords();
+                rejected = result.getRejected();
+            }
+            CsvCodec.Fields fields = new CsvCodec.Fields();
+            for (String record : pending.values()) {
+                if (record == null) {
+                    continue;
+                }
+                try {
+                    accounts.add(parser.parse(fields.parse(record)));
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    rejected++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading accounts from file: " + e.getMessage());
+        }
+        for (Account account : accounts) {
+            account.getCustomer().addAccount(account);
+            bank.addAccount(account);
+        }
+        event.record(accountFileName, true, accounts.size(), rejected);
+        System.out.println("Loaded " + accounts.size() + " accounts (" + rejected + " rejected).");
+        return accounts.size();
+    }
 
     // Save all accounts to the CSV file
     public static void saveCustomers(Collection<Customer> customers) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(CUSTOMER_FILE))) {
-        for (Customer customer : customers) {
-            writer.write(customer.toCSV());
-            writer.newLine();
+        synchronized (MERGE_LOCK) {
+            synchronized (DELTA_LOCK) {
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(customerFileName))) {
+                    writeCustomers(writer, customers);
+                } catch (IOException e) {
+                    System.err.println("Error writing customers to file: " + e.getMessage());
+                    return;
+                }
+                deleteDeltas(customerFileName);
+            }
         }
-    } catch (IOException e) {
-        System.err.println("Error writing customers to file: " + e.getMessage());
     }
-}
 
-// Save all accounts to the CSV file
+    // Save all accounts to the CSV file
     public static void saveAccounts(Collection<Account> accounts) {
-    try (BufferedWriter writer = new BufferedWriter(new FileWriter(ACCOUNT_FILE))) {
+        long start = System.nanoTime();
+        synchronized (MERGE_LOCK) {
+            synchronized (DELTA_LOCK) {
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(accountFileName))) {
+                    writeAccounts(writer, accounts);
+                } catch (IOException e) {
+                    System.err.println("Error writing accounts to file: " + e.getMessage());
+                    BankMetrics.SAVE_ACCOUNTS.failed(start);
+                    return;
+                }
+                deleteDeltas(accountFileName);
+            }
+        }
+        BankMetrics.SAVE_ACCOUNTS.succeeded(start);
+    }
+
+    // Append changed and removed customers to the customer delta file
+    public static void saveCustomerChanges(Collection<Customer> changed, Collection<String> removedIDs) throws IOException {
+        List<String> upserts = new ArrayList<>(changed.size());
+        for (Customer customer : changed) {
+            upserts.add(customer.toCSV());
+        }
+        appendDeltas(customerFileName, upserts, removedIDs);
+    }
+
+    // Append changed and removed accounts to the account delta file
+    public static void saveAccountChanges(Collection<Account> changed, Collection<String> removedNumbers) throws IOException {
+        List<String> upserts = new ArrayList<>(changed.size());
+        for (Account account : changed) {
+            upserts.add(account.toCSV());
+        }
+        appendDeltas(accountFileName, upserts, removedNumbers);
+    }
+
+    // Fold the pending delta records into the customer and account files
+    public static void mergeChanges() throws IOException {
+        synchronized (MERGE_LOCK) {
+            mergeDeltas(customerFileName);
+            mergeDeltas(accountFileName);
+        }
+    }
+
+    // Write customers and accounts as a snapshot, replacing the data files only once both are complete
+    public static void writeSnapshot(Collection<Customer> customers, Collection<Account> accounts) throws IOException {
+        synchronized (MERGE_LOCK) {
+            synchronized (DELTA_LOCK) {
+                writeSnapshotFiles(customers, accounts);
+                deleteDeltas(customerFileName);
+                deleteDeltas(accountFileName);
+            }
+        }
+    }
+
+    private static void writeSnapshotFiles(Collection<Customer> customers, Collection<Account> accounts) throws IOException {
+        Path customerTemp = Paths.get(customerFileName + ".tmp");
+        Path accountTemp = Paths.get(accountFileName + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(customerTemp)) {
+            writeCustomers(writer, customers);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(accountTemp)) {
+            writeAccounts(writer, accounts);
+        }
+        // Both files must be on disk before they replace the old ones and the log behind them is dropped
+        sync(customerTemp);
+        sync(accountTemp);
+        replace(customerTemp, Paths.get(customerFileName));
+        replace(accountTemp, Paths.get(accountFileName));
+        syncDirectory(customerTemp);
+        syncDirectory(accountTemp);
+    }
+
+    // Encode every record into one reused buffer rather than a new string per record
+    private static void writeCustomers(BufferedWriter writer, Collection<Customer> customers) throws IOException {
+        CsvCodec.RecordWriter records = new CsvCodec.RecordWriter(writer);
+        for (Customer customer : customers) {
+            customer.appendCSV(records.begin());
+            records.end();
+        }
+    }
+
+    private static void writeAccounts(BufferedWriter writer, Collection<Account> accounts) throws IOException {
+        CsvCodec.RecordWriter records = new CsvCodec.RecordWriter(writer);
         for (Account account : accounts) {
-            writer.write(account.toCSV());
-            writer.newLine();
+            account.appendCSV(records.begin());
+            records.end();
         }
-    } catch (IOException e) {
-        System.err.println("Error writing accounts to file: " + e.getMessage());
     }
-}
+
+    // Force a file's contents to disk, so a rename cannot leave an empty or torn file after a power loss
+    static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // Force the directory holding a file, so a rename or delete in it survives a power loss.
+    // Some platforms cannot open a directory; there this is left to the file system.
+    static void syncDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Not supported on this platform
+        }
+    }
+
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Read a data file line by line with its pending delta records applied.
+    // Only the delta records are held in memory; the base file is streamed.
+    private static void readRecords(String fileName, Consumer<String> handler) throws IOException {
+        readRecords(new File(fileName), readPendingDeltas(fileName), handler);
+    }
+
+    // Delta records not yet merged into a data file, by key; a null value marks a removal
+    private static Map<String, String> readPendingDeltas(String fileName) throws IOException {
+        Map<String, String> pending = new LinkedHashMap<>();
+        readDeltas(new File(fileName + MERGING_SUFFIX), pending);
+        readDeltas(new File(fileName + DELTA_SUFFIX), pending);
+        return pending;
+    }
+
+    private static void readRecords(File base, Map<String, String> pending, Consumer<String> handler) throws IOException {
+        if (base.exists() || pending.isEmpty()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(base))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String key = keyOf(line);
+                    if (!pending.containsKey(key)) {
+                        handler.accept(line);
+                        continue;
+                    }
+                    String updated = pending.remove(key);
+                    if (updated != null) {
+                        handler.accept(updated);
+                    }
+                }
+            }
+        }
+        for (String added : pending.values()) {
+            if (added != null) {
+                handler.accept(added);
+            }
+        }
+    }
+
+    // Collect the records of every complete save in a delta file; a save cut short by a crash is ignored
+    private static void readDeltas(File delta, Map<String, String> pending) throws IOException {
+        if (!delta.exists()) {
+            return;
+        }
+        Map<String, String> save = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(delta))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(END_OF_SAVE)) {
+                    pending.putAll(save);
+                    save.clear();
+                } else if (line.startsWith(UPSERT + ",")) {
+                    String record = line.substring(2);
+                    save.put(keyOf(record), record);
+                } else if (line.startsWith(DELETE + ",")) {
+                    save.put(line.substring(2), null);
+                } else {
+                    System.err.println("Skipping invalid delta record: " + line);
+                }
+            }
+        }
+        if (!save.isEmpty()) {
+            System.err.println("Discarding incomplete save at end of " + delta.getName());
+        }
+    }
+
+    private static void appendDeltas(String fileName, Collection<String> upserts, Collection<String> deletes) throws IOException {
+        if (upserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+        synchronized (DELTA_LOCK) {
+            try (FileOutputStream out = new FileOutputStream(fileName + DELTA_SUFFIX, true);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+                for (String key : deletes) {
+                    writer.write(DELETE + "," + key);
+                    writer.newLine();
+                }
+                for (String record : upserts) {
+                    writer.write(UPSERT + "," + record);
+                    writer.newLine();
+                }
+                writer.write(END_OF_SAVE);
+                writer.newLine();
+                writer.flush();
+                out.getFD().sync();
+            }
+        }
+    }
+
+    // Rewrite a base file with its delta records applied. New saves keep appending to a
+    // fresh delta file while the merge runs, and an interrupted merge is finished next time.
+    private static void mergeDeltas(String fileName) throws IOException {
+        Path merging = Paths.get(fileName + MERGING_SUFFIX);
+        synchronized (DELTA_LOCK) {
+            Path delta = Paths.get(fileName + DELTA_SUFFIX);
+            if (!Files.exists(merging)) {
+                if (!Files.exists(delta)) {
+                    return;
+                }
+                Files.move(delta, merging);
+            }
+        }
+        Map<String, String> pending = new LinkedHashMap<>();
+        readDeltas(merging.toFile(), pending);
+        if (pending.isEmpty()) {
+            Files.delete(merging);
+            return;
+        }
+        Path temp = Paths.get(fileName + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            readRecords(new File(fileName), pending, line -> {
+                try {
+                    writer.write(line);
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // The merged file must be on disk before the deltas it absorbed are deleted
+        sync(temp);
+        replace(temp, Paths.get(fileName));
+        syncDirectory(temp);
+        Files.delete(merging);
+    }
+
+    private static void deleteDeltas(String fileName) {
+        synchronized (DELTA_LOCK) {
+            new File(fileName + DELTA_SUFFIX).delete();
+            new File(fileName + MERGING_SUFFIX).delete();
+        }
+    }
+
+    // Customer and account records are both keyed by their first field
+    private static String keyOf(String record) {
+        return CsvCodec.firstField(record);
+    }
 }
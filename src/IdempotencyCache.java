@@ -0,0 +1,309 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of recent postings by idempotency key, so a retried deposit,
+ * withdrawal or transfer returns the original outcome instead of running again.
+ * <p>
+ * Keys live in a concurrent hash map and are looked up in constant time. Each key
+ * expires after a fixed time, and once the cache holds more than its maximum number of
+ * keys the oldest are dropped. A retry that arrives while the original is still running
+ * waits for it. Reusing a key for a different request is rejected.
+ * <p>
+ * When opened with a journal file, every completed outcome is appended to the journal
+ * and unexpired outcomes are read back on startup, so retries are still recognized
+ * after a restart. An operation that completes but is not yet in the journal when the
+ * process dies runs again on retry. The journal is rewritten with only the live keys
+ * on startup and whenever it grows to twice the maximum number of keys.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class IdempotencyCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // Journal records: key,expiresAt,S,request for a success; key,expiresAt,F,request,message for a failure
+    private static final String SUCCEEDED = "S";
+    private static final String FAILED = "F";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in the order they were added, for dropping the oldest
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final File journalFile;
+    private BufferedWriter journal;
+    private int journalRecords;
+
+    /**
+     * One key's request and its outcome: the operation's result, or an
+     * {@link IllegalArgumentException} if it was refused.
+     */
+    private static final class Entry {
+        final String key;
+        final String request;
+        final long expiresAt;
+        final CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        Entry(String key, String request, long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates a cache held in memory only.
+     *
+     * @param maxEntries most keys kept (must be greater than zero)
+     * @param ttlMillis how long a key is remembered (must be greater than zero)
+     */
+    public IdempotencyCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis, null);
+    }
+
+    IdempotencyCache(int maxEntries, long ttlMillis, LongSupplier clock, File journalFile) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum entries must be greater than zero.");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("Time to live must be greater than zero.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Opens a cache backed by a journal file, reloading the keys that have not expired.
+     *
+     * @param journalFile the journal (created if it does not exist)
+     * @param maxEntries most keys kept (must be greater than zero)
+     * @param ttlMillis how long a key is remembered (must be greater than zero)
+     * @return the cache
+     * @throws IOException if the journal cannot be read or written
+     */
+    public static IdempotencyCache open(File journalFile, int maxEntries, long ttlMillis) throws IOException {
+        return open(journalFile, maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    static IdempotencyCache open(File journalFile, int maxEntries, long ttlMillis, LongSupplier clock) throws IOException {
+        IdempotencyCache cache = new IdempotencyCache(maxEntries, ttlMillis, clock, journalFile);
+        cache.load();
+        cache.rewriteJournal();
+        return cache;
+    }
+
+    /**
+     * Runs an operation once per key.
+     * The first call with a key runs the operation and remembers its result, or the
+     * {@link IllegalArgumentException} it threw. Later calls with the same key and
+     * request return that result or throw an exception with the same message, without
+     * running the operation. A result remembered from before a restart is returned as null.
+     * Any other exception is passed on and the key is forgotten, so the call can be retried.
+     *
+     * @param key the caller's idempotency key (cannot be empty)
+     * @param request describes the operation, so a key reused for a different one is detected
+     * @param operation the operation to run
+     * @return the operation's result
+     * @throws IllegalArgumentException if the operation was refused, or the key was used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, String request, Supplier<T> operation) {
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalArgumentException("Idempotency key cannot be empty.");
+        }
+        Entry fresh = new Entry(key, request, clock.getAsLong() + ttlMillis);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt > clock.getAsLong()) {
+                return (T) await(existing, request);
+            }
+            entries.remove(key, existing);
+        }
+        order.add(fresh);
+        evict();
+        try {
+            T result = operation.get();
+            fresh.outcome.complete(result);
+            record(key, fresh, null);
+            return result;
+        } catch (IllegalArgumentException e) {
+            String message = e.getMessage() != null ? e.getMessage() : "Request failed.";
+            fresh.outcome.completeExceptionally(new IllegalArgumentException(message));
+            record(key, fresh, message);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, fresh);
+            fresh.outcome.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes the journal. The cache keeps working in memory afterwards.
+     */
+    public synchronized void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing idempotency journal: " + e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    private static Object await(Entry entry, String request) {
+        if (!entry.request.equals(request)) {
+            throw new IllegalArgumentException("Idempotency key was already used for a different request.");
+        }
+        try {
+            return entry.outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                throw new IllegalArgumentException(e.getCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    // Drop expired or replaced entries from the front, then the oldest completed ones while over the limit
+    private void evict() {
+        long now = clock.getAsLong();
+        while (true) {
+            Entry oldest = order.peek();
+            if (oldest == null) {
+                return;
+            }
+            boolean stale = oldest.expiresAt <= now || entries.get(oldest.key) != oldest;
+            if (!stale && (entries.size() <= maxEntries || !oldest.outcome.isDone())) {
+                return;
+            }
+            if (order.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private void record(String key, Entry entry, String failure) {
+        if (journalFile == null) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(96);
+        CsvCodec.appendField(line, key).append(',').append(entry.expiresAt).append(',')
+                .append(failure == null ? SUCCEEDED : FAILED).append(',');
+        CsvCodec.appendField(line, entry.request);
+        if (failure != null) {
+            CsvCodec.appendField(line.append(','), failure);
+        }
+        synchronized (this) {
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.write(line.toString());
+                journal.newLine();
+                journal.flush();
+                if (++journalRecords >= maxEntries * 2) {
+                    rewriteJournal();
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing idempotency journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        if (!journalFile.exists()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        CsvCodec.Fields fields = new CsvCodec.Fields();
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    fields.parse(line);
+                    long expiresAt = fields.getLong(1);
+                    if (expiresAt <= now) {
+                        continue;
+                    }
+                    Entry entry = new Entry(fields.get(0), fields.get(3), expiresAt);
+                    if (fields.fieldEquals(2, FAILED)) {
+                        entry.outcome.completeExceptionally(new IllegalArgumentException(fields.get(4)));
+                    } else {
+                        entry.outcome.complete(null);
+                    }
+                    entries.put(entry.key, entry);
+                    order.add(entry);
+                } catch (IllegalArgumentException e) {
+                    // A record torn by a crash; its operation simply runs again if retried
+                }
+            }
+        }
+        evict();
+    }
+
+    // Replace the journal with one record per completed, unexpired key
+    private synchronized void rewriteJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        Path temp = Paths.get(journalFile.getPath() + ".tmp");
+        journalRecords = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            long now = clock.getAsLong();
+            for (Entry entry : order) {
+                if (entries.get(entry.key) != entry || entry.expiresAt <= now || !entry.outcome.isDone()) {
+                    continue;
+                }
+                StringBuilder line = new StringBuilder(96);
+                CsvCodec.appendField(line, entry.key).append(',').append(entry.expiresAt).append(',');
+                try {
+                    entry.outcome.getNow(null);
+                    line.append(SUCCEEDED).append(',');
+                    CsvCodec.appendField(line, entry.request);
+                } catch (CompletionException e) {
+                    line.append(FAILED).append(',');
+                    CsvCodec.appendField(line, entry.request).append(',');
+                    CsvCodec.appendField(line, e.getCause().getMessage());
+                }
+                writer.write(line.toString());
+                writer.newLine();
+                journalRecords++;
+            }
+        }
+        DataManager.replace(temp, journalFile.toPath());
+        journal = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves only the customers and accounts that changed since the last save.
+ * Listens to a {@link Bank} and remembers which records were modified by deposits,
+ * withdrawals, transfers or account and customer changes. {@link #saveChanges()}
+ * appends just those records to delta files through {@link DataManager}, and a
+ * background task periodically merges the deltas into the base files.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class IncrementalSaver implements BankListener {
+
+    private final Bank bank;
+    private final Set<Customer> changedCustomers = ConcurrentHashMap.newKeySet();
+    private final Set<String> removedCustomers = ConcurrentHashMap.newKeySet();
+    private final Set<Account> changedAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<String> removedAccounts = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts tracking changes to the given bank.
+     *
+     * @param bank the bank to track
+     * @param mergeIntervalSeconds how often to merge deltas into the base files; zero disables merging
+     */
+    public IncrementalSaver(Bank bank, long mergeIntervalSeconds) {
+        if (bank == null) {
+            throw new IllegalArgumentException("Bank cannot be null.");
+        }
+        this.bank = bank;
+        if (mergeIntervalSeconds > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "bank-delta-merge");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::mergeQuietly, mergeIntervalSeconds, mergeIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.scheduler = null;
+        }
+        bank.addListener(this);
+    }
+
+    /**
+     * Writes every record changed since the last save to the delta files.
+     * Cost is proportional to the number of changed records.
+     *
+     * @return the number of records written
+     * @throws IOException if the delta files cannot be written; the changes stay pending
+     */
+    public synchronized int saveChanges() throws IOException {
+        List<String> customerRemovals = drain(removedCustomers);
+        List<Customer> customers = drain(changedCustomers);
+        List<String> accountRemovals = drain(removedAccounts);
+        List<Account> accounts = drain(changedAccounts);
+        try {
+            DataManager.saveCustomerChanges(customers, customerRemovals);
+            DataManager.saveAccountChanges(accounts, accountRemovals);
+        } catch (IOException e) {
+            removedCustomers.addAll(customerRemovals);
+            changedCustomers.addAll(customers);
+            removedAccounts.addAll(accountRemovals);
+            changedAccounts.addAll(accounts);
+            throw e;
+        }
+        return customerRemovals.size() + customers.size() + accountRemovals.size() + accounts.size();
+    }
+
+    /**
+     * Folds the delta files into the base customer and account files.
+     *
+     * @throws IOException if the base files cannot be rewritten
+     */
+    public void merge() throws IOException {
+        DataManager.mergeChanges();
+    }
+
+    /**
+     * Returns how many records are waiting to be saved.
+     *
+     * @return the number of changed or removed records not yet saved
+     */
+    public int getPendingCount() {
+        return changedCustomers.size() + removedCustomers.size() + changedAccounts.size() + removedAccounts.size();
+    }
+
+    /**
+     * Stops tracking, saves the pending changes and merges them into the base files.
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        bank.removeListener(this);
+        try {
+            saveChanges();
+            merge();
+        } catch (IOException e) {
+            System.err.println("Error saving changes: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void customerAdded(Customer customer) {
+        removedCustomers.remove(customer.getCustomerID());
+        changedCustomers.add(customer);
+    }
+
+    @Override
+    public void customerRemoved(Customer customer) {
+        changedCustomers.remove(customer);
+        removedCustomers.add(customer.getCustomerID());
+    }
+
+    @Override
+    public void accountAdded(Account account) {
+        removedAccounts.remove(account.getAccountNumber());
+        changedAccounts.add(account);
+        accountListChanged(account.getCustomer());
+    }
+
+    @Override
+    public void accountRemoved(Account account) {
+        changedAccounts.remove(account);
+        removedAccounts.add(account.getAccountNumber());
+        accountListChanged(account.getCustomer());
+    }
+
+    @Override
+    public void balanceChanged(Account account, long previousMinor, long updatedMinor) {
+        changedAccounts.add(account);
+    }
+
+    // The customer's record lists its account numbers, so it has to be saved again
+    private void accountListChanged(Customer customer) {
+        if (!removedCustomers.contains(customer.getCustomerID())) {
+            changedCustomers.add(customer);
+        }
+    }
+
+    private void mergeQuietly() {
+        try {
+            merge();
+        } catch (IOException e) {
+            System.err.println("Error merging saved changes: " + e.getMessage());
+        }
+    }
+
+    // Take every element out of the set; anything changed again meanwhile is added back and saved next time
+    private static <T> List<T> drain(Set<T> set) {
+        List<T> drained = new ArrayList<>();
+        Iterator<T> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
@@ -1,3 +1,7 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.util.Scanner;
 import java.util.Map;
 
@@ -5,18 +9,83 @@ public class InputHandler {
 
     private static final Bank bank = new Bank("Toy Alfalah Bank");
     private static final Scanner scanner = new Scanner(System.in);
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static WalPersistence persistence;
+    private static IncrementalSaver incrementalSaver;
+    private static IdempotencyCache idempotencyCache;
+    private static BankHttpServer httpServer;
+    private static AtmServer atmServer;
 
     public static void main(String[] args) {
 
+        if ("segmented".equals(System.getProperty("bank.transactionLog"))) {
+            // Roll the transaction log into daily segments so time-bounded queries skip old days
+            TransactionLogger.useSegmentedLog("transactions", "transactions-segments.idx",
+                    SegmentedTransactionStore.DEFAULT_SEGMENT_MILLIS);
+        }
+
+        if ("wal".equals(System.getProperty("bank.persistence"))) {
+            // Load the latest snapshot, replay the write-ahead log and keep logging changes
+            try {
+                persistence = WalPersistence.open(bank, new File("."), 60);
+            } catch (IOException e) {
+                System.err.println("Error opening write-ahead log: " + e.getMessage());
+                return;
+            }
+        } else {
             // Load customers and initialize the bank
-            Map<String, Customer> customers = DataManager.loadCustomers();
+            Map<String, Customer> customers = DataManager.loadCustomersParallel();
 
             //Load accounts and add customers to the bank
-            DataManager.loadAccounts(customers, bank);
+            DataManager.loadAccountsParallel(customers, bank);
             for (Customer customer : customers.values()) {
                 bank.addCustomer(customer);
             }
 
+            if ("incremental".equals(System.getProperty("bank.persistence"))) {
+                // Save only changed records, merging them into the data files every five minutes
+                incrementalSaver = new IncrementalSaver(bank, 300);
+            }
+        }
+
+        // Remember idempotency keys of recent postings across restarts
+        try {
+            idempotencyCache = IdempotencyCache.open(new File("idempotency.journal"),
+                    IdempotencyCache.DEFAULT_MAX_ENTRIES, IdempotencyCache.DEFAULT_TTL_MILLIS);
+            bank.useIdempotencyCache(idempotencyCache);
+        } catch (IOException e) {
+            System.err.println("Error opening idempotency journal: " + e.getMessage());
+        }
+
+        // Publish operation latencies and counts to JConsole and other JMX clients
+        try {
+            BankMetrics.registerMBeans();
+        } catch (IllegalStateException e) {
+            System.err.println("Error registering metrics: " + e.getMessage());
+        }
+
+        String httpPort = System.getProperty("bank.httpPort");
+        if (httpPort != null) {
+            // Serve deposits, withdrawals, transfers and balances over HTTP alongside the menu
+            try {
+                httpServer = BankHttpServer.start(bank, Integer.parseInt(httpPort));
+                System.out.println("HTTP service listening on port " + httpServer.getPort());
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Error starting HTTP service: " + e.getMessage());
+            }
+        }
+
+        String atmPort = System.getProperty("bank.atmPort");
+        if (atmPort != null) {
+            // Serve ATMs over the binary protocol alongside the menu
+            try {
+                atmServer = AtmServer.start(bank, Integer.parseInt(atmPort));
+                System.out.println("ATM service listening on port " + atmServer.getPort());
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("Error starting ATM service: " + e.getMessage());
+            }
+        }
+
             
         while (true) {
             showMenu();
@@ -61,6 +130,9 @@ public class InputHandler {
                 case 13:
                     showAllATMs();
                     break;
+                case 14:
+                    showMetrics();
+                    break;
                 case 0:
                     System.out.println("Exiting...");
                     scanner.close();
@@ -87,6 +159,7 @@ public class InputHandler {
         System.out.println("11. Show All Accounts");
         System.out.println("12. Show All Tellers");
         System.out.println("13. Show All ATMs");
+        System.out.println("14. Show Metrics");
         System.out.println("0. Exit");
         System.out.print("Enter your choice: ");
     }
@@ -111,7 +184,7 @@ public class InputHandler {
     private static void removeCustomer() {
         System.out.print("Enter Customer ID to remove: ");
         String customerID = getInputString();
-        Customer customer = bank.getCustomerDetails(customerID);
+        Customer customer = bank.findCustomer(customerID);
         if (customer != null) {
             bank.removeCustomer(customer);
             System.out.println("Customer removed successfully.");
@@ -123,7 +196,7 @@ public class InputHandler {
     private static void viewCustomerDetails() {
         System.out.print("Enter Customer ID to view: ");
         String customerID = getInputString();
-        Customer customer = bank.getCustomerDetails(customerID);
+        Customer customer = bank.findCustomer(customerID);
         if (customer != null) {
             System.out.println(customer);
         } else {
@@ -134,7 +207,7 @@ public class InputHandler {
     private static void addAccount() {
         System.out.print("Enter Customer ID for the account: ");
         String customerID = getInputString();
-        Customer customer = bank.getCustomerDetails(customerID);
+        Customer customer = bank.findCustomer(customerID);
         if (customer != null) {
             System.out.print("Enter Account Type (Savings/Current): ");
             String accountType = getInputString();
@@ -165,10 +238,7 @@ public class InputHandler {
     private static void removeAccount() {
         System.out.print("Enter Account Number to remove: ");
         String accountNumber = getInputString();
-        Account account = bank.getAccounts().stream()
-                .filter(acc -> acc.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElse(null);
+        Account account = bank.findAccount(accountNumber);
         if (account != null) {
             bank.removeAccount(account);
             System.out.println("Account removed successfully.");
@@ -186,11 +256,7 @@ public class InputHandler {
             accountNumber = getInputString();
             
             // Check if the account exists
-            final String finalAccountNumber = accountNumber;
-            account = bank.getAccounts().stream()
-                    .filter(acc -> acc.getAccountNumber().equals(finalAccountNumber))
-                    .findFirst()
-                    .orElse(null);
+            account = bank.findAccount(accountNumber);
             
             if (account != null) {
                 break; // Exit the loop if account is found
@@ -206,10 +272,12 @@ public class InputHandler {
             return;
         }
         
-        account.deposit(amount);
-        Transaction transaction = new Transaction(account.getCustomer().getCustomerID(), "Deposit", account.getAccountNumber(), amount);
-        TransactionLogger.log(transaction);
-        System.out.println("Deposit successful.");
+        try {
+            bank.deposit(account.getCustomer(), account, amount);
+            System.out.println("Deposit successful.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error during deposit: " + e.getMessage());
+        }
     }
     
     private static void withdraw() {
@@ -221,11 +289,7 @@ public class InputHandler {
             accountNumber = getInputString();
     
             // Check if the account exists
-            final String finalAccountNumber = accountNumber;
-            account = bank.getAccounts().stream()
-                    .filter(acc -> acc.getAccountNumber().equals(finalAccountNumber))
-                    .findFirst()
-                    .orElse(null);
+            account = bank.findAccount(accountNumber);
     
             if (account != null) {
                 break; // Exit the loop if account is found
@@ -242,13 +306,8 @@ public class InputHandler {
         }
     
         try {
-            if (account.withdraw(amount)) {
-                Transaction transaction = new Transaction(account.getCustomer().getCustomerID(), "Withdrawal", account.getAccountNumber(), amount);
-                TransactionLogger.log(transaction);
-                System.out.println("Withdrawal successful.");
-            } else {
-                System.out.println("Withdrawal failed due to insufficient funds.");
-            }
+            bank.withdraw(account.getCustomer(), account, amount);
+            System.out.println("Withdrawal successful.");
         } catch (IllegalArgumentException e) {
             System.out.println("Error during withdrawal: " + e.getMessage());
         }
@@ -264,11 +323,7 @@ public class InputHandler {
         while (true) {
             System.out.print("Enter Source Account Number: ");
             sourceAccountNumber = getInputString();
-            final String finalAccountNumber = sourceAccountNumber;
-            sourceAccount = bank.getAccounts().stream()
-                    .filter(acc -> acc.getAccountNumber().equals(finalAccountNumber))
-                    .findFirst()
-                    .orElse(null);
+            sourceAccount = bank.findAccount(sourceAccountNumber);
     
             if (sourceAccount != null) {
                 break; // Exit the loop if source account is found
@@ -281,12 +336,7 @@ public class InputHandler {
         while (true) {
             System.out.print("Enter Target Account Number: ");
             targetAccountNumber = getInputString();
-
-            final String finalAccountNumber = targetAccountNumber;
-            targetAccount = bank.getAccounts().stream()
-                    .filter(acc -> acc.getAccountNumber().equals(finalAccountNumber))
-                    .findFirst()
-                    .orElse(null);
+            targetAccount = bank.findAccount(targetAccountNumber);
     
             if (targetAccount != null) {
                 break; // Exit the loop if target account is found
@@ -303,54 +353,94 @@ public class InputHandler {
         }
     
         try {
-            if (sourceAccount.transfer(targetAccount, amount)) {
-                Transaction transaction = new Transaction(sourceAccount.getCustomer().getCustomerID(), "Transfer", sourceAccount.getAccountNumber(), amount);
-                TransactionLogger.log(transaction);
-                System.out.println("Transfer successful.");
-            } else {
-                System.out.println("Transfer failed due to insufficient funds.");
-            }
+            bank.transfer(sourceAccount.getCustomer(), sourceAccount, targetAccount, amount);
+            System.out.println("Transfer successful.");
         } catch (IllegalArgumentException e) {
             System.out.println("Error during transfer: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            // The transfer could not be logged, so both balances were put back
+            System.out.println("Transfer failed and was rolled back: " + e.getMessage());
         }
     }
     
     private static void viewTransactionHistory() {
         System.out.print("Enter Account Number to view history: ");
         String accountNumber = getInputString();
-        Account account = bank.getAccounts().stream()
-                .filter(acc -> acc.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElse(null);
-        if (account != null) {
-            bank.getTransactionHistory(account).forEach(System.out::println);
-        } else {
+        Account account = bank.findAccount(accountNumber);
+        if (account == null) {
             System.out.println("Account not found.");
+            return;
+        }
+        // Render one page at a time so memory use does not grow with the log
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out));
+        String pageToken = null;
+        try {
+            do {
+                TransactionPage page = bank.getTransactionHistoryPage(account, HISTORY_PAGE_SIZE, pageToken);
+                for (Transaction transaction : page.getTransactions()) {
+                    out.write(transaction.toString());
+                    out.newLine();
+                }
+                out.flush();
+                pageToken = page.getNextPageToken();
+                if (pageToken != null) {
+                    System.out.print("Press Enter for more, or type q to stop: ");
+                    if (getInputString().trim().equalsIgnoreCase("q")) {
+                        break;
+                    }
+                }
+            } while (pageToken != null);
+        } catch (IOException e) {
+            System.err.println("Error printing transaction history: " + e.getMessage());
         }
     }
 
     private static void showAllCustomers() {
-        bank.getCustomers().forEach(System.out::println);
+        bank.snapshotCustomers().forEach(System.out::println);
     }
 
     private static void showAllAccounts() {
-        bank.getAccounts().forEach(System.out::println);
+        bank.snapshotAccounts().forEach(System.out::println);
     }
 
     private static void showAllTellers() {
-        bank.getTellers().forEach(System.out::println);
+        bank.snapshotTellers().forEach(System.out::println);
     }
 
     private static void showAllATMs() {
-        bank.getATMs().forEach(System.out::println);
+        bank.snapshotATMs().forEach(System.out::println);
+    }
+
+    private static void showMetrics() {
+        System.out.println(BankMetrics.report());
     }
 
     private static void saveData() {
 
+            if (httpServer != null) {
+                httpServer.close();
+            }
+            if (atmServer != null) {
+                atmServer.close();
+            }
+
+            if (idempotencyCache != null) {
+                idempotencyCache.close();
+            }
+
+            if (persistence != null) {
+                // Changes are already in the write-ahead log; take a final snapshot
+                persistence.close();
+                return;
+            }
+            if (incrementalSaver != null) {
+                incrementalSaver.close();
+                return;
+            }
             // Save customers
-            DataManager.saveCustomers(bank.getCustomers());
+            DataManager.saveCustomers(bank.snapshotCustomers());
             // Save accounts
-            DataManager.saveAccounts(bank.getAccounts());
+            DataManager.saveAccounts(bank.snapshotAccounts());
 
     }
 
@@ -0,0 +1,241 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-of-period interest accrual across every {@link SavingsAccount} in a {@link Bank}.
+ * Accounts are ordered by account number and split into batches that run in parallel
+ * on a fork-join pool. Each batch records that it is starting in a checkpoint file,
+ * credits its accounts, logs one aggregated "Interest Accrual" transaction for the
+ * batch, and then records the account numbers it covered as completed. Running the
+ * job again for the same period skips every completed account, so a run that crashed
+ * part way resumes rather than crediting the same accounts twice, and an account
+ * opened after the checkpoint was written is still credited.
+ * <p>
+ * A crash after a batch started but before it completed leaves its accounts in doubt:
+ * some or all of them may have been credited. They are never credited again for the
+ * period; a rerun skips them and reports them through {@link Summary#getAccountsInDoubt()}
+ * so they can be checked against the balances and the journal.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class InterestAccrualJob {
+
+    /** Account number used for the aggregated journal entry of each batch. */
+    public static final String JOURNAL_ACCOUNT = "INTEREST";
+    /** Customer ID used for the aggregated journal entry of each batch. */
+    public static final String JOURNAL_CUSTOMER = "BANK";
+
+    private static final String STARTED = ",";
+    private static final String COMPLETED = "";
+
+    private final Bank bank;
+    private final File checkpointFile;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * Outcome of one run of the job.
+     */
+    public static final class Summary {
+        private final int accountsCredited;
+        private final long interestMinor;
+        private final int batchesRun;
+        private final int batchesSkipped;
+        private final List<String> accountsInDoubt;
+
+        Summary(int accountsCredited, long interestMinor, int batchesRun, int batchesSkipped, List<String> accountsInDoubt) {
+            this.accountsCredited = accountsCredited;
+            this.interestMinor = interestMinor;
+            this.batchesRun = batchesRun;
+            this.batchesSkipped = batchesSkipped;
+            this.accountsInDoubt = Collections.unmodifiableList(accountsInDoubt);
+        }
+
+        public int getAccountsCredited() {
+            return accountsCredited;
+        }
+
+        public double getTotalInterest() {
+            return Account.toAmount(interestMinor);
+        }
+
+        public int getBatchesRun() {
+            return batchesRun;
+        }
+
+        /**
+         * Returns how many batches an earlier run of the same period had already completed.
+         *
+         * @return the number of checkpointed batches
+         */
+        public int getBatchesSkipped() {
+            return batchesSkipped;
+        }
+
+        /**
+         * Returns the accounts an earlier run of the same period started but did not
+         * complete. They may or may not have been credited, so this run left them alone.
+         *
+         * @return the account numbers in doubt, in account number order
+         */
+        public List<String> getAccountsInDoubt() {
+            return accountsInDoubt;
+        }
+    }
+
+    /**
+     * Creates a job.
+     *
+     * @param bank the bank whose savings accounts accrue interest
+     * @param checkpointFile where completed batches are recorded
+     * @param batchSize accounts per batch (must be greater than zero)
+     * @param pool the pool that runs the batches
+     */
+    public InterestAccrualJob(Bank bank, File checkpointFile, int batchSize, ForkJoinPool pool) {
+        if (bank == null || checkpointFile == null || pool == null) {
+            throw new IllegalArgumentException("Bank, checkpoint file and pool cannot be null.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero.");
+        }
+        this.bank = bank;
+        this.checkpointFile = checkpointFile;
+        this.batchSize = batchSize;
+        this.pool = pool;
+    }
+
+    /**
+     * Applies one period of interest to every savings account not yet credited for the period.
+     *
+     * @param period identifies the accrual period, for example "2024-06" (cannot be empty or contain commas)
+     * @return what the run did
+     * @throws IOException if the checkpoint cannot be read or written
+     */
+    public Summary run(String period) throws IOException {
+        if (period == null || period.trim().isEmpty() || period.contains(",")) {
+            throw new IllegalArgumentException("Period cannot be empty or contain commas.");
+        }
+        Set<String> started = new HashSet<>();
+        Set<String> completed = new HashSet<>();
+        int batchesSkipped = readCheckpoint(period, started, completed);
+        started.removeAll(completed);
+        List<String> inDoubt = new ArrayList<>(started);
+        Collections.sort(inDoubt);
+
+        List<SavingsAccount> accounts = new ArrayList<>();
+        for (Account account : bank.snapshotAccounts()) {
+            if (account instanceof SavingsAccount && !completed.contains(account.getAccountNumber())
+                    && !started.contains(account.getAccountNumber())) {
+                accounts.add((SavingsAccount) account);
+            }
+        }
+        accounts.sort(Comparator.comparing(Account::getAccountNumber));
+
+        AtomicInteger credited = new AtomicInteger();
+        AtomicLong interest = new AtomicLong();
+        List<ForkJoinTask<?>> batches = new ArrayList<>();
+        for (int from = 0; from < accounts.size(); from += batchSize) {
+            List<SavingsAccount> batch = accounts.subList(from, Math.min(from + batchSize, accounts.size()));
+            batches.add(pool.submit(() -> {
+                runBatch(period, batch, credited, interest);
+                return null;
+            }));
+        }
+        for (ForkJoinTask<?> batch : batches) {
+            try {
+                batch.join();
+            } catch (RuntimeException e) {
+                // join can wrap a batch's failure more than once, depending on which thread ran it
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                throw e;
+            }
+        }
+        return new Summary(credited.get(), interest.get(), batches.size(), batchesSkipped, inDoubt);
+    }
+
+    private void runBatch(String period, List<SavingsAccount> batch, AtomicInteger credited, AtomicLong interest) throws IOException {
+        // Recorded before any credit, so a crash from here until the batch completes leaves its accounts in doubt
+        appendCheckpoint(period, STARTED, batch);
+        long batchInterest = 0;
+        int batchCredited = 0;
+        for (SavingsAccount account : batch) {
+            long accrued = account.accrueInterest();
+            if (accrued > 0) {
+                batchInterest += accrued;
+                batchCredited++;
+            }
+        }
+        if (batchInterest > 0) {
+            Transaction entry = new Transaction(JOURNAL_CUSTOMER, JOURNAL_ACCOUNT, "Interest Accrual", Account.toAmount(batchInterest));
+            TransactionLogger.log(entry).join();
+        }
+        appendCheckpoint(period, COMPLETED, batch);
+        credited.addAndGet(batchCredited);
+        interest.addAndGet(batchInterest);
+    }
+
+    // Collects the accounts of started and completed batches for the period and returns how many batches
+    // completed; an older period's checkpoint is ignored
+    private int readCheckpoint(String period, Set<String> started, Set<String> completed) throws IOException {
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        int batches = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpointFile, StandardCharsets.UTF_8))) {
+            CsvCodec.Fields fields = new CsvCodec.Fields();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fields.parse(line);
+                if (fields.count() < 2 || !fields.get(0).equals(period)) {
+                    continue;
+                }
+                // A started batch has an empty second field, which no account number can be
+                boolean isStarted = fields.get(1).isEmpty();
+                for (int i = isStarted ? 2 : 1; i < fields.count(); i++) {
+                    (isStarted ? started : completed).add(fields.get(i));
+                }
+                if (!isStarted) {
+                    batches++;
+                }
+            }
+        }
+        return batches;
+    }
+
+    // Two lines per batch, each the period followed by every account number in the batch;
+    // the started line has an empty field after the period
+    private synchronized void appendCheckpoint(String period, String marker, List<SavingsAccount> batch) throws IOException {
+        StringBuilder line = new StringBuilder(16 + batch.size() * 24).append(period).append(marker);
+        for (SavingsAccount account : batch) {
+            CsvCodec.appendField(line.append(','), account.getAccountNumber());
+        }
+        try (FileOutputStream out = new FileOutputStream(checkpointFile, true);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(line.toString());
+            writer.newLine();
+            writer.flush();
+            out.getFD().sync();
+        }
+    }
+}
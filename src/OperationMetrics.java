@@ -0,0 +1,101 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and outcome counts for one operation, such as {@code Bank.deposit}.
+ * <p>
+ * Callers take {@link System#nanoTime()} before the operation and pass it to
+ * {@link #succeeded}, {@link #rejected} or {@link #failed} afterwards. A rejection is
+ * an operation refused with an {@link IllegalArgumentException}, such as a withdrawal
+ * with insufficient funds; a failure is any other error. Every outcome's latency is
+ * recorded in the same histogram. Recording allocates nothing.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class OperationMetrics implements OperationMetricsMBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public OperationMetrics(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be empty.");
+        }
+        this.name = name;
+    }
+
+    public void succeeded(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        succeeded.incrementAndGet();
+    }
+
+    public void rejected(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        rejected.incrementAndGet();
+    }
+
+    public void failed(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        failed.incrementAndGet();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public long getFailed() {
+        return failed.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getPercentileNanos(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        succeeded.set(0);
+        rejected.set(0);
+        failed.set(0);
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * JMX view of one operation's {@link OperationMetrics}. Latencies are in microseconds.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public interface OperationMetricsMBean {
+
+    String getName();
+
+    long getSucceeded();
+
+    long getRejected();
+
+    long getFailed();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
@@ -0,0 +1,92 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Charges the overdraft fee to every overdrawn {@link CurrentAccount} in a bank.
+ * Walks only the bank's live overdraft index, in parallel on a fork-join pool,
+ * and logs each fee as an "Overdraft Fee" transaction. Cost is proportional to the
+ * number of overdrawn accounts, not to the size of the book.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class OverdraftFeeEngine {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private final Bank bank;
+    private final ForkJoinPool pool;
+
+    /**
+     * Outcome of one fee run.
+     */
+    public static final class Summary {
+        private final int accountsCharged;
+        private final long feesMinor;
+
+        Summary(int accountsCharged, long feesMinor) {
+            this.accountsCharged = accountsCharged;
+            this.feesMinor = feesMinor;
+        }
+
+        public int getAccountsCharged() {
+            return accountsCharged;
+        }
+
+        public double getTotalFees() {
+            return Account.toAmount(feesMinor);
+        }
+    }
+
+    public OverdraftFeeEngine(Bank bank, ForkJoinPool pool) {
+        if (bank == null || pool == null) {
+            throw new IllegalArgumentException("Bank and pool cannot be null.");
+        }
+        this.bank = bank;
+        this.pool = pool;
+    }
+
+    /**
+     * Charges one overdraft fee to each account that is overdrawn when the run starts.
+     * Returns once every fee has been logged.
+     *
+     * @return the number of accounts charged and the total of the fees
+     */
+    public Summary run() {
+        List<CurrentAccount> overdrawn = bank.getOverdrawnAccounts();
+        List<ForkJoinTask<long[]>> chunks = new ArrayList<>();
+        for (int from = 0; from < overdrawn.size(); from += CHUNK_SIZE) {
+            List<CurrentAccount> chunk = overdrawn.subList(from, Math.min(from + CHUNK_SIZE, overdrawn.size()));
+            chunks.add(pool.submit(() -> chargeChunk(chunk)));
+        }
+        int charged = 0;
+        long fees = 0;
+        for (ForkJoinTask<long[]> chunk : chunks) {
+            long[] result = chunk.join();
+            charged += (int) result[0];
+            fees += result[1];
+        }
+        return new Summary(charged, fees);
+    }
+
+    // Returns the number of accounts charged and the fees charged in minor units
+    private static long[] chargeChunk(List<CurrentAccount> chunk) {
+        List<CompletableFuture<Void>> logged = new ArrayList<>();
+        long charged = 0;
+        long fees = 0;
+        for (CurrentAccount account : chunk) {
+            long fee = account.chargeOverdraftFee();
+            if (fee > 0) {
+                logged.add(TransactionLogger.log(new Transaction(account.getCustomer().getCustomerID(),
+                        account.getAccountNumber(), "Overdraft Fee", Account.toAmount(fee))));
+                charged++;
+                fees += fee;
+            }
+        }
+        CompletableFuture.allOf(logged.toArray(new CompletableFuture<?>[0])).join();
+        return new long[] { charged, fees };
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live set of the {@link CurrentAccount}s in a bank whose balance is below zero.
+ * Kept up to date from balance change events, so finding overdrawn accounts costs
+ * time proportional to how many there are rather than to the size of the book.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class OverdraftIndex implements BankListener {
+
+    private final Set<CurrentAccount> overdrawn = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the accounts overdrawn at the time of the call.
+     *
+     * @return a new list of overdrawn accounts
+     */
+    public List<CurrentAccount> getOverdrawnAccounts() {
+        return new ArrayList<>(overdrawn);
+    }
+
+    public int size() {
+        return overdrawn.size();
+    }
+
+    public boolean contains(Account account) {
+        return overdrawn.contains(account);
+    }
+
+    @Override
+    public void accountAdded(Account account) {
+        track(account);
+    }
+
+    @Override
+    public void accountRemoved(Account account) {
+        overdrawn.remove(account);
+    }
+
+    @Override
+    public void balanceChanged(Account account, long previousMinor, long updatedMinor) {
+        track(account);
+    }
+
+    // Update membership from the current balance and repeat if the balance crossed zero
+    // meanwhile, so concurrent updates notifying out of order still leave the right answer.
+    private void track(Account account) {
+        if (!(account instanceof CurrentAccount)) {
+            return;
+        }
+        CurrentAccount current = (CurrentAccount) account;
+        boolean negative;
+        do {
+            negative = current.getBalanceMinor() < 0;
+            if (negative) {
+                overdrawn.add(current);
+            } else {
+                overdrawn.remove(current);
+            }
+        } while (negative != current.getBalanceMinor() < 0);
+    }
+}
@@ -7,7 +7,7 @@
  */
 public class SavingsAccount extends Account {
     private double interestRate;
-    private static final double SPECIAL_TIER_THRESHOLD = 10000; 
+    static final double SPECIAL_TIER_THRESHOLD = 10000;
 
     public SavingsAccount(Customer customer, double interestRate) {
         super("Savings", customer);
@@ -23,8 +23,21 @@ public class SavingsAccount extends Account {
             throw new IllegalArgumentException("Interest rate cannot be negative.");
         }
         this.interestRate = interestRate;
-        this.balance = balance;
+        setBalance(balance);
+    }
+
+    SavingsAccount(String accountNumber, Customer customer, double balance, double interestRate) {
+        super(accountNumber, "Savings", customer);
+        if (interestRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative.");
+        }
+        this.interestRate = interestRate;
+        setBalance(balance);
+    }
 
+    // View over an account held in an AccountStore
+    SavingsAccount(AccountStore store, int ordinal) {
+        super(store, ordinal);
     }
 
     /**
@@ -38,40 +51,61 @@ public class SavingsAccount extends Account {
     }
 
     private void applyInterest() {
-        double interest = balance * (interestRate / 100);
-        deposit(interest);
+        accrueInterest();
+    }
+
+    /**
+     * Credits one period of interest without any console output, for batch runs.
+     *
+     * @return the interest credited in minor units, zero if none was due
+     */
+    long accrueInterest() {
+        while (true) {
+            long current = getBalanceMinor();
+            long interest = Math.round(current * (getInterestRate() / 100));
+            if (interest <= 0) {
+                return 0;
+            }
+            if (compareAndSetBalance(current, current + interest)) {
+                return interest;
+            }
+        }
     }
 
     private void checkSpecialTier() {
-        if (balance >= SPECIAL_TIER_THRESHOLD) {
+        if (getBalance() >= SPECIAL_TIER_THRESHOLD) {
             System.out.println("Congratulations! You Found an Easter Egg!");
         }
     }
 
+    public double getInterestRate() {
+        return store == null ? interestRate : store.getInterestRate(ordinal);
+    }
+
     @Override
     public String toString() {
         return super.toString() + "\n" +
-            "Interest Rate: " + interestRate;
+            "Interest Rate: " + getInterestRate();
     }
 
     @Override
-    public String toCSV() {
-        return String.join(",", super.toCSV(), Double.toString(interestRate));
+    public StringBuilder appendCSV(StringBuilder out) {
+        return super.appendCSV(out).append(',').append(getInterestRate());
     }
 
     public static SavingsAccount fromCSV(String csv, Customer customer) {
-        String[] values = csv.split(",");
-        if (values.length < 5) { // Ensure there are enough values
+        return fromFields(new CsvCodec.Fields().parse(csv), customer);
+    }
+
+    static SavingsAccount fromFields(CsvCodec.Fields values, Customer customer) {
+        if (values.count() < 5) { // Ensure there are enough values
             throw new IllegalArgumentException("Invalid CSV data for SavingsAccount.");
         }
         
-        String accountNumber = values[0];
-        double balance = Double.parseDouble(values[1]);
-        double interestRate = Double.parseDouble(values[4]); // Correct index for interestRate
+        String accountNumber = values.get(0);
+        double balance = values.getDouble(1);
+        double interestRate = values.getDouble(4); // Correct index for interestRate
         
-        SavingsAccount account = new SavingsAccount(customer, interestRate);
-        account.setAccountNumber(accountNumber);
-        account.setBalance(balance);
-        return account;
+        return new SavingsAccount(accountNumber, customer, balance, interestRate);
     }
 }
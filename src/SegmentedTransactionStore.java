@@ -0,0 +1,352 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Transaction store that rolls the CSV log into time-partitioned segment files.
+ * <p>
+ * Every appended transaction is stamped with the next sequence number and the time it
+ * was logged. Each segment holds one time window of the log (a day by default) in a
+ * file named after the offset it starts at, and begins with a fixed-width header line
+ * <pre>
+ *   #segment,minSequence,maxSequence,minTimestamp,maxTimestamp
+ * </pre>
+ * followed by records in {@link Transaction#toCSV()} format. The header is written when
+ * the log rolls to the next window; the open segment's bounds are kept in memory and
+ * rebuilt from its records on startup.
+ * <p>
+ * Offsets run on from one segment to the next, so {@link TransactionIndex} positions
+ * stay valid as the log rolls, and {@link #scanBetween} reads only the segments whose
+ * bounds overlap the range. A sealed segment is never written again and can be moved
+ * to an archive on its own; the store treats a missing segment as a gap in the log.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class SegmentedTransactionStore implements TransactionStore {
+
+    public static final long DEFAULT_SEGMENT_MILLIS = 24L * 60 * 60 * 1000;
+
+    static final String SEGMENT_SUFFIX = ".csv";
+    private static final String HEADER_PREFIX = "#segment";
+    // The prefix, four comma-separated 19-digit numbers and a newline
+    static final int HEADER_LENGTH = HEADER_PREFIX.length() + 4 * 20 + 1;
+
+    private final Path directory;
+    private final long segmentMillis;
+    private final LongSupplier clock;
+    private volatile Segment[] segments;
+    private long nextSequence = 1;
+    private long lastTimestamp;
+
+    public SegmentedTransactionStore(String directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_MILLIS);
+    }
+
+    /**
+     * Opens or creates a segmented log.
+     *
+     * @param directory the directory holding the segment files
+     * @param segmentMillis the length of each segment's time window in milliseconds
+     * @throws IOException if the segments cannot be opened or one is not a log segment
+     */
+    public SegmentedTransactionStore(String directory, long segmentMillis) throws IOException {
+        this(directory, segmentMillis, System::currentTimeMillis);
+    }
+
+    // Takes the clock as a parameter so tests can move time across segment windows
+    SegmentedTransactionStore(String directory, long segmentMillis, LongSupplier clock) throws IOException {
+        if (directory == null || directory.trim().isEmpty()) {
+            throw new IllegalArgumentException("Log directory cannot be empty.");
+        }
+        if (segmentMillis <= 0) {
+            throw new IllegalArgumentException("Segment length must be greater than zero.");
+        }
+        this.directory = Paths.get(directory);
+        this.segmentMillis = segmentMillis;
+        this.clock = clock;
+        Files.createDirectories(this.directory);
+        this.segments = openSegments();
+    }
+
+    private Segment[] openSegments() throws IOException {
+        List<Long> baseOffsets = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    baseOffsets.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    System.err.println("Skipping file that is not a log segment: " + file);
+                }
+            }
+        }
+        baseOffsets.sort(null);
+        if (baseOffsets.isEmpty()) {
+            return new Segment[] { createSegment(0) };
+        }
+        Segment[] opened = new Segment[baseOffsets.size()];
+        for (int i = 0; i < opened.length; i++) {
+            opened[i] = new Segment(baseOffsets.get(i), segmentPath(baseOffsets.get(i)));
+            boolean open = i == opened.length - 1;
+            if (!opened[i].readHeader() && !open) {
+                // The log rolled before this segment's header was written
+                opened[i].recoverBounds();
+                opened[i].writeHeader();
+            }
+            if (open) {
+                opened[i].recoverBounds();
+            }
+            if (!opened[i].isEmpty()) {
+                nextSequence = Math.max(nextSequence, opened[i].maxSequence + 1);
+                lastTimestamp = Math.max(lastTimestamp, opened[i].maxTimestamp);
+            }
+        }
+        return opened;
+    }
+
+    @Override
+    public synchronized long append(Transaction[] transactions, int count, long[] offsets, int[] lengths) throws IOException {
+        Segment active = segments[segments.length - 1];
+        if (count == 0) {
+            return active.end;
+        }
+        // Timestamps never run backwards, so segments and sequence numbers stay in time order
+        long now = Math.max(clock.getAsLong(), lastTimestamp);
+        if (!active.isEmpty() && Math.floorDiv(now, segmentMillis) != Math.floorDiv(active.minTimestamp, segmentMillis)) {
+            active = roll(active);
+        }
+        for (int i = 0; i < count; i++) {
+            transactions[i].stamp(nextSequence + i, now);
+        }
+        long localEnd = active.records().append(transactions, count, offsets, lengths);
+        for (int i = 0; i < count; i++) {
+            offsets[i] += active.baseOffset;
+        }
+        active.include(nextSequence, nextSequence + count - 1, now);
+        active.end = active.baseOffset + localEnd;
+        nextSequence += count;
+        lastTimestamp = now;
+        return active.end;
+    }
+
+    private Segment roll(Segment active) throws IOException {
+        active.records().force();
+        active.writeHeader();
+        Segment next = createSegment(active.end);
+        Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[grown.length - 1] = next;
+        segments = grown;
+        return next;
+    }
+
+    private Segment createSegment(long baseOffset) throws IOException {
+        Segment segment = new Segment(baseOffset, segmentPath(baseOffset));
+        segment.writeHeader();
+        segment.end = baseOffset + HEADER_LENGTH;
+        return segment;
+    }
+
+    private Path segmentPath(long baseOffset) {
+        return directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    @Override
+    public void force() throws IOException {
+        Segment[] current = segments;
+        current[current.length - 1].records().force();
+    }
+
+    @Override
+    public Transaction read(long offset, int length) throws IOException {
+        Segment segment = segmentAt(offset);
+        if (segment == null) {
+            throw new IOException("Transaction log segment for offset " + offset + " has been archived.");
+        }
+        return segment.records().read(offset - segment.baseOffset, length);
+    }
+
+    private Segment segmentAt(long offset) {
+        Segment[] current = segments;
+        int low = 0;
+        int high = current.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (current[middle].baseOffset <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high >= 0 && offset < current[high].end ? current[high] : null;
+    }
+
+    @Override
+    public long scan(long fromOffset, int maxRecords, RecordVisitor visitor) throws IOException {
+        int[] visited = new int[1];
+        for (Segment segment : segments) {
+            if (segment.end <= fromOffset) {
+                continue;
+            }
+            long base = segment.baseOffset;
+            long resumeAt = segment.records().scan(Math.max(fromOffset - base, HEADER_LENGTH), maxRecords - visited[0],
+                    (transaction, offset, length, nextOffset) -> {
+                        visited[0]++;
+                        visitor.visit(transaction, base + offset, length, base + nextOffset);
+                    });
+            if (visited[0] >= maxRecords) {
+                return base + resumeAt;
+            }
+        }
+        return size();
+    }
+
+    /**
+     * Visits the records logged in a time range, reading only the segments whose
+     * header bounds overlap it.
+     */
+    @Override
+    public void scanBetween(long fromTimestamp, long toTimestamp, RecordVisitor visitor) throws IOException {
+        for (Segment segment : segments) {
+            long minTimestamp = segment.minTimestamp;
+            if (segment.isEmpty() || segment.maxTimestamp < fromTimestamp) {
+                continue;
+            }
+            if (minTimestamp >= toTimestamp) {
+                break;
+            }
+            long base = segment.baseOffset;
+            segment.records().scan(HEADER_LENGTH, (transaction, offset, length, nextOffset) -> {
+                if (transaction.getTimestamp() >= fromTimestamp && transaction.getTimestamp() < toTimestamp) {
+                    visitor.visit(transaction, base + offset, length, base + nextOffset);
+                }
+            });
+        }
+    }
+
+    @Override
+    public long size() {
+        Segment[] current = segments;
+        return current[current.length - 1].end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * One segment file and the bounds from its header.
+     */
+    private static final class Segment {
+        private final long baseOffset;
+        private final Path path;
+        private CsvTransactionStore records;
+        private volatile long end;
+        private volatile long minSequence;
+        private volatile long maxSequence;
+        private volatile long minTimestamp;
+        private volatile long maxTimestamp;
+
+        Segment(long baseOffset, Path path) {
+            this.baseOffset = baseOffset;
+            this.path = path;
+        }
+
+        synchronized CsvTransactionStore records() throws IOException {
+            if (records == null) {
+                records = new CsvTransactionStore(path.toString());
+            }
+            return records;
+        }
+
+        boolean isEmpty() {
+            return minSequence == 0;
+        }
+
+        void include(long firstSequence, long lastSequence, long timestamp) {
+            if (isEmpty()) {
+                minTimestamp = timestamp;
+                minSequence = firstSequence;
+            }
+            maxSequence = lastSequence;
+            maxTimestamp = timestamp;
+        }
+
+        /**
+         * Reads the bounds from the header.
+         *
+         * @return true if the header has been written, false if the segment was still open
+         */
+        boolean readHeader() throws IOException {
+            end = baseOffset + Files.size(path);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, buffer.position()) < 0) {
+                        break;
+                    }
+                }
+            }
+            if (buffer.hasRemaining() && end == baseOffset + buffer.position()) {
+                // The segment was created but its header never reached the disk
+                writeHeader();
+                end = baseOffset + HEADER_LENGTH;
+                return false;
+            }
+            String[] values = new String(buffer.array(), StandardCharsets.US_ASCII).trim().split(",");
+            if (values.length != 5 || !values[0].equals(HEADER_PREFIX)) {
+                throw new IOException("Not a transaction log segment: " + path);
+            }
+            try {
+                minSequence = Long.parseLong(values[1]);
+                maxSequence = Long.parseLong(values[2]);
+                minTimestamp = Long.parseLong(values[3]);
+                maxTimestamp = Long.parseLong(values[4]);
+            } catch (NumberFormatException e) {
+                throw new IOException("Not a transaction log segment: " + path);
+            }
+            return !isEmpty();
+        }
+
+        void recoverBounds() throws IOException {
+            minSequence = 0;
+            records().scan(HEADER_LENGTH, (transaction, offset, length, nextOffset) -> {
+                if (transaction.getSequence() != 0) {
+                    include(transaction.getSequence(), transaction.getSequence(), transaction.getTimestamp());
+                }
+            });
+        }
+
+        void writeHeader() throws IOException {
+            String header = String.format("%s,%019d,%019d,%019d,%019d\n", HEADER_PREFIX,
+                    minSequence, maxSequence, minTimestamp, maxTimestamp);
+            ByteBuffer buffer = ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII));
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, buffer.position());
+                }
+                channel.force(false);
+            }
+        }
+
+        synchronized void close() throws IOException {
+            if (records != null) {
+                records.close();
+                records = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, point-in-time view of one of the bank's collections.
+ * <p>
+ * A snapshot never changes after it is published: later additions and removals
+ * produce a new snapshot with a higher version and leave this one as it was. It can
+ * therefore be iterated, indexed and shared between threads without copying or
+ * locking. Any attempt to modify it throws {@link UnsupportedOperationException}.
+ *
+ * @param <T> the element type
+ * @author Bank Management System
+ * @version 1.0
+ */
+public final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+
+    private final Object[] elements;
+    private final long version;
+
+    Snapshot(Object[] elements, long version) {
+        this.elements = elements;
+        this.version = version;
+    }
+
+    /**
+     * Returns the number of changes made to the collection before this snapshot was
+     * taken. Two snapshots of the same collection with the same version hold the same
+     * elements.
+     *
+     * @return the snapshot's version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= elements.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + elements.length + ".");
+        }
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
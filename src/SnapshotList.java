@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A list that hands its readers immutable {@link Snapshot}s.
+ * <p>
+ * Writers change the list under its lock and bump its version. The snapshot for a
+ * version is built by the first reader that asks for it and published through a
+ * volatile field, so every later reader gets the same snapshot back with a single
+ * read and no lock until the list changes again. A burst of writes, such as loading
+ * the book at startup, costs one copy at the next read rather than one per write.
+ *
+ * @param <T> the element type
+ * @author Bank Management System
+ * @version 1.0
+ */
+final class SnapshotList<T> {
+
+    private final List<T> elements;
+    private long version;
+    private volatile Snapshot<T> published;
+
+    SnapshotList() {
+        this.elements = new ArrayList<>();
+        this.published = new Snapshot<>(new Object[0], 0);
+    }
+
+    SnapshotList(Collection<? extends T> initial) {
+        this.elements = new ArrayList<>(initial);
+    }
+
+    synchronized void add(T element) {
+        elements.add(element);
+        changed();
+    }
+
+    synchronized boolean remove(T element) {
+        if (!elements.remove(element)) {
+            return false;
+        }
+        changed();
+        return true;
+    }
+
+    /**
+     * Returns the current snapshot, building it if the list changed since the last one.
+     *
+     * @return the snapshot
+     */
+    Snapshot<T> snapshot() {
+        Snapshot<T> snapshot = published;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (published == null) {
+                published = new Snapshot<>(elements.toArray(), version);
+            }
+            return published;
+        }
+    }
+
+    synchronized int size() {
+        return elements.size();
+    }
+
+    // Caller holds the lock
+    private void changed() {
+        version++;
+        published = null;
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates 64-bit account IDs made of a millisecond timestamp, a node ID and a sequence:
+ * <pre>
+ *   41 bits milliseconds since 2024-01-01 | 10 bits node | 12 bits sequence
+ * </pre>
+ * Each thread leases a block of consecutive timestamp/sequence values from a shared
+ * counter with a single compare-and-set, then hands IDs out of its block without
+ * touching shared state. When more than 4096 IDs are needed in a millisecond the
+ * counter simply runs ahead of the clock, and a clock that moves backwards never
+ * reuses a value, so IDs stay unique on a node without locking.
+ * <p>
+ * Account numbers are the ID written in base 36, at most 13 characters, which is
+ * how they are shown, stored and indexed. {@link #parse(String)} turns one back
+ * into its numeric form.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class SnowflakeIdGenerator implements AccountIdGenerator {
+
+    /** 2024-01-01T00:00:00Z in milliseconds since the Unix epoch. */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int BLOCK_SIZE = 64;
+
+    private final long node;
+    private final LongSupplier clock;
+    // Last leased tick: milliseconds since the epoch shifted left by SEQUENCE_BITS, plus the sequence
+    private final AtomicLong lastTick = new AtomicLong();
+    // Per thread: next tick to hand out and the end of the leased block
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a generator with its own clock, so tests can control time.
+     *
+     * @param nodeId identifies this process among those sharing account numbers (0 to {@link #MAX_NODE_ID})
+     * @param clock returns the current time in milliseconds since the Unix epoch
+     */
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID + ".");
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a new, unique ID.
+     *
+     * @return the ID, always positive
+     */
+    public long nextId() {
+        long[] block = blocks.get();
+        if (block[0] == block[1]) {
+            lease(block);
+        }
+        long tick = block[0]++;
+        return ((tick >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | (node << NODE_SHIFT) | (tick & SEQUENCE_MASK);
+    }
+
+    @Override
+    public String nextAccountNumber() {
+        return format(nextId());
+    }
+
+    /**
+     * Writes an ID in its compact base-36 form.
+     *
+     * @param id the ID
+     * @return the account number
+     */
+    public static String format(long id) {
+        return Long.toString(id, 36).toUpperCase();
+    }
+
+    /**
+     * Reads an account number written by {@link #format(long)}.
+     *
+     * @param accountNumber the account number
+     * @return the ID, or -1 if the account number is not a base-36 ID
+     */
+    public static long parse(String accountNumber) {
+        if (accountNumber == null || accountNumber.isEmpty() || accountNumber.length() > 13) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 10;
+            } else {
+                return -1;
+            }
+            if (id > (Long.MAX_VALUE - digit) / 36) {
+                return -1;
+            }
+            id = id * 36 + digit;
+        }
+        // Only the canonical form maps back, so "0A" and "A" are never both taken as the same ID
+        return accountNumber.charAt(0) == '0' ? -1 : id;
+    }
+
+    /**
+     * Returns the time an ID was generated.
+     *
+     * @param id the ID
+     * @return milliseconds since the Unix epoch
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    private void lease(long[] block) {
+        while (true) {
+            long last = lastTick.get();
+            long now = (clock.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            long start = Math.max(last, now);
+            if (lastTick.compareAndSet(last, start + BLOCK_SIZE)) {
+                block[0] = start;
+                block[1] = start + BLOCK_SIZE;
+                return;
+            }
+        }
+    }
+}
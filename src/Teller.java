@@ -44,7 +44,7 @@ public class Teller {
         if (customer==null || account==null ) {
             throw new IllegalArgumentException("Customer or Account cannot be null");   
         }
-        if (amount <= 0) {
+        if (!(amount > 0)) {
             throw new IllegalArgumentException("Amount must be positive");
         }
         boolean success = account.deposit(amount);
@@ -67,7 +67,7 @@ public class Teller {
         if (customer == null || account == null) {
             throw new IllegalArgumentException("Customer or account cannot be null.");
         }
-        if (amount <= 0) {
+        if (!(amount > 0)) {
             throw new IllegalArgumentException("Amount must be positive.");
         }
         if (amount > account.getBalance()) {
@@ -79,20 +79,35 @@ public class Teller {
         }
     }
 
+    /**
+     * Assists a customer with transferring funds between accounts.
+     * The funds check, both balance updates and the log record are applied atomically.
+     * 
+     * @param customer the customer making the transfer
+     * @param sourceAccount the account to transfer from
+     * @param targetAccount the account to transfer to
+     * @param amount the amount to transfer
+     * @throws IllegalArgumentException if any argument is null, amount is invalid, or balance is insufficient
+     */
     public void assistTransfer(Customer customer, Account sourceAccount, Account targetAccount, double amount) {
-        if (customer == null || sourceAccount == null || targetAccount == null) {
-            throw new IllegalArgumentException("Customer, source account, or target account cannot be null.");
-        }
-        if (amount <= 0) {
-            throw new IllegalArgumentException("Amount must be positive.");
-        }
-        if (amount > sourceAccount.getBalance()) {
-            throw new IllegalArgumentException("Insufficient balance.");
-        }
-        boolean success = sourceAccount.transfer(targetAccount, amount);
-        if (success) {
-            logTransaction(customer, sourceAccount, amount, "Transfer");
+        long start = System.nanoTime();
+        try {
+            if (customer == null || sourceAccount == null || targetAccount == null) {
+                throw new IllegalArgumentException("Customer, source account, or target account cannot be null.");
+            }
+            if (!(amount > 0)) {
+                throw new IllegalArgumentException("Amount must be positive.");
+            }
+            Transaction transaction = new Transaction(customer.getCustomerID(), sourceAccount.getAccountNumber(), "Transfer", amount);
+            TransferEngine.shared().transfer(sourceAccount, targetAccount, amount, transaction);
+        } catch (IllegalArgumentException e) {
+            BankMetrics.TELLER_TRANSFER.rejected(start);
+            throw e;
+        } catch (RuntimeException e) {
+            BankMetrics.TELLER_TRANSFER.failed(start);
+            throw e;
         }
+        BankMetrics.TELLER_TRANSFER.succeeded(start);
     }
 
     public void provideAccountDetails(Customer customer) {
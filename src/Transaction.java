@@ -1,6 +1,8 @@
 /**
  * Represents a banking transaction with customer, account, type, and amount information.
  * Transactions can be serialized to CSV format for logging and persistence.
+ * A transaction written to a {@link SegmentedTransactionStore} is also stamped with
+ * its sequence number in the log and the time it was logged.
  * 
  * @author Bank Management System
  * @version 1.0
@@ -11,6 +13,8 @@ public class Transaction {
     private String accountNumber;
     private String type;
     private double amount;
+    private long sequence;
+    private long timestamp;
 
     public Transaction(String customerID, String accountNumber, String type, double amount) {
         validateInput(customerID, "Customer ID cannot be empty.");
@@ -37,8 +41,31 @@ public class Transaction {
         return amount;
     }
 
+    /**
+     * @return the transaction's position in the log, starting at 1; zero if it has not been stamped
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return when the transaction was logged, in epoch milliseconds; zero if it has not been stamped
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    // Called by the log as the transaction is appended
+    void stamp(long sequence, long timestamp) {
+        if (sequence <= 0 || timestamp < 0) {
+            throw new IllegalArgumentException("Invalid transaction stamp.");
+        }
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
     public void validateAmount(double amount, String errorMessage) {
-        if (amount <= 0) {
+        if (!(amount > 0) || Double.isInfinite(amount)) {
             throw new IllegalArgumentException(errorMessage);
         }
     }
@@ -50,20 +77,50 @@ public class Transaction {
     }
 
     public String toCSV() {
-        return customerID + "," + accountNumber + "," + type + "," + amount;
+        return appendCSV(new StringBuilder(64)).toString();
+    }
+
+    /**
+     * Appends this transaction in CSV format, so the log can encode a batch into one buffer.
+     * A stamped transaction has its sequence number and timestamp as two extra fields.
+     *
+     * @param out where the record is being built
+     * @return {@code out}
+     */
+    public StringBuilder appendCSV(StringBuilder out) {
+        CsvCodec.appendField(out, customerID).append(',');
+        CsvCodec.appendField(out, accountNumber).append(',');
+        CsvCodec.appendField(out, type).append(',');
+        out.append(amount);
+        if (sequence != 0) {
+            out.append(',').append(sequence).append(',').append(timestamp);
+        }
+        return out;
     }
 
     public static Transaction fromCSV(String csv) {
-        String[] parts = csv.split(",");
-        if (parts.length != 4) {
+        return fromFields(new CsvCodec.Fields().parse(csv));
+    }
+
+    // Build a transaction from already parsed CSV fields, such as a record read straight from log bytes
+    static Transaction fromFields(CsvCodec.Fields parts) {
+        if (parts.count() != 4 && parts.count() != 6) {
             throw new IllegalArgumentException("Invalid CSV format for Transaction.");
         }
-        String customerID = parts[0];
-        String accountNumber = parts[1];
-        String transactionType = parts[2];
-        double amount = Double.parseDouble(parts[3]);
+        String customerID = parts.get(0);
+        String accountNumber = parts.get(1);
+        String transactionType = parts.get(2);
+        double amount = parts.getDouble(3);
         
-        return new Transaction(customerID, accountNumber, transactionType, amount);
+        Transaction transaction = new Transaction(customerID, accountNumber, transactionType, amount);
+        if (parts.count() == 6) {
+            try {
+                transaction.stamp(parts.getLong(4), parts.getLong(5));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CSV format for Transaction.");
+            }
+        }
+        return transaction;
     }
 
     @Override
@@ -0,0 +1,270 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Secondary index over the transaction log keyed by account number and customer ID.
+ * Each entry records where a transaction starts in the log and how long it is,
+ * so history queries can read only the matching records instead of the whole file.
+ * The index is persisted next to the log and caught up from the log tail on load.
+ * The index file is opened for appending once and kept open until {@link #close()},
+ * and each append is flushed to the operating system before it returns.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class TransactionIndex {
+
+    private final String indexFileName;
+    private final Map<String, OffsetList> byAccount;
+    private final Map<String, OffsetList> byCustomer;
+    private long indexedLength;
+    private BufferedWriter appender;
+
+    public TransactionIndex(String indexFileName) {
+        if (indexFileName == null || indexFileName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Index file name cannot be empty.");
+        }
+        this.indexFileName = indexFileName;
+        this.byAccount = new HashMap<>();
+        this.byCustomer = new HashMap<>();
+        this.indexedLength = 0;
+    }
+
+    /**
+     * Number of log bytes covered by this index.
+     *
+     * @return the offset just past the last indexed record
+     */
+    public synchronized long getIndexedLength() {
+        return indexedLength;
+    }
+
+    /**
+     * Adds a record to the in-memory index and appends it to the index file.
+     *
+     * @param transaction the transaction that was written to the log
+     * @param offset byte offset of the record in the log
+     * @param length byte length of the record, excluding the line separator
+     * @param nextOffset byte offset just past the record and its line separator
+     */
+    public synchronized void record(Transaction transaction, long offset, int length, long nextOffset) {
+        recordBatch(new Transaction[] { transaction }, new long[] { offset }, new int[] { length }, 1, nextOffset);
+    }
+
+    /**
+     * Adds a batch of consecutive log records to the index with a single index file append.
+     *
+     * @param transactions the transactions that were written, in log order
+     * @param offsets byte offset of each record in the log
+     * @param lengths byte length of each record, excluding the line separator
+     * @param count number of records to take from the arrays
+     * @param nextOffset byte offset just past the last record and its line separator
+     */
+    public synchronized void recordBatch(Transaction[] transactions, long[] offsets, int[] lengths, int count, long nextOffset) {
+        StringBuilder lines = new StringBuilder(count * 64);
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = transactions[i];
+            add(transaction.getAccountNumber(), transaction.getCustomerID(), offsets[i], lengths[i]);
+            long recordEnd = i + 1 < count ? offsets[i + 1] : nextOffset;
+            lines.append(toIndexLine(transaction, offsets[i], lengths[i], recordEnd)).append(System.lineSeparator());
+        }
+        indexedLength = nextOffset;
+        try {
+            BufferedWriter writer = appender();
+            writer.write(lines.toString());
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing transaction index: " + e.getMessage());
+            closeAppender();
+        }
+    }
+
+    /**
+     * Closes the index file. A later append opens it again.
+     */
+    public synchronized void close() {
+        closeAppender();
+    }
+
+    /**
+     * Returns the log positions of all records for the given account, in log order.
+     * Each position packs the offset and length; see {@link #offsetOf} and {@link #lengthOf}.
+     *
+     * @param accountNumber the account number to look up
+     * @return packed positions, empty if the account has no records
+     */
+    public synchronized long[] positionsForAccount(String accountNumber) {
+        OffsetList list = byAccount.get(accountNumber);
+        return list == null ? new long[0] : list.toArray();
+    }
+
+    /**
+     * Returns the log positions of all records for the given customer, in log order.
+     *
+     * @param customerID the customer ID to look up
+     * @return packed positions, empty if the customer has no records
+     */
+    public synchronized long[] positionsForCustomer(String customerID) {
+        OffsetList list = byCustomer.get(customerID);
+        return list == null ? new long[0] : list.toArray();
+    }
+
+    /**
+     * Returns a window of the log positions for the given account, in log order.
+     *
+     * @param accountNumber the account number to look up
+     * @param from index of the first position to return
+     * @param maxCount the most positions to return
+     * @return packed positions, empty once {@code from} is past the account's last record
+     */
+    public synchronized long[] positionsForAccount(String accountNumber, int from, int maxCount) {
+        OffsetList list = byAccount.get(accountNumber);
+        return list == null ? new long[0] : list.slice(from, maxCount);
+    }
+
+    public static long offsetOf(long position) {
+        return position >>> 24;
+    }
+
+    public static int lengthOf(long position) {
+        return (int) (position & 0xFFFFFF);
+    }
+
+    /**
+     * Loads the persisted index and indexes any records appended to the store after it.
+     * If the index does not match the store (for example the log was replaced),
+     * the index is rebuilt from the start of the store.
+     *
+     * @param store the transaction store this index covers
+     */
+    public synchronized void load(TransactionStore store) {
+        clear();
+        File indexFile = new File(indexFileName);
+        if (indexFile.exists()) {
+            readIndexFile();
+        }
+        try {
+            long storeSize = store.size();
+            if (indexedLength > storeSize) {
+                System.err.println("Transaction index is ahead of the log, rebuilding.");
+                clear();
+                closeAppender();
+                indexFile.delete();
+            }
+            if (storeSize > indexedLength) {
+                catchUp(store);
+            }
+        } catch (IOException e) {
+            System.err.println("Error indexing transaction log: " + e.getMessage());
+        }
+    }
+
+    private void readIndexFile() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(indexFileName))) {
+            CsvCodec.Fields values = new CsvCodec.Fields();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                values.parse(line);
+                if (values.count() != 5) {
+                    System.err.println("Skipping invalid index record: " + line);
+                    continue;
+                }
+                long offset = values.getLong(0);
+                int length = (int) values.getLong(1);
+                add(values.get(3), values.get(4), offset, length);
+                indexedLength = values.getLong(2);
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading transaction index, rebuilding: " + e.getMessage());
+            clear();
+            closeAppender();
+            new File(indexFileName).delete();
+        }
+    }
+
+    private void catchUp(TransactionStore store) throws IOException {
+        BufferedWriter writer = appender();
+        try {
+            IOException[] failure = new IOException[1];
+            store.scan(indexedLength, (transaction, offset, length, nextOffset) -> {
+                add(transaction.getAccountNumber(), transaction.getCustomerID(), offset, length);
+                indexedLength = nextOffset;
+                try {
+                    writer.write(toIndexLine(transaction, offset, length, nextOffset));
+                    writer.newLine();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            indexedLength = Math.max(indexedLength, store.size());
+        } finally {
+            writer.flush();
+        }
+    }
+
+    private BufferedWriter appender() throws IOException {
+        if (appender == null) {
+            appender = new BufferedWriter(new FileWriter(indexFileName, true));
+        }
+        return appender;
+    }
+
+    private void closeAppender() {
+        if (appender != null) {
+            try {
+                appender.close();
+            } catch (IOException e) {
+                System.err.println("Error closing transaction index: " + e.getMessage());
+            }
+            appender = null;
+        }
+    }
+
+    private void add(String accountNumber, String customerID, long offset, int length) {
+        long position = (offset << 24) | length;
+        byAccount.computeIfAbsent(accountNumber, key -> new OffsetList()).add(position);
+        byCustomer.computeIfAbsent(customerID, key -> new OffsetList()).add(position);
+    }
+
+    private void clear() {
+        byAccount.clear();
+        byCustomer.clear();
+        indexedLength = 0;
+    }
+
+    private static String toIndexLine(Transaction transaction, long offset, int length, long nextOffset) {
+        StringBuilder line = new StringBuilder(64).append(offset).append(',').append(length).append(',').append(nextOffset).append(',');
+        CsvCodec.appendField(line, transaction.getAccountNumber()).append(',');
+        return CsvCodec.appendField(line, transaction.getCustomerID()).toString();
+    }
+
+    /**
+     * Growable list of packed log positions.
+     */
+    private static final class OffsetList {
+        private long[] positions = new long[4];
+        private int size;
+
+        void add(long position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+
+        long[] slice(int from, int maxCount) {
+            int start = Math.min(Math.max(from, 0), size);
+            int end = (int) Math.min((long) start + maxCount, size);
+            return Arrays.copyOfRange(positions, start, end);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Converts transaction logs between the text CSV format and the binary journal format.
+ * Lets existing installations migrate {@code transactions.csv} to a
+ * {@link BinaryTransactionJournal} and export a journal back to CSV.
+ * <p>
+ * Usage: {@code java TransactionLogConverter to-journal transactions.csv transactions.journal}
+ * or {@code java TransactionLogConverter to-csv transactions.journal transactions.csv}.
+ * The index file of the destination log is rebuilt on first use.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class TransactionLogConverter {
+
+    private static final int BATCH_SIZE = 4096;
+
+    /**
+     * Copies every record of a CSV log into a new binary journal.
+     *
+     * @param csvFile the existing CSV log
+     * @param journalFile the journal to create (must not exist)
+     * @return the number of records converted
+     * @throws IOException if either file cannot be read or written
+     */
+    public static long csvToJournal(String csvFile, String journalFile) throws IOException {
+        requireNew(journalFile);
+        try (StoreHandle source = new StoreHandle(new CsvTransactionStore(csvFile));
+             StoreHandle target = new StoreHandle(new BinaryTransactionJournal(journalFile))) {
+            return copy(source.store, target.store);
+        }
+    }
+
+    /**
+     * Copies every record of a binary journal into a new CSV log.
+     *
+     * @param journalFile the existing journal
+     * @param csvFile the CSV log to create (must not exist)
+     * @return the number of records converted
+     * @throws IOException if either file cannot be read or written
+     */
+    public static long journalToCsv(String journalFile, String csvFile) throws IOException {
+        requireNew(csvFile);
+        try (StoreHandle source = new StoreHandle(new BinaryTransactionJournal(journalFile));
+             StoreHandle target = new StoreHandle(new CsvTransactionStore(csvFile))) {
+            return copy(source.store, target.store);
+        }
+    }
+
+    private static long copy(TransactionStore source, TransactionStore target) throws IOException {
+        Transaction[] batch = new Transaction[BATCH_SIZE];
+        long[] offsets = new long[BATCH_SIZE];
+        int[] lengths = new int[BATCH_SIZE];
+        int[] pending = new int[1];
+        long[] copied = new long[1];
+        IOException[] failure = new IOException[1];
+        source.scan(0, (transaction, offset, length, nextOffset) -> {
+            if (failure[0] != null) {
+                return;
+            }
+            batch[pending[0]++] = transaction;
+            if (pending[0] == BATCH_SIZE) {
+                try {
+                    target.append(batch, pending[0], offsets, lengths);
+                    copied[0] += pending[0];
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+                pending[0] = 0;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        if (pending[0] > 0) {
+            target.append(batch, pending[0], offsets, lengths);
+            copied[0] += pending[0];
+        }
+        target.force();
+        return copied[0];
+    }
+
+    private static void requireNew(String fileName) throws IOException {
+        if (Files.exists(Paths.get(fileName))) {
+            throw new IOException("Destination already exists: " + fileName);
+        }
+    }
+
+    /**
+     * Adapts a store to try-with-resources.
+     */
+    private static final class StoreHandle implements AutoCloseable {
+        private final TransactionStore store;
+
+        StoreHandle(TransactionStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public void close() throws IOException {
+            store.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 3 || !(args[0].equals("to-journal") || args[0].equals("to-csv"))) {
+            System.out.println("Usage: java TransactionLogConverter (to-journal|to-csv) <source> <destination>");
+            return;
+        }
+        try {
+            long count = args[0].equals("to-journal") ? csvToJournal(args[1], args[2]) : journalToCsv(args[1], args[2]);
+            System.out.println("Converted " + count + " transactions to " + args[2]);
+        } catch (IOException e) {
+            System.err.println("Error converting transaction log: " + e.getMessage());
+        }
+    }
+}
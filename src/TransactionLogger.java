@@ -1,60 +1,505 @@
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handles logging and retrieval of banking transactions.
- * Persists transactions to CSV file for audit trail and history tracking.
- * 
+ * Persists transactions to CSV file for audit trail and history tracking,
+ * to a {@link BinaryTransactionJournal} when {@link #useBinaryJournal} is selected, or to
+ * time-partitioned {@link SegmentedTransactionStore} segments when {@link #useSegmentedLog} is.
+ * A {@link TransactionIndex} kept next to the log lets history queries
+ * read only the records for one account or customer.
+ * By default each transaction is written synchronously; {@link #enableBatching}
+ * switches to a {@link TransactionWriter} that group-commits transactions.
+ *
  * @author Bank Management System
  * @version 1.0
  */
 public class TransactionLogger {
 
     private static final String FILE_NAME = "transactions.csv";
+    private static final String INDEX_FILE_NAME = "transactions.idx";
+    // Page tokens: account pages resume at an ordinal in the account's index,
+    // unfiltered pages at a byte offset in the store
+    private static final String ACCOUNT_TOKEN_PREFIX = "a:";
+    private static final String OFFSET_TOKEN_PREFIX = "o:";
+    private static final int STREAM_PAGE_SIZE = 256;
+
+    private static String logFileName = FILE_NAME;
+    private static String indexFileName = INDEX_FILE_NAME;
+    private static Backend backend = Backend.CSV;
+    private static long segmentMillis = SegmentedTransactionStore.DEFAULT_SEGMENT_MILLIS;
+    private static TransactionStore store;
+    private static TransactionIndex index;
+    private static volatile TransactionWriter writer;
+
+    private enum Backend { CSV, BINARY_JOURNAL, SEGMENTED }
 
     /**
      * Logs a transaction to the persistent storage file.
-     * 
+     * In batching mode the transaction is queued and the returned future completes
+     * once its batch has been written (and forced, if the fsync policy requires it).
+     *
      * @param transaction the transaction to log (cannot be null)
+     * @return a future that completes when the transaction is durable
      * @throws IllegalArgumentException if transaction is null
      */
-    public static void log(Transaction transaction) {
+    public static CompletableFuture<Void> log(Transaction transaction) {
+        long start = System.nanoTime();
         if (transaction == null) {
+            BankMetrics.TRANSACTION_LOG.rejected(start);
             throw new IllegalArgumentException("Transaction cannot be null.");
         }
-        writeTransactionToFile(transaction);
+        CompletableFuture<Void> logged = null;
+        TransactionWriter batchingWriter = writer;
+        if (batchingWriter != null) {
+            try {
+                logged = batchingWriter.submit(transaction);
+            } catch (IllegalStateException e) {
+                // Batching was switched off concurrently; fall through to a synchronous write
+            }
+        }
+        if (logged == null) {
+            logged = writeTransactionToFile(transaction);
+        }
+        // In batching mode this measures the hand-off to the writer, not the write itself
+        if (logged.isCompletedExceptionally()) {
+            BankMetrics.TRANSACTION_LOG.failed(start);
+        } else {
+            BankMetrics.TRANSACTION_LOG.succeeded(start);
+        }
+        return logged;
+    }
+
+    /**
+     * Logs a group of transactions with one write to the log and one update of the index.
+     * In batching mode they are queued as one entry and committed by the batching writer
+     * in the same batch, so either all of them are logged or none is.
+     *
+     * @param transactions the transactions to log, in order (cannot contain null)
+     * @return a future that completes when every transaction is durable
+     * @throws IllegalArgumentException if a transaction is null
+     */
+    public static CompletableFuture<Void> logAll(List<Transaction> transactions) {
+        long start = System.nanoTime();
+        Transaction[] batch = transactions.toArray(new Transaction[0]);
+        for (Transaction transaction : batch) {
+            if (transaction == null) {
+                BankMetrics.TRANSACTION_LOG.rejected(start);
+                throw new IllegalArgumentException("Transaction cannot be null.");
+            }
+        }
+        if (batch.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> logged = null;
+        TransactionWriter batchingWriter = writer;
+        if (batchingWriter != null) {
+            try {
+                logged = batchingWriter.submitAll(batch);
+            } catch (IllegalStateException e) {
+                // Batching was switched off concurrently; fall through to a synchronous write
+            }
+        }
+        if (logged == null) {
+            logged = writeTransactionsToFile(batch);
+        }
+        // Counted once per transaction, as if each had been logged on its own
+        for (int i = 0; i < batch.length; i++) {
+            if (logged.isCompletedExceptionally()) {
+                BankMetrics.TRANSACTION_LOG.failed(start);
+            } else {
+                BankMetrics.TRANSACTION_LOG.succeeded(start);
+            }
+        }
+        return logged;
+    }
+
+    /**
+     * Switches the logger to batching mode.
+     * Transactions are handed to a writer thread that commits them in groups.
+     * Any previous batching writer is flushed and closed first.
+     *
+     * @param batchSize the maximum number of transactions per commit
+     * @param lingerMillis how long the writer waits for a batch to fill
+     * @param fsyncPolicy when the log is forced to disk
+     * @throws IllegalArgumentException if the configuration is invalid or the log cannot be opened
+     */
+    public static synchronized void enableBatching(int batchSize, long lingerMillis, TransactionWriter.FsyncPolicy fsyncPolicy) {
+        disableBatching();
+        try {
+            writer = new TransactionWriter(getStore(), getIndex(), batchSize, lingerMillis, fsyncPolicy);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot open transaction log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flushes any queued transactions and returns the logger to synchronous mode.
+     */
+    public static synchronized void disableBatching() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /**
+     * Number of transactions queued but not yet written.
+     *
+     * @return the batching writer's queue depth, or zero in synchronous mode
+     */
+    public static int getQueueDepth() {
+        TransactionWriter batchingWriter = writer;
+        return batchingWriter == null ? 0 : batchingWriter.getQueueDepth();
     }
 
     /**
      * Retrieves all logged transactions from the storage file.
-     * 
+     *
      * @return List of all transactions
      */
     public static List<Transaction> getTransactions() {
         return readTransactionsFromFile();
     }
 
-    private static void writeTransactionToFile(Transaction transaction) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(FILE_NAME, true))) {
-            writer.write(transaction.toCSV());
-            writer.newLine();
+    /**
+     * Retrieves the transactions logged against one account.
+     * Only the indexed records for that account are read from the log.
+     *
+     * @param accountNumber the account number to look up
+     * @return List of the account's transactions in the order they were logged
+     */
+    public static List<Transaction> getTransactionsForAccount(String accountNumber) {
+        if (accountNumber == null) {
+            throw new IllegalArgumentException("Account number cannot be null.");
+        }
+        try {
+            return readIndexedTransactions(getIndex().positionsForAccount(accountNumber));
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads one page of the transaction log, oldest first.
+     * Only the transactions on the page are held in memory, so this works for
+     * logs of any size. Account pages read just that account's indexed records.
+     *
+     * @param accountNumber only return this account's transactions; null for all transactions
+     * @param pageSize the most transactions to return (must be greater than zero)
+     * @param pageToken the token from the previous page, or null to start at the beginning
+     * @return the page, with a token for the next one if more transactions follow
+     * @throws IllegalArgumentException if the page size or token is invalid
+     */
+    public static TransactionPage getTransactionPage(String accountNumber, int pageSize, String pageToken) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero.");
+        }
+        String prefix = accountNumber == null ? OFFSET_TOKEN_PREFIX : ACCOUNT_TOKEN_PREFIX;
+        long resumeAt = 0;
+        if (pageToken != null) {
+            try {
+                if (!pageToken.startsWith(prefix)) {
+                    throw new NumberFormatException();
+                }
+                resumeAt = Long.parseLong(pageToken.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+            if (resumeAt < 0 || (accountNumber != null && resumeAt > Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("Invalid page token.");
+            }
+        }
+        try {
+            if (accountNumber != null) {
+                // Ask for one extra position to learn whether another page follows
+                long[] positions = getIndex().positionsForAccount(accountNumber, (int) resumeAt,
+                        pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1);
+                boolean more = positions.length > pageSize;
+                List<Transaction> transactions = readIndexedTransactions(more ? Arrays.copyOf(positions, pageSize) : positions);
+                return new TransactionPage(transactions, more ? ACCOUNT_TOKEN_PREFIX + (resumeAt + pageSize) : null);
+            }
+            TransactionStore transactionStore = getStore();
+            List<Transaction> transactions = new ArrayList<>(pageSize);
+            long next = transactionStore.scan(resumeAt, pageSize,
+                    (transaction, offset, length, nextOffset) -> transactions.add(transaction));
+            return new TransactionPage(transactions, next < transactionStore.size() ? OFFSET_TOKEN_PREFIX + next : null);
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+            return new TransactionPage(new ArrayList<>(), null);
+        }
+    }
+
+    /**
+     * Streams the transaction log lazily, oldest first, one page at a time.
+     * Memory use does not grow with the size of the log.
+     *
+     * @param accountNumber only stream this account's transactions; null for all transactions
+     * @return a sequential stream of transactions
+     */
+    public static Stream<Transaction> streamTransactions(String accountNumber) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PageIterator(accountNumber),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Retrieves the transactions logged in a time range, oldest first.
+     * Only the segmented log (see {@link #useSegmentedLog}) stamps transactions with
+     * the time they were logged, so only it can answer time range queries; it reads
+     * just the segments whose time bounds overlap the range.
+     *
+     * @param fromTimestamp start of the range in epoch milliseconds, inclusive
+     * @param toTimestamp end of the range in epoch milliseconds, exclusive
+     * @return List of the transactions logged in the range
+     * @throws IllegalArgumentException if the range ends before it starts
+     * @throws IllegalStateException if the logger is not using the segmented log
+     */
+    public static List<Transaction> getTransactionsBetween(long fromTimestamp, long toTimestamp) {
+        if (toTimestamp < fromTimestamp) {
+            throw new IllegalArgumentException("Time range cannot end before it starts.");
+        }
+        if (backend != Backend.SEGMENTED) {
+            throw new IllegalStateException("Time range queries need the segmented transaction log.");
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        try {
+            getStore().scanBetween(fromTimestamp, toTimestamp,
+                    (transaction, offset, length, nextOffset) -> transactions.add(transaction));
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+        }
+        return transactions;
+    }
+
+    /**
+     * Retrieves the transactions logged by one customer across all of their accounts.
+     *
+     * @param customerID the customer ID to look up
+     * @return List of the customer's transactions in the order they were logged
+     */
+    public static List<Transaction> getTransactionsForCustomer(String customerID) {
+        if (customerID == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null.");
+        }
+        try {
+            return readIndexedTransactions(getIndex().positionsForCustomer(customerID));
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Points the logger at a different CSV log and index file.
+     * Used by tests and tools that must not touch the default files.
+     *
+     * @param logFile the transaction log file
+     * @param indexFile the index file for that log
+     */
+    public static synchronized void useFiles(String logFile, String indexFile) {
+        switchStore(logFile, indexFile, Backend.CSV);
+    }
+
+    /**
+     * Switches the logger to the memory-mapped binary journal backend.
+     * Use {@link TransactionLogConverter} to migrate an existing CSV log first.
+     *
+     * @param journalFile the binary journal file
+     * @param indexFile the index file for that journal
+     */
+    public static synchronized void useBinaryJournal(String journalFile, String indexFile) {
+        switchStore(journalFile, indexFile, Backend.BINARY_JOURNAL);
+    }
+
+    /**
+     * Switches the logger to a log rolled into time-partitioned segments, which stamps
+     * each transaction with a sequence number and the time it was logged.
+     *
+     * @param directory the directory holding the segment files
+     * @param indexFile the index file for that log
+     * @param segmentMillis the length of each segment's time window in milliseconds
+     * @throws IllegalArgumentException if the segment length is not positive
+     */
+    public static synchronized void useSegmentedLog(String directory, String indexFile, long segmentMillis) {
+        if (segmentMillis <= 0) {
+            throw new IllegalArgumentException("Segment length must be greater than zero.");
+        }
+        switchStore(directory, indexFile, Backend.SEGMENTED);
+        TransactionLogger.segmentMillis = segmentMillis;
+    }
+
+    private static void switchStore(String logFile, String indexFile, Backend selected) {
+        disableBatching();
+        closeStore();
+        logFileName = logFile;
+        indexFileName = indexFile;
+        backend = selected;
+    }
+
+    private static synchronized TransactionStore getStore() throws IOException {
+        if (store == null) {
+            switch (backend) {
+                case BINARY_JOURNAL:
+                    store = new BinaryTransactionJournal(logFileName);
+                    break;
+                case SEGMENTED:
+                    store = new SegmentedTransactionStore(logFileName, segmentMillis);
+                    break;
+                default:
+                    store = new CsvTransactionStore(logFileName);
+                    break;
+            }
+        }
+        return store;
+    }
+
+    private static synchronized TransactionIndex getIndex() throws IOException {
+        if (index == null) {
+            TransactionIndex loaded = new TransactionIndex(indexFileName);
+            loaded.load(getStore());
+            index = loaded;
+        }
+        return index;
+    }
+
+    private static void closeStore() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing transaction log: " + e.getMessage());
+            }
+        }
+        if (index != null) {
+            index.close();
+        }
+        store = null;
+        index = null;
+    }
+
+    private static synchronized CompletableFuture<Void> writeTransactionToFile(Transaction transaction) {
+        BankEvents.TransactionWrite event = new BankEvents.TransactionWrite();
+        event.begin();
+        try {
+            TransactionStore transactionStore = getStore();
+            TransactionIndex transactionIndex = getIndex();
+            Transaction[] batch = { transaction };
+            long[] offsets = new long[1];
+            int[] lengths = new int[1];
+            long nextOffset = transactionStore.append(batch, 1, offsets, lengths);
+            transactionIndex.record(transaction, offsets[0], lengths[0], nextOffset);
+            event.record(transaction, lengths[0], true);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            event.record(transaction, 0, false);
+            System.err.println("Error writing transaction to file: " + e.getMessage());
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private static synchronized CompletableFuture<Void> writeTransactionsToFile(Transaction[] batch) {
+        if (batch.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        BankEvents.TransactionBatchWrite event = new BankEvents.TransactionBatchWrite();
+        event.begin();
+        try {
+            TransactionStore transactionStore = getStore();
+            TransactionIndex transactionIndex = getIndex();
+            long[] offsets = new long[batch.length];
+            int[] lengths = new int[batch.length];
+            long nextOffset = transactionStore.append(batch, batch.length, offsets, lengths);
+            transactionIndex.recordBatch(batch, offsets, lengths, batch.length, nextOffset);
+            event.record(batch.length, nextOffset - offsets[0], true);
+            return CompletableFuture.completedFuture(null);
         } catch (IOException e) {
+            event.record(batch.length, 0, false);
             System.err.println("Error writing transaction to file: " + e.getMessage());
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    // A record that cannot be read, such as one in an archived segment, is skipped
+    // rather than losing the rest of the history
+    private static List<Transaction> readIndexedTransactions(long[] positions) throws IOException {
+        List<Transaction> transactions = new ArrayList<>(positions.length);
+        TransactionStore transactionStore = getStore();
+        int skipped = 0;
+        String firstError = null;
+        for (long position : positions) {
+            try {
+                transactions.add(transactionStore.read(TransactionIndex.offsetOf(position), TransactionIndex.lengthOf(position)));
+            } catch (IOException e) {
+                if (skipped++ == 0) {
+                    firstError = e.getMessage();
+                }
+            }
+        }
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " transactions that could not be read: " + firstError);
         }
+        return transactions;
     }
 
     private static List<Transaction> readTransactionsFromFile() {
         List<Transaction> transactions = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_NAME))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Transaction transaction = Transaction.fromCSV(line);
-                transactions.add(transaction);
-            }
+        try {
+            getStore().scan(0, (transaction, offset, length, nextOffset) -> transactions.add(transaction));
         } catch (IOException e) {
             System.err.println("Error reading transactions from file: " + e.getMessage());
         }
         return transactions;
     }
+
+    /**
+     * Walks the log page by page, holding only the current page.
+     */
+    private static final class PageIterator implements Iterator<Transaction> {
+        private final String accountNumber;
+        private List<Transaction> page = new ArrayList<>();
+        private int position;
+        private String nextPageToken;
+        private boolean started;
+
+        PageIterator(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (position == page.size()) {
+                if (started && nextPageToken == null) {
+                    return false;
+                }
+                TransactionPage next = getTransactionPage(accountNumber, STREAM_PAGE_SIZE, nextPageToken);
+                started = true;
+                page = next.getTransactions();
+                position = 0;
+                nextPageToken = next.getNextPageToken();
+            }
+            return true;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(position++);
+        }
+    }
 }
@@ -0,0 +1,42 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of transaction history.
+ * The next page token is opaque; pass it back to
+ * {@link TransactionLogger#getTransactionPage} with the same filter to resume
+ * where this page ended.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final String nextPageToken;
+
+    public TransactionPage(List<Transaction> transactions, String nextPageToken) {
+        if (transactions == null) {
+            throw new IllegalArgumentException("Transactions cannot be null.");
+        }
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * Returns the token for the page after this one.
+     *
+     * @return the token, or null if this is the last page
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+}
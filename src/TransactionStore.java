@@ -0,0 +1,114 @@
+import java.io.IOException;
+
+/**
+ * Append-only storage backend for the transaction log.
+ * Records are addressed by their byte offset and length in the store, which is
+ * what {@link TransactionIndex} keeps for each account and customer.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public interface TransactionStore {
+
+    /**
+     * Receives records during a scan of the store.
+     */
+    interface RecordVisitor {
+        /**
+         * Called once per record in store order.
+         *
+         * @param transaction the decoded transaction
+         * @param offset byte offset of the record
+         * @param length byte length of the record
+         * @param nextOffset byte offset where the next record starts
+         */
+        void visit(Transaction transaction, long offset, int length, long nextOffset);
+    }
+
+    /**
+     * Appends a batch of transactions as consecutive records.
+     *
+     * @param transactions the transactions to append
+     * @param count number of transactions to take from the array
+     * @param offsets receives the byte offset of each appended record
+     * @param lengths receives the byte length of each appended record
+     * @return the offset just past the last appended record
+     * @throws IOException if the records cannot be written
+     */
+    long append(Transaction[] transactions, int count, long[] offsets, int[] lengths) throws IOException;
+
+    /**
+     * Forces appended records to stable storage.
+     *
+     * @throws IOException if the store cannot be forced
+     */
+    void force() throws IOException;
+
+    /**
+     * Reads a single record.
+     *
+     * @param offset byte offset of the record
+     * @param length byte length of the record
+     * @return the decoded transaction
+     * @throws IOException if the record cannot be read or is corrupt
+     */
+    Transaction read(long offset, int length) throws IOException;
+
+    /**
+     * Visits every record from the given offset to the end of the store.
+     * Invalid records are reported and skipped.
+     *
+     * @param fromOffset offset to start scanning at (a record boundary)
+     * @param visitor receives each record
+     * @throws IOException if the store cannot be read
+     */
+    default void scan(long fromOffset, RecordVisitor visitor) throws IOException {
+        scan(fromOffset, Integer.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Visits at most the given number of records from the given offset.
+     * Invalid records are reported and skipped, and do not count towards the limit.
+     *
+     * @param fromOffset offset to start scanning at (a record boundary)
+     * @param maxRecords the most records to visit
+     * @param visitor receives each record
+     * @return the offset to resume scanning from; equal to {@link #size()} once the store is exhausted
+     * @throws IOException if the store cannot be read
+     */
+    long scan(long fromOffset, int maxRecords, RecordVisitor visitor) throws IOException;
+
+    /**
+     * Visits the records logged in a time range, in store order.
+     * Only stamped transactions have a timestamp; this default scans the whole store,
+     * and stores that keep time bounds skip the parts outside the range.
+     *
+     * @param fromTimestamp start of the range in epoch milliseconds, inclusive
+     * @param toTimestamp end of the range in epoch milliseconds, exclusive
+     * @param visitor receives each record in the range
+     * @throws IOException if the store cannot be read
+     */
+    default void scanBetween(long fromTimestamp, long toTimestamp, RecordVisitor visitor) throws IOException {
+        scan(0, (transaction, offset, length, nextOffset) -> {
+            if (transaction.getSequence() != 0 && transaction.getTimestamp() >= fromTimestamp
+                    && transaction.getTimestamp() < toTimestamp) {
+                visitor.visit(transaction, offset, length, nextOffset);
+            }
+        });
+    }
+
+    /**
+     * Offset just past the last record in the store.
+     *
+     * @return the logical end of the store
+     * @throws IOException if the size cannot be determined
+     */
+    long size() throws IOException;
+
+    /**
+     * Releases the underlying file.
+     *
+     * @throws IOException if the store cannot be closed
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies transfers between accounts as one atomic unit.
+ * The debit, the credit and the transaction log records of a transfer all happen
+ * while holding the locks of both accounts. The source is debited first, since that
+ * is the funds check; the records are then logged together in one append, and the
+ * target is only credited once they are logged. A failed log is undone by crediting
+ * the source back, so a transfer never needs to take money back from the target,
+ * which may already have spent it. Locks come from a fixed stripe table
+ * keyed by account number and are always taken in ascending stripe order, so
+ * opposing transfers (A to B while B to A) can never deadlock, and transfers
+ * between unrelated accounts run in parallel.
+ * <p>
+ * Single-account deposits and withdrawals stay lock-free (see {@link Account});
+ * their funds checks are atomic on their own.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class TransferEngine {
+
+    private static final TransferEngine SHARED = new TransferEngine(1024);
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates an engine with the given number of lock stripes.
+     *
+     * @param stripes number of lock stripes, rounded up to a power of two (must be positive)
+     */
+    public TransferEngine(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Stripe count must be greater than zero.");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Engine shared by {@link Account}, {@link Bank}, {@link Teller} and {@link ATM}
+     * so that every transfer path uses the same lock order.
+     *
+     * @return the shared transfer engine
+     */
+    public static TransferEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Moves funds from one account to another and logs the given records atomically.
+     * If the debit fails nothing changes. If the records cannot be logged synchronously,
+     * none of them is logged, the source is credited back and the target is never credited.
+     *
+     * @param source the account to debit
+     * @param target the account to credit
+     * @param amount the amount to transfer (must be greater than zero)
+     * @param records transaction records to log as part of the transfer
+     * @return a future that completes when the records are durable
+     * @throws IllegalArgumentException if an account is null, the amount is invalid, funds are insufficient
+     *         or the target's balance would exceed its limit
+     * @throws IllegalStateException if a record could not be logged
+     */
+    public CompletableFuture<Void> transfer(Account source, Account target, double amount, Transaction... records) {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException("Source and target accounts cannot be null.");
+        }
+        if (!(amount > 0)) {
+            throw new IllegalArgumentException("Transfer amount must be greater than zero.");
+        }
+        Account.toPostingMinorUnits(amount);
+        int first = stripeOf(source);
+        int second = stripeOf(target);
+        ReentrantLock lower = locks[Math.min(first, second)];
+        ReentrantLock upper = locks[Math.max(first, second)];
+        lower.lock();
+        if (upper != lower) {
+            upper.lock();
+        }
+        try {
+            long amountMinor = Account.toMinorUnits(amount);
+            // Checked up front so the target's credit cannot fail once the records are logged
+            if (target.getBalanceMinor() > Long.MAX_VALUE - amountMinor) {
+                throw new IllegalArgumentException("Balance limit exceeded.");
+            }
+            source.withdraw(amount);
+            CompletableFuture<Void> logged = logRecords(records);
+            if (logged.isCompletedExceptionally()) {
+                source.credit(amountMinor);
+                throw new IllegalStateException("Transfer could not be logged and was rolled back.");
+            }
+            target.deposit(amount);
+            return logged;
+        } finally {
+            if (upper != lower) {
+                upper.unlock();
+            }
+            lower.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> logRecords(Transaction[] records) {
+        if (records == null || records.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return TransactionLogger.logAll(Arrays.asList(records));
+    }
+
+    private int stripeOf(Account account) {
+        int hash = account.getAccountNumber().hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
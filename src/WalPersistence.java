@@ -0,0 +1,258 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead log plus snapshot persistence for a {@link Bank}.
+ * Every customer, account and balance change is appended to a {@link WriteAheadLog}
+ * as it happens, and the full customer and account files written by {@link DataManager}
+ * serve as periodic snapshots taken in the background. Startup loads the latest
+ * snapshot and replays only the log records written after it.
+ * <p>
+ * Balance records carry the balance after the update rather than the delta, so
+ * replaying a record that a snapshot already contains is harmless.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class WalPersistence implements BankListener {
+
+    private static final String SNAPSHOT_META_FILE = "snapshot.meta";
+
+    private final Bank bank;
+    private final WriteAheadLog log;
+    private final File directory;
+    private final ScheduledExecutorService scheduler;
+
+    private WalPersistence(Bank bank, WriteAheadLog log, File directory, long snapshotIntervalSeconds) {
+        this.bank = bank;
+        this.log = log;
+        this.directory = directory;
+        if (snapshotIntervalSeconds > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "bank-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Opens persistence that forces every log record to disk as it is written.
+     *
+     * @see #open(Bank, File, long, WriteAheadLog.FsyncPolicy)
+     */
+    public static WalPersistence open(Bank bank, File directory, long snapshotIntervalSeconds) throws IOException {
+        return open(bank, directory, snapshotIntervalSeconds, WriteAheadLog.FsyncPolicy.EVERY_APPEND);
+    }
+
+    /**
+     * Loads the latest snapshot into the bank, replays the log tail on top of it,
+     * and starts recording changes.
+     *
+     * @param bank the bank to populate (should be empty)
+     * @param directory the directory holding the log segments and snapshot marker
+     * @param snapshotIntervalSeconds how often to take a background snapshot; zero disables them
+     * @param fsyncPolicy when log records are forced to disk
+     * @return the running persistence, already registered as a listener on the bank
+     * @throws IOException if the log cannot be opened or replayed
+     */
+    public static WalPersistence open(Bank bank, File directory, long snapshotIntervalSeconds,
+            WriteAheadLog.FsyncPolicy fsyncPolicy) throws IOException {
+        if (bank == null || directory == null) {
+            throw new IllegalArgumentException("Bank and directory cannot be null.");
+        }
+        Map<String, Customer> customers = DataManager.loadCustomersParallel();
+        DataManager.loadAccountsParallel(customers, bank);
+        for (Customer customer : customers.values()) {
+            bank.addCustomer(customer);
+        }
+
+        WriteAheadLog log = new WriteAheadLog(directory, fsyncPolicy);
+        long snapshotSequence = readSnapshotSequence(directory);
+        int[] replayed = new int[1];
+        log.replay(snapshotSequence, (sequence, type, payload) -> {
+            try {
+                apply(bank, type, payload);
+                replayed[0]++;
+            } catch (RuntimeException e) {
+                System.err.println("Skipping log record " + sequence + ": " + e.getMessage());
+            }
+        });
+        System.out.println("Replayed " + replayed[0] + " log records after snapshot " + snapshotSequence + ".");
+
+        WalPersistence persistence = new WalPersistence(bank, log, directory, snapshotIntervalSeconds);
+        bank.addListener(persistence);
+        return persistence;
+    }
+
+    /**
+     * Writes a snapshot of the bank and drops the log segments it covers.
+     * The log is rotated first, so every record in the older segments is
+     * reflected in the snapshot. The snapshot files and the marker are forced to
+     * disk before the segments are deleted, so a power failure cannot lose both.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public synchronized void snapshot() throws IOException {
+        long sequence = log.rotate();
+        long generation = log.getGeneration();
+        DataManager.writeSnapshot(bank.snapshotCustomers(), bank.snapshotAccounts());
+        writeSnapshotSequence(sequence);
+        log.deleteSegmentsBefore(generation);
+    }
+
+    /**
+     * Stops background snapshots, takes a final snapshot and closes the log.
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        bank.removeListener(this);
+        snapshotQuietly();
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Error closing write-ahead log: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void customerAdded(Customer customer) {
+        append(WriteAheadLog.CUSTOMER_ADDED, customer.toCSV());
+    }
+
+    @Override
+    public void customerRemoved(Customer customer) {
+        append(WriteAheadLog.CUSTOMER_REMOVED, customer.getCustomerID());
+    }
+
+    @Override
+    public void accountAdded(Account account) {
+        append(WriteAheadLog.ACCOUNT_ADDED, account.toCSV());
+    }
+
+    @Override
+    public void accountRemoved(Account account) {
+        append(WriteAheadLog.ACCOUNT_REMOVED, account.getAccountNumber());
+    }
+
+    @Override
+    public void balanceChanged(Account account, long previousMinor, long updatedMinor) {
+        // Re-read the balance under the account's monitor so the last record written
+        // for an account always holds its latest balance, even when concurrent
+        // updates notify out of order.
+        synchronized (account) {
+            append(WriteAheadLog.BALANCE, CsvCodec.appendField(new StringBuilder(48), account.getAccountNumber())
+                    .append(',').append(account.getBalanceMinor()).toString());
+        }
+    }
+
+    private void append(char type, String payload) {
+        try {
+            log.append(type, payload);
+        } catch (IOException e) {
+            System.err.println("Error writing to write-ahead log: " + e.getMessage());
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void apply(Bank bank, char type, String payload) {
+        switch (type) {
+            case WriteAheadLog.CUSTOMER_ADDED: {
+                Customer customer = Customer.fromCSV(payload);
+                if (bank.findCustomer(customer.getCustomerID()) == null) {
+                    bank.addCustomer(customer);
+                }
+                break;
+            }
+            case WriteAheadLog.CUSTOMER_REMOVED: {
+                Customer customer = bank.findCustomer(payload);
+                if (customer != null) {
+                    bank.removeCustomer(customer);
+                }
+                break;
+            }
+            case WriteAheadLog.ACCOUNT_ADDED: {
+                CsvCodec.Fields values = new CsvCodec.Fields().parse(payload);
+                if (values.count() < 4) {
+                    throw new IllegalArgumentException("Invalid CSV data for Account.");
+                }
+                Customer customer = bank.findCustomer(values.get(3));
+                if (customer == null) {
+                    throw new IllegalArgumentException("Customer not found for ID: " + values.get(3));
+                }
+                removeAccount(bank, values.get(0));
+                Account account = Account.fromFields(values, customer);
+                customer.addAccount(account);
+                bank.addAccount(account);
+                break;
+            }
+            case WriteAheadLog.ACCOUNT_REMOVED:
+                removeAccount(bank, payload);
+                break;
+            case WriteAheadLog.BALANCE: {
+                CsvCodec.Fields values = new CsvCodec.Fields().parse(payload);
+                Account account = values.count() == 2 ? bank.findAccount(values.get(0)) : null;
+                if (account == null) {
+                    throw new IllegalArgumentException("Account not found for balance record: " + payload);
+                }
+                account.setBalanceMinor(values.getLong(1));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown log record type: " + type);
+        }
+    }
+
+    private static void removeAccount(Bank bank, String accountNumber) {
+        Account existing = bank.findAccount(accountNumber);
+        if (existing != null) {
+            bank.removeAccount(existing);
+            existing.getCustomer().removeAccount(existing);
+        }
+    }
+
+    private static long readSnapshotSequence(File directory) {
+        File meta = new File(directory, SNAPSHOT_META_FILE);
+        if (!meta.exists()) {
+            return 0;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(meta))) {
+            String line = reader.readLine();
+            return line == null ? 0 : Long.parseLong(line.trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading snapshot marker, replaying the whole log: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeSnapshotSequence(long sequence) throws IOException {
+        File temp = new File(directory, SNAPSHOT_META_FILE + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+            writer.write(Long.toString(sequence));
+            writer.newLine();
+        }
+        DataManager.sync(temp.toPath());
+        DataManager.replace(temp.toPath(), new File(directory, SNAPSHOT_META_FILE).toPath());
+        DataManager.syncDirectory(temp.toPath());
+    }
+}
@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only log of changes to customers, accounts and balances.
+ * Each record is one line: {@code sequence,type,payload}. Sequence numbers increase
+ * across the whole log, so a snapshot can record the last sequence it contains and
+ * startup only replays what came after it. The log is split into numbered segment
+ * files ({@code bank.wal.1}, {@code bank.wal.2}, ...) so segments covered by a
+ * snapshot can be deleted.
+ * <p>
+ * By default every append is forced to stable storage before it returns, so a
+ * change that has been logged survives a power failure. {@link FsyncPolicy#NEVER}
+ * leaves flushing to the operating system: appends are much cheaper and survive a
+ * crash of the process, but a power failure can lose the records written since the
+ * last rotation, which happens at every snapshot.
+ *
+ * @author Bank Management System
+ * @version 1.0
+ */
+public class WriteAheadLog {
+
+    public static final char CUSTOMER_ADDED = 'C';
+    public static final char CUSTOMER_REMOVED = 'X';
+    public static final char ACCOUNT_ADDED = 'A';
+    public static final char ACCOUNT_REMOVED = 'R';
+    public static final char BALANCE = 'B';
+
+    private static final String SEGMENT_PREFIX = "bank.wal.";
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Controls when appended records are forced to stable storage.
+     */
+    public enum FsyncPolicy {
+        /** Leave flushing to the operating system; the log is forced on rotate and close. */
+        NEVER,
+        /** Force the log after every append. */
+        EVERY_APPEND
+    }
+
+    /**
+     * Receives records during replay.
+     */
+    public interface RecordHandler {
+        void apply(long sequence, char type, String payload);
+    }
+
+    private final File directory;
+    private final FsyncPolicy fsyncPolicy;
+    private FileChannel channel;
+    private long generation;
+    private long lastSequence;
+
+    public WriteAheadLog(File directory) throws IOException {
+        this(directory, FsyncPolicy.EVERY_APPEND);
+    }
+
+    /**
+     * Opens the log in the given directory, continuing the newest existing segment.
+     *
+     * @param directory the directory holding the segment files
+     * @param fsyncPolicy when appended records are forced to disk
+     * @throws IOException if the segments cannot be read or opened
+     */
+    public WriteAheadLog(File directory, FsyncPolicy fsyncPolicy) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Log directory cannot be null.");
+        }
+        if (fsyncPolicy == null) {
+            throw new IllegalArgumentException("Fsync policy cannot be null.");
+        }
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        List<Long> generations = listGenerations();
+        this.generation = generations.isEmpty() ? 1 : generations.get(generations.size() - 1);
+        truncateTornRecord(segmentFile(generation));
+        replay(0, (sequence, type, payload) -> lastSequence = Math.max(lastSequence, sequence));
+        this.channel = openSegment(generation);
+    }
+
+    /**
+     * Appends a record and assigns it the next sequence number.
+     * Under {@link FsyncPolicy#EVERY_APPEND} the record is on disk when this returns.
+     *
+     * @param type the record type
+     * @param payload the record payload
+     * @return the record's sequence number
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized long append(char type, String payload) throws IOException {
+        long sequence = lastSequence + 1;
+        byte[] record = (sequence + "," + type + "," + payload).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(record.length + LINE_SEPARATOR.length);
+        buffer.put(record).put(LINE_SEPARATOR).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsyncPolicy == FsyncPolicy.EVERY_APPEND) {
+            channel.force(false);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Starts a new segment. Every record with a sequence up to the returned value
+     * is in an older segment.
+     *
+     * @return the last sequence written before the new segment
+     * @throws IOException if the new segment cannot be opened
+     */
+    public synchronized long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        generation++;
+        channel = openSegment(generation);
+        return lastSequence;
+    }
+
+    /**
+     * Deletes every segment older than the given generation.
+     *
+     * @param keepFromGeneration the oldest generation to keep
+     */
+    public synchronized void deleteSegmentsBefore(long keepFromGeneration) {
+        for (long existing : listGenerations()) {
+            if (existing < keepFromGeneration && !segmentFile(existing).delete()) {
+                System.err.println("Could not delete log segment: " + segmentFile(existing));
+            }
+        }
+    }
+
+    /**
+     * Replays every record with a sequence greater than the given one, oldest first.
+     *
+     * @param afterSequence records up to and including this sequence are skipped
+     * @param handler receives each record
+     * @throws IOException if a segment cannot be read
+     */
+    public void replay(long afterSequence, RecordHandler handler) throws IOException {
+        for (long segment : listGenerations()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(segmentFile(segment), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(",", 3);
+                    if (parts.length != 3 || parts[1].length() != 1) {
+                        System.err.println("Skipping invalid log record: " + line);
+                        continue;
+                    }
+                    long sequence;
+                    try {
+                        sequence = Long.parseLong(parts[0]);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Skipping invalid log record: " + line);
+                        continue;
+                    }
+                    if (sequence > afterSequence) {
+                        handler.apply(sequence, parts[1].charAt(0), parts[2]);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentFile(segment).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Cuts a partially written last record left by a crash, so it is neither
+     * replayed nor joined with the next appended record.
+     */
+    private static void truncateTornRecord(File segment) throws IOException {
+        if (!segment.exists()) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(segment.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = file.size();
+            ByteBuffer single = ByteBuffer.allocate(1);
+            while (end > 0) {
+                single.clear();
+                file.read(single, end - 1);
+                if (single.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < file.size()) {
+                System.err.println("Discarding torn log record at end of " + segment.getName());
+                file.truncate(end);
+            }
+        }
+    }
+
+    private File segmentFile(long segment) {
+        return new File(directory, SEGMENT_PREFIX + segment);
+    }
+
+    private List<Long> listGenerations() {
+        List<Long> generations = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    generations.add(Long.parseLong(file.getName().substring(SEGMENT_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not a log segment
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+}
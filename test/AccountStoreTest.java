@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Test suite for AccountStore.
+ * Tests copying accounts into the store, views, concurrent updates and column scans.
+ */
+public class AccountStoreTest {
+
+    private Customer customer;
+    private AccountStore store;
+
+    @BeforeEach
+    public void setUp() {
+        customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        store = new AccountStore();
+    }
+
+    @Test
+    public void testCopiedAccountsMatchOriginals() {
+        SavingsAccount savings = new SavingsAccount(customer, 1000.0, 2.5);
+        CurrentAccount current = new CurrentAccount(customer, 500.0, 25.0);
+        current.withdraw(100.0);
+        AccountStore copy = AccountStore.of(List.of(savings, current));
+
+        assertEquals(2, copy.size());
+        Account savingsView = copy.find(savings.getAccountNumber());
+        Account currentView = copy.find(current.getAccountNumber());
+        assertTrue(savingsView instanceof SavingsAccount);
+        assertTrue(currentView instanceof CurrentAccount);
+        assertEquals(savings.toCSV(), savingsView.toCSV());
+        assertEquals(current.toCSV(), currentView.toCSV());
+        assertSame(customer, savingsView.getCustomer());
+        assertNull(copy.find(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    public void testViewsUpdateTheStore() {
+        int ordinal = store.addCurrent("ACC-1", customer, 0, 500.0, 25.0);
+        Account first = store.view(ordinal);
+        Account second = store.find("ACC-1");
+
+        first.deposit(100.0);
+        second.withdraw(300.0);
+
+        assertEquals(-200.0, first.getBalance(), 0.001);
+        assertEquals(-20000, store.getBalanceMinor(ordinal));
+        assertThrows(IllegalArgumentException.class, () -> second.withdraw(400.0));
+        assertEquals(1, store.countOverdrawn());
+    }
+
+    @Test
+    public void testViewsReadTheOwnerWithoutTheStoreLock() throws InterruptedException {
+        int ordinal = store.addSavings(UUID.randomUUID().toString(), customer, 0, 2.0);
+        Account view = store.view(ordinal);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (store) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertSame(customer, view.getCustomer());
+                assertEquals("Savings", view.getAccountType());
+                assertEquals(2.0, ((SavingsAccount) view).getInterestRate(), 0.001);
+            });
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    public void testAddToBalanceRefusesOverflow() {
+        int ordinal = store.addSavings("ACC-1", customer, Long.MAX_VALUE - 10, 1.0);
+
+        assertThrows(ArithmeticException.class, () -> store.addToBalance(ordinal, 11));
+        assertEquals(Long.MAX_VALUE - 10, store.getBalanceMinor(ordinal));
+        assertThrows(IllegalArgumentException.class, () -> store.view(ordinal).deposit(1.0));
+        assertEquals(Long.MAX_VALUE, store.addToBalance(ordinal, 10));
+    }
+
+    @Test
+    public void testConcurrentDepositsThroughViews() throws InterruptedException {
+        int ordinal = store.addSavings(UUID.randomUUID().toString(), customer, 0, 1.0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                Account view = store.view(ordinal);
+                for (int i = 0; i < 1000; i++) {
+                    view.deposit(1.0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8000.0, store.view(ordinal).getBalance(), 0.001);
+    }
+
+    @Test
+    public void testScansMatchPerAccountOperations() {
+        List<Account> accounts = new ArrayList<>();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        for (int i = 0; i < 70000; i++) {
+            String number = i % 3 == 0 ? "ACC-" + i : i % 3 == 1 ? UUID.randomUUID().toString() : generator.nextAccountNumber();
+            int ordinal = i % 2 == 0
+                    ? store.addSavings(number, customer, 100000, 2.0)
+                    : store.addCurrent(number, customer, -10000, 500.0, 25.0);
+            assertEquals(i, ordinal);
+            accounts.add(store.view(ordinal));
+        }
+
+        assertEquals(35000L * 100000 - 35000L * 10000, store.totalBalanceMinor());
+        assertEquals(35000, store.countOverdrawn());
+        assertEquals(35000L * 2000, store.accrueInterest());
+        assertEquals(35000L * 2500, store.chargeOverdraftFees());
+        assertEquals(1020.0, accounts.get(69998).getBalance(), 0.001);
+        assertEquals(-125.0, accounts.get(69999).getBalance(), 0.001);
+        for (int i = 0; i < 70000; i += 997) {
+            assertEquals(i, store.ordinalOf(accounts.get(i).getAccountNumber()));
+        }
+    }
+
+    @Test
+    public void testDuplicateNumberRejected() {
+        store.addSavings("ACC-1", customer, 0, 2.0);
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> store.addCurrent("ACC-1", customer, 0, 100.0, 5.0));
+        assertEquals("Account number already in store: ACC-1", exception.getMessage());
+    }
+}
@@ -1,6 +1,10 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Test suite for Account class and its subclasses (SavingsAccount, CurrentAccount).
@@ -41,6 +45,38 @@ public class AccountTest {
         assertEquals("Deposit amount must be greater than zero.", exception.getMessage());
     }
     
+    @Test
+    public void testRejectsAmountsThatCannotPostExactly() {
+        savingsAccount.deposit(100.0);
+        
+        assertThrows(IllegalArgumentException.class, () -> savingsAccount.deposit(Double.NaN));
+        assertEquals("Amount is too large.",
+                assertThrows(IllegalArgumentException.class, () -> savingsAccount.deposit(Double.POSITIVE_INFINITY)).getMessage());
+        assertEquals("Amount must be a whole number of cents.",
+                assertThrows(IllegalArgumentException.class, () -> savingsAccount.deposit(0.001)).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> savingsAccount.withdraw(10.005));
+        assertThrows(IllegalArgumentException.class, () -> currentAccount.withdraw(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> savingsAccount.transfer(currentAccount, 0.5e-2 / 3));
+        assertEquals(100.0, savingsAccount.getBalance(), 0.001);
+        
+        // Amounts whose doubles are not exact still post when they are whole cents
+        savingsAccount.deposit(10.1);
+        savingsAccount.withdraw(0.29);
+        assertEquals(10981, savingsAccount.getBalanceMinor());
+    }
+    
+    @Test
+    public void testBalanceOverflowIsRefused() {
+        double largest = (1L << 53) / 100.0;
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            for (int i = 0; i < 2000; i++) {
+                savingsAccount.deposit(largest);
+            }
+        });
+        assertEquals("Balance limit exceeded.", exception.getMessage());
+        assertTrue(savingsAccount.getBalanceMinor() > 0);
+    }
+    
     @Test
     public void testWithdrawSuccess() {
         savingsAccount.deposit(500.0);
@@ -174,4 +210,62 @@ public class AccountTest {
         assertTrue(csv.contains("Savings"));
         assertTrue(csv.contains("C001"));
     }
+    
+    @Test
+    public void testBalanceHeldInMinorUnits() {
+        savingsAccount.deposit(0.1);
+        savingsAccount.deposit(0.2);
+        
+        assertEquals(30, savingsAccount.getBalanceMinor());
+        assertEquals(0.3, savingsAccount.getBalance(), 0.0);
+    }
+    
+    @Test
+    public void testOverdraftFeeCappedAtLimit() {
+        currentAccount.withdraw(980.0);
+        currentAccount.applyOverdraftFee();
+        
+        assertEquals(-1000.0, currentAccount.getBalance(), 0.01);
+    }
+    
+    @Test
+    public void testConcurrentDepositsAreNotLost() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    savingsAccount.deposit(1.0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        assertEquals(80_000.0, savingsAccount.getBalance(), 0.0);
+    }
+    
+    @Test
+    public void testConcurrentWithdrawalsNeverOverdraw() throws InterruptedException {
+        currentAccount.deposit(500.0);
+        AtomicInteger succeeded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    try {
+                        currentAccount.withdraw(1.0);
+                        succeeded.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        // Overdraft limit reached
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // 500 of balance plus 1000 of overdraft
+        assertEquals(1_500, succeeded.get());
+        assertEquals(-1000.0, currentAccount.getBalance(), 0.0);
+    }
 }
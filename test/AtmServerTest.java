@@ -0,0 +1,209 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test suite for AtmServer, AtmClient and the binary wire protocol.
+ * Tests each operation, refusals, pipelined requests, deferred transfer responses
+ * and malformed frames over loopback connections.
+ */
+public class AtmServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private SavingsAccount savings;
+    private CurrentAccount current;
+    private AtmServer server;
+    private AtmClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        savings = new SavingsAccount(customer, 100.0, 2.0);
+        current = new CurrentAccount(customer, 50.0, 10.0);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+        server = AtmServer.start(bank, new InetSocketAddress("127.0.0.1", 0), 2);
+        client = AtmClient.connect("127.0.0.1", server.getPort());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.close();
+        server.close();
+        TransactionLogger.disableBatching();
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    private static AtmClient.Response await(CompletableFuture<AtmClient.Response> response) throws Exception {
+        return response.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testOperations() throws Exception {
+        CompletableFuture<AtmClient.Response> balance = client.balance(savings.getAccountNumber());
+        CompletableFuture<AtmClient.Response> deposit = client.deposit(savings.getAccountNumber(), 25.5);
+        CompletableFuture<AtmClient.Response> withdrawal = client.withdraw(savings.getAccountNumber(), 10.0);
+        CompletableFuture<AtmClient.Response> transfer = client.transfer(savings.getAccountNumber(), current.getAccountNumber(), 15.5);
+        client.flush();
+
+        assertEquals(100.0, await(balance).getBalance(), 0.001);
+        assertEquals(125.5, await(deposit).getBalance(), 0.001);
+        assertEquals(115.5, await(withdrawal).getBalance(), 0.001);
+        assertTrue(await(transfer).isOk());
+        assertEquals(100.0, await(transfer).getBalance(), 0.001);
+        assertEquals(100.0, savings.getBalance(), 0.001);
+        assertEquals(15.5, current.getBalance(), 0.001);
+        assertEquals(4, TransactionLogger.getTransactions().size());
+    }
+
+    @Test
+    public void testRefusalsAndUnknownAccounts() throws Exception {
+        CompletableFuture<AtmClient.Response> overdrawn = client.withdraw(savings.getAccountNumber(), 500.0);
+        CompletableFuture<AtmClient.Response> negative = client.deposit(savings.getAccountNumber(), -5.0);
+        CompletableFuture<AtmClient.Response> unknown = client.balance("NOSUCHACCOUNT");
+        CompletableFuture<AtmClient.Response> unknownTarget = client.transfer(savings.getAccountNumber(), "NOSUCHACCOUNT", 1.0);
+        client.flush();
+
+        assertEquals(AtmWireProtocol.REJECTED, await(overdrawn).getStatus());
+        assertNotNull(await(overdrawn).getMessage());
+        assertEquals(AtmWireProtocol.REJECTED, await(negative).getStatus());
+        assertEquals(AtmWireProtocol.NOT_FOUND, await(unknown).getStatus());
+        assertEquals(AtmWireProtocol.NOT_FOUND, await(unknownTarget).getStatus());
+        assertEquals(100.0, savings.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testPipelinedRequestsAppliedInOrder() throws Exception {
+        List<CompletableFuture<AtmClient.Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            responses.add(client.deposit(current.getAccountNumber(), 1.0));
+            responses.add(client.withdraw(current.getAccountNumber(), 1.0));
+        }
+        client.flush();
+
+        for (int i = 0; i < responses.size(); i++) {
+            AtmClient.Response response = await(responses.get(i));
+            assertTrue(response.isOk());
+            assertEquals(i % 2 == 0 ? 1.0 : 0.0, response.getBalance(), 0.001);
+        }
+        assertEquals(0, client.getPendingCount());
+    }
+
+    @Test
+    public void testTransfersAnsweredAfterBatchedLogWrite() throws Exception {
+        TransactionLogger.enableBatching(64, 5, TransactionWriter.FsyncPolicy.NEVER);
+        List<CompletableFuture<AtmClient.Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            responses.add(client.transfer(savings.getAccountNumber(), current.getAccountNumber(), 1.0));
+            responses.add(client.balance(savings.getAccountNumber()));
+        }
+        client.flush();
+
+        for (CompletableFuture<AtmClient.Response> response : responses) {
+            assertTrue(await(response).isOk());
+        }
+        assertEquals(0.0, savings.getBalance(), 0.001);
+        assertEquals(100.0, current.getBalance(), 0.001);
+        TransactionLogger.disableBatching();
+        assertEquals(200, TransactionLogger.getTransactions().size());
+    }
+
+    @Test
+    public void testPostingsAnsweredAfterBatchedLogWrite() throws Exception {
+        TransactionLogger.enableBatching(64, 5, TransactionWriter.FsyncPolicy.NEVER);
+        List<CompletableFuture<AtmClient.Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            responses.add(client.deposit(current.getAccountNumber(), 2.0));
+            responses.add(client.withdraw(current.getAccountNumber(), 1.0));
+        }
+        client.flush();
+
+        for (CompletableFuture<AtmClient.Response> response : responses) {
+            assertTrue(await(response).isOk());
+        }
+        assertEquals(100.0, current.getBalance(), 0.001);
+        assertEquals(200, TransactionLogger.getTransactionsForAccount(current.getAccountNumber()).size());
+    }
+
+    @Test
+    public void testPostingsThatCannotBeLoggedAreReportedAsFailed() throws Exception {
+        // A directory cannot be opened as the log, so every write fails
+        TransactionLogger.useFiles(tempDir.toString(), tempDir.resolve("transactions.idx").toString());
+        CompletableFuture<AtmClient.Response> deposit = client.deposit(savings.getAccountNumber(), 5.0);
+        CompletableFuture<AtmClient.Response> withdrawal = client.withdraw(savings.getAccountNumber(), 5.0);
+        client.flush();
+
+        assertEquals(AtmWireProtocol.FAILED, await(deposit).getStatus());
+        assertEquals("Deposit could not be logged.", await(deposit).getMessage());
+        assertEquals(AtmWireProtocol.FAILED, await(withdrawal).getStatus());
+        assertEquals("Withdrawal could not be logged.", await(withdrawal).getMessage());
+    }
+
+    @Test
+    public void testOversizedFrameClosesConnection() throws Exception {
+        try (SocketChannel raw = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+            raw.write(ByteBuffer.allocate(4).putInt(0, AtmWireProtocol.MAX_FRAME_BYTES + 1));
+            raw.socket().setSoTimeout(10_000);
+            assertEquals(-1, raw.socket().getInputStream().read());
+        }
+
+        // Other connections are unaffected
+        CompletableFuture<AtmClient.Response> balance = client.balance(savings.getAccountNumber());
+        client.flush();
+        assertTrue(await(balance).isOk());
+    }
+
+    @Test
+    public void testMalformedRequestIsAnswered() throws Exception {
+        try (SocketChannel raw = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getPort()))) {
+            // A deposit whose account number claims more bytes than the frame holds
+            ByteBuffer request = ByteBuffer.allocate(32);
+            request.putInt(13).putLong(42).put(AtmWireProtocol.DEPOSIT).putShort((short) 100).putShort((short) 0);
+            request.flip();
+            raw.write(request);
+
+            ByteBuffer response = ByteBuffer.allocate(64);
+            while (response.position() < 4 || response.position() < 4 + response.getInt(0)) {
+                assertTrue(raw.read(response) > 0);
+            }
+            response.flip();
+            response.getInt();
+            assertEquals(42, response.getLong());
+            assertEquals(AtmWireProtocol.BAD_REQUEST, response.get());
+        }
+    }
+
+    @Test
+    public void testPendingRequestsFailWhenServerCloses() throws Exception {
+        server.close();
+        CompletableFuture<AtmClient.Response> response;
+        try {
+            response = client.balance(savings.getAccountNumber());
+            client.flush();
+        } catch (IOException e) {
+            return;
+        }
+        CompletableFuture<AtmClient.Response> pending = response;
+        Exception exception = assertThrows(CompletionException.class, () -> pending.orTimeout(10, TimeUnit.SECONDS).join());
+        assertTrue(exception.getCause() instanceof IOException);
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test suite for the BankEvents flight recorder events.
+ * Tests that each stage of a posting and the account loader are recorded with their fields.
+ */
+public class BankEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Recording recording;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(tempDir.resolve("customers.csv").toString(),
+                tempDir.resolve("accounts.csv").toString());
+        recording = new Recording();
+        for (String name : new String[] { "bank.AccountLookup", "bank.BalanceChange", "bank.TransactionWrite",
+                "bank.TransactionBatchWrite", "bank.AccountLoad" }) {
+            recording.enable(name).withThreshold(Duration.ZERO);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        recording.close();
+        TransactionLogger.disableBatching();
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+        DataManager.useFiles("customers.csv", "accounts.csv");
+    }
+
+    @Test
+    public void testPostingStagesAreRecorded() throws IOException {
+        Bank bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        SavingsAccount savings = new SavingsAccount(customer, 100.0, 2.0);
+        CurrentAccount current = new CurrentAccount(customer, 500.0, 25.0);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+
+        recording.start();
+        Account found = bank.findAccount(savings.getAccountNumber());
+        bank.findAccount("MISSING");
+        bank.deposit(customer, found, 50.0);
+        current.withdraw(30.0);
+        assertThrows(IllegalArgumentException.class, () -> savings.withdraw(1000.0));
+        List<RecordedEvent> events = stop();
+
+        List<RecordedEvent> lookups = eventsNamed(events, "bank.AccountLookup");
+        assertEquals(2, lookups.size());
+        assertEquals(savings.getAccountNumber(), lookups.get(0).getString("accountNumber"));
+        assertTrue(lookups.get(0).getBoolean("found"));
+        assertFalse(lookups.get(1).getBoolean("found"));
+
+        List<RecordedEvent> changes = eventsNamed(events, "bank.BalanceChange");
+        assertEquals(2, changes.size());
+        assertEquals("Deposit", changes.get(0).getString("type"));
+        assertEquals(50.0, changes.get(0).getDouble("amount"));
+        assertEquals(150.0, changes.get(0).getDouble("balance"));
+        assertEquals(current.getAccountNumber(), changes.get(1).getString("accountNumber"));
+        assertEquals("Withdrawal", changes.get(1).getString("type"));
+        assertEquals(-30.0, changes.get(1).getDouble("balance"));
+
+        List<RecordedEvent> writes = eventsNamed(events, "bank.TransactionWrite");
+        assertEquals(1, writes.size());
+        assertEquals(savings.getAccountNumber(), writes.get(0).getString("accountNumber"));
+        assertEquals("Deposit", writes.get(0).getString("type"));
+        assertEquals(50.0, writes.get(0).getDouble("amount"));
+        assertTrue(writes.get(0).getInt("bytes") > 0);
+        assertTrue(writes.get(0).getBoolean("succeeded"));
+        assertFalse(writes.get(0).getDuration().isNegative());
+    }
+
+    @Test
+    public void testBatchedWritesAreRecorded() throws IOException {
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        SavingsAccount account = new SavingsAccount(customer, 100.0, 2.0);
+        TransactionLogger.enableBatching(16, 1, TransactionWriter.FsyncPolicy.NEVER);
+
+        recording.start();
+        for (int i = 0; i < 10; i++) {
+            TransactionLogger.log(new Transaction("C001", account.getAccountNumber(), "Deposit", 1.0));
+        }
+        TransactionLogger.disableBatching();
+        List<RecordedEvent> events = stop();
+
+        int logged = 0;
+        for (RecordedEvent event : eventsNamed(events, "bank.TransactionBatchWrite")) {
+            assertTrue(event.getBoolean("succeeded"));
+            assertTrue(event.getLong("bytes") > 0);
+            logged += event.getInt("count");
+        }
+        assertEquals(10, logged);
+    }
+
+    @Test
+    public void testAccountLoadsAreRecorded() throws IOException {
+        try (BufferedWriter customers = new BufferedWriter(new FileWriter(tempDir.resolve("customers.csv").toFile()));
+             BufferedWriter accounts = new BufferedWriter(new FileWriter(tempDir.resolve("accounts.csv").toFile()))) {
+            for (int i = 0; i < 10; i++) {
+                customers.write("C" + i + ",Customer " + i + ",Street " + i + ",555-" + i + ",CNIC-" + i + ",ACC-" + i);
+                customers.newLine();
+                accounts.write("ACC-" + i + "," + i + ".5,Savings,C" + i + ",3.5");
+                accounts.newLine();
+            }
+            accounts.write("ACC-X,1.0,Savings,C-MISSING,3.5");
+            accounts.newLine();
+        }
+        Map<String, Customer> customers = DataManager.loadCustomers();
+
+        recording.start();
+        DataManager.loadAccounts(new HashMap<>(customers), new Bank("Test Bank"));
+        DataManager.loadAccountsParallel(DataManager.loadCustomers(), new Bank("Test Bank"));
+        List<RecordedEvent> loads = eventsNamed(stop(), "bank.AccountLoad");
+
+        assertEquals(2, loads.size());
+        for (RecordedEvent load : loads) {
+            assertEquals(tempDir.resolve("accounts.csv").toString(), load.getString("file"));
+            assertEquals(10, load.getInt("loaded"));
+            assertEquals(1, load.getInt("rejected"));
+        }
+        assertFalse(loads.get(0).getBoolean("parallel"));
+        assertTrue(loads.get(1).getBoolean("parallel"));
+    }
+
+    private List<RecordedEvent> stop() throws IOException {
+        recording.stop();
+        Path file = tempDir.resolve("events.jfr");
+        recording.dump(file);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return events;
+    }
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> named = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                named.add(event);
+            }
+        }
+        return named;
+    }
+}
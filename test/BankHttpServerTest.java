@@ -0,0 +1,175 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Test suite for BankHttpServer.
+ * Tests each endpoint over a loopback connection, error statuses, idempotent retries,
+ * concurrent postings and the JSON reader.
+ */
+public class BankHttpServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private SavingsAccount savings;
+    private CurrentAccount current;
+    private BankHttpServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        savings = new SavingsAccount(customer, 100.0, 2.0);
+        current = new CurrentAccount(customer, 50.0, 10.0);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+        server = BankHttpServer.start(bank, 0);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body, String key) throws Exception {
+        return client.send(postRequest(path, body, key), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest postRequest(String path, String body, String key) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body));
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        return request.build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    @Test
+    public void testBalanceDepositAndWithdraw() throws Exception {
+        String path = "/accounts/" + savings.getAccountNumber();
+
+        HttpResponse<String> balance = get(path);
+        assertEquals(200, balance.statusCode());
+        Map<String, String> account = BankHttpServer.parseObject(balance.body());
+        assertEquals(savings.getAccountNumber(), account.get("accountNumber"));
+        assertEquals("C001", account.get("customerID"));
+        assertEquals(100.0, Double.parseDouble(account.get("balance")), 0.001);
+
+        assertEquals(200, post(path + "/deposit", "{\"amount\": 25.5}", null).statusCode());
+        HttpResponse<String> withdrawn = post(path + "/withdraw", "{\"amount\": 10}", null);
+
+        assertEquals(200, withdrawn.statusCode());
+        assertEquals(115.5, Double.parseDouble(BankHttpServer.parseObject(withdrawn.body()).get("balance")), 0.001);
+        assertEquals(115.5, savings.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testTransferAndHistory() throws Exception {
+        String body = "{\"from\":\"" + savings.getAccountNumber() + "\",\"to\":\"" + current.getAccountNumber()
+                + "\",\"amount\":40.0}";
+
+        HttpResponse<String> transfer = post("/transfers", body, null);
+
+        assertEquals(200, transfer.statusCode());
+        assertEquals(60.0, savings.getBalance(), 0.001);
+        assertEquals(40.0, current.getBalance(), 0.001);
+
+        HttpResponse<String> history = get("/accounts/" + savings.getAccountNumber() + "/transactions?pageSize=5");
+        assertEquals(200, history.statusCode());
+        assertTrue(history.body().contains("\"type\":\"Transfer\""));
+        assertTrue(history.body().endsWith("\"nextPageToken\":null}"));
+    }
+
+    @Test
+    public void testErrorStatuses() throws Exception {
+        String path = "/accounts/" + savings.getAccountNumber();
+
+        HttpResponse<String> insufficient = post(path + "/withdraw", "{\"amount\": 500}", null);
+        assertEquals(400, insufficient.statusCode());
+        assertTrue(BankHttpServer.parseObject(insufficient.body()).containsKey("error"));
+
+        assertEquals(400, post(path + "/deposit", "{\"amount\": -5}", null).statusCode());
+        assertEquals(400, post(path + "/deposit", "not json", null).statusCode());
+        assertEquals(400, post(path + "/deposit", "{}", null).statusCode());
+        assertEquals(404, get("/accounts/NOSUCHACCOUNT").statusCode());
+        assertEquals(404, get(path + "/unknown").statusCode());
+        assertEquals(405, get(path + "/deposit").statusCode());
+        assertEquals(100.0, savings.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testRetriedPostingWithKeyAppliesOnce() throws Exception {
+        String path = "/accounts/" + savings.getAccountNumber() + "/withdraw";
+
+        assertEquals(200, post(path, "{\"amount\": 30}", "w-1").statusCode());
+        assertEquals(200, post(path, "{\"amount\": 30}", "w-1").statusCode());
+        assertEquals(400, post(path, "{\"amount\": 31}", "w-1").statusCode());
+
+        assertEquals(70.0, savings.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testUnloggedPostingsAreServerErrors() throws Exception {
+        String path = "/accounts/" + savings.getAccountNumber();
+        TransactionLogger.useFiles(tempDir.toString(), tempDir.resolve("transactions.idx").toString());
+
+        assertEquals(500, post(path + "/deposit", "{\"amount\": 10}", null).statusCode());
+        assertEquals(500, post(path + "/withdraw", "{\"amount\": 10}", null).statusCode());
+        assertEquals(500, post(path + "/deposit", "{\"amount\": 10}", "d-1").statusCode());
+    }
+
+    @Test
+    public void testConcurrentDeposits() throws Exception {
+        String path = "/accounts/" + current.getAccountNumber() + "/deposit";
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            responses.add(client.sendAsync(postRequest(path, "{\"amount\": 1.25}", null), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            assertEquals(200, response.join().statusCode());
+        }
+        assertEquals(250.0, current.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testParseObject() {
+        Map<String, String> fields = BankHttpServer.parseObject(
+                " { \"a\" : \"x\\\"y\\u0041\", \"b\": -1.5e2, \"c\": true, \"d\": null } ");
+
+        assertEquals("x\"yA", fields.get("a"));
+        assertEquals("-1.5e2", fields.get("b"));
+        assertEquals("true", fields.get("c"));
+        assertFalse(fields.containsKey("d"));
+        assertThrows(IllegalArgumentException.class, () -> BankHttpServer.parseObject("{\"a\": {\"b\": 1}}"));
+        assertThrows(IllegalArgumentException.class, () -> BankHttpServer.parseObject("{\"a\": 1} extra"));
+        assertEquals("\"a\\\"b\\n\"", BankHttpServer.appendString(new StringBuilder(), "a\"b\n").toString());
+    }
+}
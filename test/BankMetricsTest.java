@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Test suite for LatencyHistogram, OperationMetrics and BankMetrics.
+ * Tests bucket precision, percentiles, concurrent recording, the counters kept by
+ * instrumented operations and the JMX beans.
+ */
+public class BankMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    @Test
+    public void testBucketsCoverEveryValueWithinPrecision() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKETS, "value " + value);
+            if (bucket > 0) {
+                assertTrue(LatencyHistogram.highestValueIn(bucket - 1) < value);
+            }
+        }
+        long top = (1L << LatencyHistogram.MAX_EXPONENT) - 1;
+        assertEquals(top, LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(top)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_000, histogram.getPercentileNanos(0.50), 500_000 * 0.04);
+        assertEquals(990_000, histogram.getPercentileNanos(0.99), 990_000 * 0.04);
+        assertEquals(1_000_000, histogram.getPercentileNanos(1.0));
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_500, histogram.getMeanNanos(), 1);
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentileNanos(1.5));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(200_000, histogram.getCount());
+        assertEquals(49_999, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testInstrumentedOperationsCountOutcomes() {
+        Bank bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        SavingsAccount source = new SavingsAccount(customer, 100.0, 2.0);
+        SavingsAccount target = new SavingsAccount(customer, 0.0, 2.0);
+        bank.addAccount(source);
+        bank.addAccount(target);
+        long deposits = BankMetrics.BANK_DEPOSIT.getSucceeded();
+        long rejectedDeposits = BankMetrics.BANK_DEPOSIT.getRejected();
+        long transfers = BankMetrics.BANK_TRANSFER.getSucceeded();
+        long rejectedTransfers = BankMetrics.BANK_TRANSFER.getRejected();
+        long logged = BankMetrics.TRANSACTION_LOG.getSucceeded();
+
+        bank.deposit(customer, source, 50.0);
+        assertThrows(IllegalArgumentException.class, () -> bank.deposit(customer, source, -1.0));
+        bank.transfer(customer, source, target, 25.0).join();
+        assertThrows(IllegalArgumentException.class, () -> bank.transfer(customer, source, target, 1000.0));
+
+        assertEquals(deposits + 1, BankMetrics.BANK_DEPOSIT.getSucceeded());
+        assertEquals(rejectedDeposits + 1, BankMetrics.BANK_DEPOSIT.getRejected());
+        assertEquals(transfers + 1, BankMetrics.BANK_TRANSFER.getSucceeded());
+        assertEquals(rejectedTransfers + 1, BankMetrics.BANK_TRANSFER.getRejected());
+        assertEquals(logged + 3, BankMetrics.TRANSACTION_LOG.getSucceeded());
+        assertTrue(BankMetrics.BANK_DEPOSIT.getMaxMicros() > 0);
+    }
+
+    @Test
+    public void testMBeansAndReport() throws Exception {
+        BankMetrics.registerMBeans();
+        BankMetrics.registerMBeans();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName deposit = new ObjectName("BankManagementSystem:type=Operation,name=Bank.deposit");
+        assertEquals(BankMetrics.BANK_DEPOSIT.getSucceeded(), server.getAttribute(deposit, "Succeeded"));
+        assertNotNull(server.getAttribute(deposit, "P999Micros"));
+        assertEquals(0, server.getAttribute(new ObjectName("BankManagementSystem:type=TransactionLog"), "QueueDepth"));
+
+        String report = BankMetrics.report();
+        for (OperationMetrics metrics : BankMetrics.getAll()) {
+            assertTrue(report.contains(metrics.getName()));
+        }
+        assertTrue(report.contains("Transaction log queue depth: 0"));
+    }
+}
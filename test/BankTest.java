@@ -1,7 +1,14 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test suite for Bank class.
@@ -13,13 +20,23 @@ public class BankTest {
     private Customer customer1;
     private Customer customer2;
     
+    @TempDir
+    Path tempDir;
+    
     @BeforeEach
     public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
         bank = new Bank("Test Bank");
         customer1 = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
         customer2 = new Customer("C002", "Bob Williams", "200 Second St", "555-0002", "22222-2222222-2");
     }
     
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+    
     @Test
     public void testBankCreation() {
         assertNotNull(bank);
@@ -213,6 +230,350 @@ public class BankTest {
         assertEquals(list1.size(), list2.size());
     }
     
+    @Test
+    public void testSnapshotAccountsIsSharedUntilChanged() {
+        SavingsAccount account1 = new SavingsAccount(customer1, 5.0);
+        bank.addAccount(account1);
+        
+        Snapshot<Account> first = bank.snapshotAccounts();
+        assertSame(first, bank.snapshotAccounts());
+        assertEquals(1, first.size());
+        
+        SavingsAccount account2 = new SavingsAccount(customer1, 5.0);
+        bank.addAccount(account2);
+        Snapshot<Account> second = bank.snapshotAccounts();
+        
+        assertNotSame(first, second);
+        assertTrue(second.getVersion() > first.getVersion());
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertSame(account2, second.get(1));
+    }
+    
+    @Test
+    public void testSnapshotsCannotBeModified() {
+        bank.addCustomer(customer1);
+        bank.addTeller(new Teller("T001", "John Teller", "Branch01"));
+        bank.addATM(new ATM("ATM001", "Downtown", 50000.0));
+        
+        assertThrows(UnsupportedOperationException.class, () -> bank.snapshotCustomers().add(customer2));
+        assertThrows(UnsupportedOperationException.class, () -> bank.snapshotTellers().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> bank.snapshotATMs().clear());
+        assertEquals(1, bank.snapshotCustomers().size());
+    }
+    
+    @Test
+    public void testSnapshotReflectsRemoval() {
+        bank.addCustomer(customer1);
+        bank.addCustomer(customer2);
+        Snapshot<Customer> before = bank.snapshotCustomers();
+        
+        bank.removeCustomer(customer1);
+        
+        assertEquals(2, before.size());
+        assertEquals(List.of(customer2), bank.snapshotCustomers());
+    }
+    
+    @Test
+    public void testFindCustomerByID() {
+        bank.addCustomer(customer1);
+        bank.addCustomer(customer2);
+        
+        assertSame(customer2, bank.findCustomer("C002"));
+        assertNull(bank.findCustomer("C999"));
+    }
+    
+    @Test
+    public void testFindCustomerAfterRemoval() {
+        bank.addCustomer(customer1);
+        bank.removeCustomer(customer1);
+        
+        assertNull(bank.findCustomer("C001"));
+        assertThrows(IllegalArgumentException.class, () -> bank.getCustomerDetails("C001"));
+    }
+    
+    @Test
+    public void testFindAccountByNumber() {
+        SavingsAccount account = new SavingsAccount(customer1, 5.0);
+        bank.addAccount(account);
+        
+        assertSame(account, bank.findAccount(account.getAccountNumber()));
+        assertNull(bank.findAccount("missing"));
+        assertNull(bank.findAccount(null));
+    }
+    
+    @Test
+    public void testFindAccountAfterRemoval() {
+        SavingsAccount account = new SavingsAccount(customer1, 5.0);
+        bank.addAccount(account);
+        bank.removeAccount(account);
+        
+        assertNull(bank.findAccount(account.getAccountNumber()));
+        assertEquals(0, bank.getAccounts().size());
+    }
+    
+    @Test
+    public void testAddCustomerWithSameIDReplacesPrevious() {
+        Customer duplicate = new Customer("C001", "Alice Duplicate", "1 Other St", "555-0003", "33333-3333333-3");
+        bank.addCustomer(customer1);
+        bank.addCustomer(duplicate);
+        
+        assertEquals(1, bank.getCustomers().size());
+        assertSame(duplicate, bank.findCustomer("C001"));
+    }
+    
+    @Test
+    public void testTransactionHistoryOnlyContainsAccountRecords() {
+        SavingsAccount savings = new SavingsAccount(customer1, 5.0);
+        CurrentAccount current = new CurrentAccount(customer2, 500.0, 25.0);
+        bank.deposit(customer1, savings, 100.0);
+        bank.deposit(customer2, current, 300.0);
+        bank.withdraw(customer1, savings, 40.0);
+        
+        List<Transaction> history = bank.getTransactionHistory(savings);
+        assertEquals(2, history.size());
+        assertEquals("Deposit", history.get(0).getType());
+        assertEquals("Withdrawal", history.get(1).getType());
+        assertEquals(40.0, history.get(1).getAmount(), 0.01);
+        assertEquals(1, bank.getTransactionHistory(customer2).size());
+    }
+    
+    @Test
+    public void testTransactionHistorySurvivesIndexReload() {
+        SavingsAccount savings = new SavingsAccount(customer1, 5.0);
+        bank.deposit(customer1, savings, 100.0);
+        bank.deposit(customer1, savings, 50.0);
+        
+        // Reopen the same files so the index is loaded from disk
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        assertEquals(2, bank.getTransactionHistory(savings).size());
+    }
+    
+    @Test
+    public void testTransactionHistoryRebuildsMissingIndex() {
+        SavingsAccount savings = new SavingsAccount(customer1, 5.0);
+        bank.deposit(customer1, savings, 100.0);
+        bank.deposit(customer2, new SavingsAccount(customer2, 5.0), 70.0);
+        assertTrue(new File(tempDir.resolve("transactions.idx").toString()).delete());
+        
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        List<Transaction> history = bank.getTransactionHistory(customer1);
+        assertEquals(1, history.size());
+        assertEquals(100.0, history.get(0).getAmount(), 0.01);
+    }
+    
+    @Test
+    public void testTransferLogsBothLegs() {
+        SavingsAccount source = new SavingsAccount(customer1, 500.0, 5.0);
+        SavingsAccount target = new SavingsAccount(customer2, 0.0, 5.0);
+        bank.transfer(customer1, source, target, 120.0);
+        
+        assertEquals(380.0, source.getBalance(), 0.0);
+        assertEquals(120.0, target.getBalance(), 0.0);
+        assertEquals("Transfer", bank.getTransactionHistory(source).get(0).getType());
+        assertEquals("Transfer In", bank.getTransactionHistory(target).get(0).getType());
+    }
+    
+    @Test
+    public void testTransferInsufficientFundsChangesNothing() {
+        SavingsAccount source = new SavingsAccount(customer1, 50.0, 5.0);
+        SavingsAccount target = new SavingsAccount(customer2, 0.0, 5.0);
+        
+        assertThrows(IllegalArgumentException.class, () -> bank.transfer(customer1, source, target, 80.0));
+        assertEquals(50.0, source.getBalance(), 0.0);
+        assertEquals(0.0, target.getBalance(), 0.0);
+        assertEquals(0, bank.getTransactionHistory(target).size());
+    }
+    
+    @Test
+    public void testTransferThatCannotBeLoggedChangesNothing() {
+        SavingsAccount source = new SavingsAccount(customer1, 500.0, 5.0);
+        SavingsAccount target = new SavingsAccount(customer2, 0.0, 5.0);
+        // A directory cannot be opened as the log, so every write fails
+        TransactionLogger.useFiles(tempDir.toString(), tempDir.resolve("transactions.idx").toString());
+        
+        assertThrows(IllegalStateException.class, () -> bank.transfer(customer1, source, target, 120.0));
+        assertEquals(500.0, source.getBalance(), 0.0);
+        assertEquals(0.0, target.getBalance(), 0.0);
+        
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        assertEquals(0, bank.getTransactionHistory(source).size());
+        assertEquals(0, bank.getTransactionHistory(target).size());
+    }
+    
+    @Test
+    public void testOpposingTransfersDoNotDeadlockOrLoseFunds() throws InterruptedException {
+        SavingsAccount first = new SavingsAccount(customer1, 1000.0, 5.0);
+        SavingsAccount second = new SavingsAccount(customer2, 1000.0, 5.0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            final boolean forward = t % 2 == 0;
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        if (forward) {
+                            bank.transfer(customer1, first, second, 3.0);
+                        } else {
+                            bank.transfer(customer2, second, first, 3.0);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // Source temporarily drained
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "Transfers deadlocked");
+        
+        assertEquals(2000.0, first.getBalance() + second.getBalance(), 0.0);
+    }
+    
+    @Test
+    public void testOverdrawnAccountsTrackBalance() {
+        CurrentAccount current = new CurrentAccount(customer1, 500.0, 10.0);
+        SavingsAccount savings = new SavingsAccount(customer1, 100.0, 5.0);
+        bank.addAccount(current);
+        bank.addAccount(savings);
+        assertTrue(bank.getOverdrawnAccounts().isEmpty());
+        
+        current.withdraw(50.0);
+        assertEquals(List.of(current), bank.getOverdrawnAccounts());
+        
+        current.deposit(50.0);
+        assertTrue(bank.getOverdrawnAccounts().isEmpty());
+        
+        current.withdraw(1.0);
+        bank.removeAccount(current);
+        assertTrue(bank.getOverdrawnAccounts().isEmpty());
+    }
+    
+    @Test
+    public void testOverdrawnIndexUnderConcurrentUpdates() throws Exception {
+        CurrentAccount current = new CurrentAccount(customer1, 10_000.0, 10.0);
+        bank.addAccount(current);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    current.withdraw(1.0);
+                    current.deposit(1.0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        assertEquals(0.0, current.getBalance(), 0.0);
+        assertTrue(bank.getOverdrawnAccounts().isEmpty());
+    }
+    
+    @Test
+    public void testOverdraftFeeRunChargesOnlyOverdrawnAccounts() {
+        CurrentAccount overdrawn = new CurrentAccount(customer1, 500.0, 25.0);
+        CurrentAccount nearLimit = new CurrentAccount(customer1, 100.0, 25.0);
+        CurrentAccount inCredit = new CurrentAccount(customer1, 500.0, 25.0);
+        bank.addAccount(overdrawn);
+        bank.addAccount(nearLimit);
+        bank.addAccount(inCredit);
+        overdrawn.withdraw(100.0);
+        nearLimit.withdraw(90.0);
+        inCredit.deposit(100.0);
+        
+        OverdraftFeeEngine.Summary summary = new OverdraftFeeEngine(bank, java.util.concurrent.ForkJoinPool.commonPool()).run();
+        
+        assertEquals(2, summary.getAccountsCharged());
+        assertEquals(35.0, summary.getTotalFees(), 0.001);
+        assertEquals(-125.0, overdrawn.getBalance(), 0.001);
+        assertEquals(-100.0, nearLimit.getBalance(), 0.001);
+        assertEquals(100.0, inCredit.getBalance(), 0.001);
+        List<Transaction> fees = TransactionLogger.getTransactionsForAccount(overdrawn.getAccountNumber());
+        assertEquals(1, fees.size());
+        assertEquals("Overdraft Fee", fees.get(0).getType());
+        assertEquals(25.0, fees.get(0).getAmount(), 0.001);
+    }
+    
+    @Test
+    public void testBalanceAggregatesFollowPostings() {
+        SavingsAccount rich = new SavingsAccount(customer1, 12_000.0, 2.0);
+        SavingsAccount modest = new SavingsAccount(customer2, 500.0, 2.0);
+        CurrentAccount current = new CurrentAccount(customer1, 500.0, 10.0);
+        bank.addAccount(rich);
+        bank.addAccount(modest);
+        bank.addAccount(current);
+        BalanceAggregates aggregates = bank.getBalanceAggregates();
+        assertEquals(12_500.0, aggregates.getTotalBalance(), 0.001);
+        assertEquals(1, aggregates.getSpecialTierCount());
+        
+        current.withdraw(200.0);
+        rich.transfer(modest, 3_000.0);
+        modest.deposit(6_600.0);
+        
+        assertEquals(18_900.0, aggregates.getTotalBalance(), 0.001);
+        assertEquals(19_100.0, aggregates.getTotalBalance("Savings"), 0.001);
+        assertEquals(-200.0, aggregates.getTotalBalance("Current"), 0.001);
+        assertEquals(8_800.0, aggregates.getTotalBalance(customer1), 0.001);
+        assertEquals(10_100.0, aggregates.getTotalBalance(customer2), 0.001);
+        assertEquals(1, aggregates.getOverdrawnCount());
+        assertEquals(1, aggregates.getSpecialTierCount());
+        
+        bank.removeAccount(current);
+        bank.removeAccount(modest);
+        assertEquals(9_000.0, aggregates.getTotalBalance(), 0.001);
+        assertEquals(0, aggregates.getOverdrawnCount());
+        assertEquals(0, aggregates.getSpecialTierCount());
+        assertEquals(0.0, aggregates.getTotalBalance("Current"), 0.001);
+    }
+    
+    @Test
+    public void testBalanceAggregatesKeepCustomerTotalWhenCustomerIsReplaced() {
+        bank.addCustomer(customer1);
+        SavingsAccount account = new SavingsAccount(customer1, 100.0, 2.0);
+        bank.addAccount(account);
+        BalanceAggregates aggregates = bank.getBalanceAggregates();
+        
+        Customer replacement = new Customer(customer1.getCustomerID(), "Alice Smith", "200 Second St",
+                "555-0009", "11111-1111111-1");
+        bank.addCustomer(replacement);
+        assertEquals(100.0, aggregates.getTotalBalance(replacement), 0.001);
+        
+        account.deposit(10.0);
+        assertEquals(110.0, aggregates.getTotalBalance(replacement), 0.001);
+        
+        bank.removeCustomer(replacement);
+        assertEquals(110.0, aggregates.getTotalBalance(customer1), 0.001);
+        bank.removeAccount(account);
+        assertEquals(0.0, aggregates.getTotalBalance(customer1), 0.001);
+    }
+    
+    @Test
+    public void testBalanceAggregatesUnderConcurrentUpdates() throws Exception {
+        CurrentAccount current = new CurrentAccount(customer1, 10_000.0, 10.0);
+        SavingsAccount savings = new SavingsAccount(customer1, 10_000.0, 2.0);
+        bank.addAccount(current);
+        bank.addAccount(savings);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    current.withdraw(1.0);
+                    savings.withdraw(1.0);
+                    savings.deposit(2.0);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        BalanceAggregates aggregates = bank.getBalanceAggregates();
+        assertEquals(current.getBalance() + savings.getBalance(), aggregates.getTotalBalance(), 0.001);
+        assertEquals(10_000.0, aggregates.getTotalBalance(customer1), 0.001);
+        assertEquals(1, aggregates.getOverdrawnCount());
+        assertEquals(1, aggregates.getSpecialTierCount());
+    }
+    
     @Test
     public void testBankToString() {
         bank.addCustomer(customer1);
@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for BulkPaymentProcessor.
+ * Tests applying postings grouped by account, rejecting bad lines and the per-line report.
+ */
+public class BulkPaymentProcessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private SavingsAccount savings;
+    private CurrentAccount current;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        savings = new SavingsAccount(customer, 100.0, 2.0);
+        current = new CurrentAccount(customer, 500.0, 10.0);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    @Test
+    public void testAcceptsAndRejectsLines() throws IOException {
+        File input = write(
+                "PAY-1," + savings.getAccountNumber() + ",CREDIT,250.50",
+                "PAY-2," + current.getAccountNumber() + ",DEBIT,400.00",
+                "PAY-3," + savings.getAccountNumber() + ",DEBIT,1000.00",
+                "PAY-4,NO-SUCH-ACCOUNT,CREDIT,10.00",
+                "",
+                "PAY-5," + savings.getAccountNumber() + ",REFUND,10.00",
+                "PAY-6," + savings.getAccountNumber() + ",CREDIT,-5",
+                "PAY-7," + savings.getAccountNumber() + ",CREDIT",
+                "PAY-8," + current.getAccountNumber() + ",DEBIT,150.00");
+        File report = tempDir.resolve("report.csv").toFile();
+
+        BulkPaymentProcessor.Summary summary = new BulkPaymentProcessor(bank, ForkJoinPool.commonPool()).process(input, report);
+
+        assertEquals(2, summary.getAccepted());
+        assertEquals(6, summary.getRejected());
+        assertEquals(250.5, summary.getTotalCredits(), 0.001);
+        assertEquals(400.0, summary.getTotalDebits(), 0.001);
+        assertEquals(350.5, savings.getBalance(), 0.001);
+        assertEquals(-400.0, current.getBalance(), 0.001);
+
+        List<String> lines = Files.readAllLines(report.toPath());
+        assertEquals(8, lines.size());
+        assertEquals("1,PAY-1,ACCEPTED,", lines.get(0));
+        assertEquals("2,PAY-2,ACCEPTED,", lines.get(1));
+        assertEquals("3,PAY-3,REJECTED,Insufficient balance.", lines.get(2));
+        assertEquals("4,PAY-4,REJECTED,Account not found.", lines.get(3));
+        assertEquals("5,PAY-5,REJECTED,Unknown posting type: REFUND", lines.get(4));
+        assertEquals("6,PAY-6,REJECTED,Amount must be greater than zero.", lines.get(5));
+        assertEquals("7,PAY-7,REJECTED,Expected 4 fields.", lines.get(6));
+        assertTrue(lines.get(7).startsWith("8,PAY-8,REJECTED,"));
+
+        List<Transaction> logged = TransactionLogger.getTransactions();
+        assertEquals(2, logged.size());
+        assertEquals("Deposit", logged.get(0).getType());
+        assertEquals("Withdrawal", logged.get(1).getType());
+    }
+
+    @Test
+    public void testPostingsToOneAccountApplyInFileOrder() throws IOException {
+        String[] lines = new String[20000];
+        for (int i = 0; i < lines.length; i++) {
+            Account account = i % 2 == 0 ? savings : current;
+            lines[i] = "REF-" + i + "," + account.getAccountNumber() + "," + (i % 4 < 2 ? "CREDIT" : "DEBIT") + ",1.00";
+        }
+        File report = tempDir.resolve("report.csv").toFile();
+
+        BulkPaymentProcessor.Summary summary = new BulkPaymentProcessor(bank, ForkJoinPool.commonPool())
+                .process(write(lines), report);
+
+        assertEquals(20000, summary.getAccepted());
+        assertEquals(100.0, savings.getBalance(), 0.001);
+        assertEquals(0.0, current.getBalance(), 0.001);
+        assertEquals(20000, TransactionLogger.getTransactionsForAccount(savings.getAccountNumber()).size()
+                + TransactionLogger.getTransactionsForAccount(current.getAccountNumber()).size());
+    }
+
+    @Test
+    public void testUnloggedPostingsAreReversedAndReported() throws IOException {
+        File input = write(
+                "PAY-1," + savings.getAccountNumber() + ",CREDIT,250.50",
+                "PAY-2," + current.getAccountNumber() + ",DEBIT,400.00",
+                "PAY-3,NO-SUCH-ACCOUNT,CREDIT,10.00");
+        File report = tempDir.resolve("report.csv").toFile();
+        TransactionLogger.useFiles(tempDir.toString(), tempDir.resolve("transactions.idx").toString());
+
+        BulkPaymentProcessor processor = new BulkPaymentProcessor(bank, ForkJoinPool.commonPool());
+        assertThrows(IOException.class, () -> processor.process(input, report));
+
+        assertEquals(100.0, savings.getBalance(), 0.001);
+        assertEquals(0.0, current.getBalance(), 0.001);
+        List<String> lines = Files.readAllLines(report.toPath());
+        assertEquals(3, lines.size());
+        assertEquals("1,PAY-1,REJECTED,Could not be logged.", lines.get(0));
+        assertEquals("2,PAY-2,REJECTED,Could not be logged.", lines.get(1));
+        assertEquals("3,PAY-3,REJECTED,Account not found.", lines.get(2));
+    }
+
+    private File write(String... lines) throws IOException {
+        File input = tempDir.resolve("payments.csv").toFile();
+        try (BufferedWriter writer = Files.newBufferedWriter(input.toPath())) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+        return input;
+    }
+}
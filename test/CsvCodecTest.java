@@ -0,0 +1,142 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test suite for CsvCodec.
+ * Tests quoting, parsing from strings and bytes, number parsing and round trips of records.
+ */
+public class CsvCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(tempDir.resolve("customers.csv").toString(),
+                tempDir.resolve("accounts.csv").toString());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+        DataManager.useFiles("customers.csv", "accounts.csv");
+    }
+
+    @Test
+    public void testQuotesOnlyWhenNeeded() {
+        StringBuilder out = new StringBuilder();
+        CsvCodec.appendField(out, "plain").append(',');
+        CsvCodec.appendField(out, "12 Main St, Lahore").append(',');
+        CsvCodec.appendField(out, "The \"Corner\" Shop").append(',');
+        CsvCodec.appendField(out, "");
+
+        assertEquals("plain,\"12 Main St, Lahore\",\"The \"\"Corner\"\" Shop\",", out.toString());
+    }
+
+    @Test
+    public void testParseQuotedFields() {
+        CsvCodec.Fields fields = new CsvCodec.Fields().parse("plain,\"12 Main St, Lahore\",\"The \"\"Corner\"\" Shop\",");
+
+        assertEquals(4, fields.count());
+        assertEquals("plain", fields.get(0));
+        assertEquals("12 Main St, Lahore", fields.get(1));
+        assertEquals("The \"Corner\" Shop", fields.get(2));
+        assertEquals("", fields.get(3));
+        assertTrue(fields.fieldEquals(0, "plain"));
+        assertFalse(fields.fieldEquals(0, "plan"));
+        assertThrows(IllegalArgumentException.class, () -> fields.get(4));
+    }
+
+    @Test
+    public void testLineBreaksAndBackslashesAreEscaped() {
+        StringBuilder out = new StringBuilder();
+        CsvCodec.appendField(out, "Flat 4\r\n12 Main St").append(',');
+        CsvCodec.appendField(out, "C:\\data\\n");
+
+        assertEquals("\"Flat 4\\r\\n12 Main St\",\"C:\\\\data\\\\n\"", out.toString());
+        assertEquals(-1, out.indexOf("\n"));
+        CsvCodec.Fields fields = new CsvCodec.Fields().parse(out);
+        assertEquals("Flat 4\r\n12 Main St", fields.get(0));
+        assertEquals("C:\\data\\n", fields.get(1));
+        assertTrue(fields.fieldEquals(1, "C:\\data\\n"));
+        // Backslashes outside quotes are read as written, as in earlier versions
+        assertEquals("C:\\data", new CsvCodec.Fields().parse("C:\\data,1").get(0));
+    }
+
+    @Test
+    public void testParseUtf8Bytes() {
+        byte[] bytes = "xx,Zo\u00eb \"\u00dc\",\"a,b\",7".getBytes(StandardCharsets.UTF_8);
+        CsvCodec.Fields fields = new CsvCodec.Fields().parse(bytes, 3, bytes.length);
+
+        assertEquals(3, fields.count());
+        assertEquals("Zo\u00eb \"\u00dc\"", fields.get(0));
+        assertEquals("a,b", fields.get(1));
+        assertEquals(7, fields.getLong(2));
+    }
+
+    @Test
+    public void testNumbersMatchJdkParsing() {
+        String[] values = { "0", "-0.0", "500.0", "1250.75", "-50.0", "0.1", "123456789.123456", "1e3",
+                "12345678901234567890.5", " 3.5", ".5", "7." };
+        CsvCodec.Fields fields = new CsvCodec.Fields();
+        for (String value : values) {
+            fields.parse(value);
+            assertEquals(Double.parseDouble(value), fields.getDouble(0), value);
+            assertEquals(Double.doubleToRawLongBits(Double.parseDouble(value)),
+                    Double.doubleToRawLongBits(fields.getDouble(0)), value);
+        }
+        assertEquals(-1234567890123L, fields.parse("-1234567890123").getLong(0));
+        assertThrows(NumberFormatException.class, () -> new CsvCodec.Fields().parse("abc").getDouble(0));
+        assertThrows(NumberFormatException.class, () -> new CsvCodec.Fields().parse("1.5").getLong(0));
+    }
+
+    @Test
+    public void testCommaInAddressSurvivesSaveAndLoad() {
+        Customer customer = new Customer("C001", "Khan, Ali", "12 Main St, Lahore", "555-0001", "11111-1111111-1");
+        SavingsAccount savings = new SavingsAccount(customer, 1000.0, 2.5);
+        customer.addAccount(savings);
+
+        DataManager.saveCustomers(List.of(customer));
+        DataManager.saveAccounts(List.of(savings));
+        Map<String, Customer> loaded = DataManager.loadCustomersParallel();
+        Bank bank = new Bank("Test Bank");
+        DataManager.loadAccountsParallel(loaded, bank);
+
+        Customer reloaded = loaded.get("C001");
+        assertEquals("Khan, Ali", reloaded.getName());
+        assertTrue(reloaded.toString().contains("Address: 12 Main St, Lahore"));
+        assertEquals(savings.toCSV(), bank.findAccount(savings.getAccountNumber()).toCSV());
+        assertEquals(customer.toCSV(), Customer.fromCSV(customer.toCSV()).toCSV() + savings.getAccountNumber());
+    }
+
+    @Test
+    public void testMultiLineAddressSurvivesSaveAndLoad() {
+        Customer customer = new Customer("C001", "Ali Khan", "Flat 4\n12 Main St\r\nLahore", "555-0001", "11111-1111111-1");
+        Customer other = new Customer("C002", "Sara Ahmed", "7 Canal Rd", "555-0002", "22222-2222222-2");
+        SavingsAccount savings = new SavingsAccount(customer, 1000.0, 2.5);
+        SavingsAccount otherSavings = new SavingsAccount(other, 500.0, 2.5);
+        customer.addAccount(savings);
+        other.addAccount(otherSavings);
+
+        DataManager.saveCustomers(List.of(customer, other));
+        DataManager.saveAccounts(List.of(savings, otherSavings));
+        for (Map<String, Customer> loaded : List.of(DataManager.loadCustomers(), DataManager.loadCustomersParallel())) {
+            assertEquals(2, loaded.size());
+            assertTrue(loaded.get("C001").toString().contains("Address: Flat 4\n12 Main St\r\nLahore"));
+            assertEquals("Sara Ahmed", loaded.get("C002").getName());
+            Bank bank = new Bank("Test Bank");
+            DataManager.loadAccounts(loaded, bank);
+            assertEquals(1000.0, bank.findAccount(savings.getAccountNumber()).getBalance(), 0.001);
+            assertEquals(500.0, bank.findAccount(otherSavings.getAccountNumber()).getBalance(), 0.001);
+        }
+    }
+}
@@ -123,6 +123,21 @@ public class CustomerTest {
         assertEquals(accounts1.size(), accounts2.size());
     }
     
+    @Test
+    public void testSnapshotAccountsIsSharedUntilChanged() {
+        SavingsAccount account = new SavingsAccount(customer, 5.0);
+        customer.addAccount(account);
+        
+        Snapshot<Account> first = customer.snapshotAccounts();
+        assertSame(first, customer.snapshotAccounts());
+        
+        customer.removeAccount(account);
+        
+        assertEquals(1, first.size());
+        assertEquals(0, customer.snapshotAccounts().size());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(account));
+    }
+    
     @Test
     public void testCustomerToString() {
         String result = customer.toString();
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for DataManager loading and ChunkedCsvReader.
+ * Tests that the parallel loaders match the line-by-line loaders.
+ */
+public class DataManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(tempDir.resolve("customers.csv").toString(),
+                tempDir.resolve("accounts.csv").toString());
+        try (BufferedWriter customers = new BufferedWriter(new FileWriter(tempDir.resolve("customers.csv").toFile()));
+             BufferedWriter accounts = new BufferedWriter(new FileWriter(tempDir.resolve("accounts.csv").toFile()))) {
+            for (int i = 0; i < 1000; i++) {
+                customers.write("C" + i + ",Customer " + i + ",Street " + i + ",555-" + i + ",CNIC-" + i + ",ACC-" + i);
+                customers.newLine();
+                if (i % 2 == 0) {
+                    accounts.write("ACC-" + i + "," + i + ".5,Savings,C" + i + ",3.5");
+                } else {
+                    accounts.write("ACC-" + i + "," + i + ".5,Current,C" + i + ",500.0,25.0");
+                }
+                accounts.newLine();
+            }
+            accounts.write("ACC-X,1.0,Savings,C-MISSING,3.5");
+            accounts.newLine();
+            accounts.write("ACC-Y,not-a-number,Savings,C1,3.5");
+            accounts.newLine();
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+        DataManager.useFiles("customers.csv", "accounts.csv");
+    }
+
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() {
+        Map<String, Customer> customers = DataManager.loadCustomersParallel();
+        Bank bank = new Bank("Test Bank");
+        int loaded = DataManager.loadAccountsParallel(customers, bank);
+
+        Map<String, Customer> expectedCustomers = DataManager.loadCustomers();
+        Bank expected = new Bank("Test Bank");
+        DataManager.loadAccounts(expectedCustomers, expected);
+
+        assertEquals(1000, customers.size());
+        assertEquals(1000, loaded);
+        assertEquals(expected.getAccounts().size(), bank.getAccounts().size());
+        for (Account account : expected.getAccounts()) {
+            Account actual = bank.findAccount(account.getAccountNumber());
+            assertNotNull(actual);
+            assertEquals(account.toCSV(), actual.toCSV());
+            assertEquals(1, actual.getCustomer().viewAccounts().size());
+        }
+    }
+
+    @Test
+    public void testSmallChunksSplitOnLineBoundaries() throws IOException {
+        ChunkedCsvReader reader = new ChunkedCsvReader(ForkJoinPool.commonPool(), 100);
+        ChunkedCsvReader.Result<String> result = reader.read(tempDir.resolve("accounts.csv").toFile(),
+                Collections.emptySet(), fields -> {
+                    if (fields.count() < 5) {
+                        throw new IllegalArgumentException("Too few fields.");
+                    }
+                    return fields.get(0);
+                });
+
+        List<String> numbers = result.getRecords();
+        assertEquals(1002, numbers.size());
+        assertEquals("ACC-0", numbers.get(0));
+        assertEquals("ACC-999", numbers.get(999));
+        assertEquals(0, result.getRejected());
+    }
+
+    @Test
+    public void testCarriageReturnsAndRejectedLines() throws IOException {
+        try (FileWriter writer = new FileWriter(tempDir.resolve("windows.csv").toFile())) {
+            writer.write("A,1\r\nB\r\nC,3\r\n\r\nD,4");
+        }
+        ChunkedCsvReader reader = new ChunkedCsvReader(ForkJoinPool.commonPool(), 4);
+        ChunkedCsvReader.Result<String> result = reader.read(tempDir.resolve("windows.csv").toFile(),
+                Collections.singleton("C"), fields -> fields.get(0) + "=" + fields.get(1));
+
+        assertEquals(List.of("A=1", "D=4"), result.getRecords());
+        assertEquals(1, result.getRejected());
+    }
+}
@@ -0,0 +1,153 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test suite for IdempotencyCache and the keyed posting operations.
+ * Tests deduplicating retries, replaying refusals, expiry, the size bound and the journal.
+ */
+public class IdempotencyCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private Customer customer;
+    private SavingsAccount savings;
+    private CurrentAccount current;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        bank = new Bank("Test Bank");
+        customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        savings = new SavingsAccount(customer, 100.0, 2.0);
+        current = new CurrentAccount(customer, 50.0, 10.0);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    @Test
+    public void testRetriedPostingsApplyOnce() {
+        bank.deposit("dep-1", customer, savings, 25.0);
+        bank.deposit("dep-1", customer, savings, 25.0);
+        bank.transfer("xfer-1", customer, savings, current, 40.0).join();
+        bank.transfer("xfer-1", customer, savings, current, 40.0).join();
+
+        assertEquals(85.0, savings.getBalance(), 0.001);
+        assertEquals(40.0, current.getBalance(), 0.001);
+        assertEquals(3, TransactionLogger.getTransactions().size());
+    }
+
+    @Test
+    public void testRefusalIsReplayedAndKeyCannotBeReused() {
+        Exception first = assertThrows(IllegalArgumentException.class,
+                () -> bank.transfer("xfer-2", customer, savings, current, 500.0));
+        savings.deposit(1000.0);
+        Exception retry = assertThrows(IllegalArgumentException.class,
+                () -> bank.transfer("xfer-2", customer, savings, current, 500.0));
+        assertEquals(first.getMessage(), retry.getMessage());
+        assertEquals(0.0, current.getBalance(), 0.001);
+
+        Exception reused = assertThrows(IllegalArgumentException.class,
+                () -> bank.deposit("xfer-2", customer, savings, 5.0));
+        assertEquals("Idempotency key was already used for a different request.", reused.getMessage());
+    }
+
+    @Test
+    public void testAtmWithdrawalDispensesOnce() {
+        ATM atm = new ATM("ATM-1", "Main Street", 1000.0);
+        bank.addATM(atm);
+        atm.withdraw("atm-1", savings, 30.0);
+        atm.withdraw("atm-1", savings, 30.0);
+
+        assertEquals(70.0, savings.getBalance(), 0.001);
+        assertEquals(970.0, atm.getCashAvailable(), 0.001);
+    }
+
+    @Test
+    public void testAtmWithdrawalRetriedAtAnotherAtmDispensesOnce() {
+        ATM first = new ATM("ATM-1", "Main Street", 1000.0);
+        ATM second = new ATM("ATM-2", "Canal Road", 1000.0);
+        bank.addATM(first);
+        bank.addATM(second);
+        first.withdraw("atm-2", savings, 30.0);
+        second.withdraw("atm-2", savings, 30.0);
+
+        assertEquals(70.0, savings.getBalance(), 0.001);
+        assertEquals(970.0, first.getCashAvailable(), 0.001);
+        assertEquals(1000.0, second.getCashAvailable(), 0.001);
+    }
+
+    @Test
+    public void testConcurrentRetriesRunOnce() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(100, 60_000);
+        AtomicInteger runs = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> cache.execute("key", "request", () -> {
+                runs.incrementAndGet();
+                return null;
+            }));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testKeysExpireAndStayBounded() {
+        long[] now = { 1_000 };
+        IdempotencyCache cache = new IdempotencyCache(3, 500, () -> now[0], null);
+        AtomicInteger runs = new AtomicInteger();
+        cache.execute("a", "r", runs::incrementAndGet);
+        now[0] += 600;
+        assertEquals(2, (int) cache.execute("a", "r", runs::incrementAndGet));
+
+        for (int i = 0; i < 10; i++) {
+            cache.execute("k" + i, "r", runs::incrementAndGet);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(12, runs.get());
+    }
+
+    @Test
+    public void testJournalSurvivesRestart() throws IOException {
+        File journal = tempDir.resolve("idempotency.journal").toFile();
+        IdempotencyCache cache = IdempotencyCache.open(journal, 100, 60_000);
+        bank.useIdempotencyCache(cache);
+        bank.deposit("dep-9", customer, savings, 10.0);
+        Exception first = assertThrows(IllegalArgumentException.class,
+                () -> bank.transfer("xfer-9", customer, current, savings, 500.0));
+        cache.close();
+
+        Bank restarted = new Bank("Test Bank");
+        restarted.addAccount(savings);
+        restarted.addAccount(current);
+        restarted.useIdempotencyCache(IdempotencyCache.open(journal, 100, 60_000));
+        restarted.deposit("dep-9", customer, savings, 10.0);
+        Exception retry = assertThrows(IllegalArgumentException.class,
+                () -> restarted.transfer("xfer-9", customer, current, savings, 500.0));
+
+        assertEquals(110.0, savings.getBalance(), 0.001);
+        assertEquals(first.getMessage(), retry.getMessage());
+    }
+}
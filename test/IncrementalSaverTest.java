@@ -0,0 +1,172 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test suite for IncrementalSaver and the DataManager delta files.
+ * Tests that only changed records are saved and that deltas load and merge correctly.
+ */
+public class IncrementalSaverTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private Customer alice;
+    private Customer bob;
+    private SavingsAccount savings;
+    private CurrentAccount current;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(tempDir.resolve("customers.csv").toString(),
+                tempDir.resolve("accounts.csv").toString());
+        bank = new Bank("Test Bank");
+        alice = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bob = new Customer("C002", "Bob Williams", "200 Second St", "555-0002", "22222-2222222-2");
+        savings = new SavingsAccount(alice, 100.0, 5.0);
+        current = new CurrentAccount(bob, 200.0, 10.0);
+        alice.addAccount(savings);
+        bob.addAccount(current);
+        bank.addCustomer(alice);
+        bank.addCustomer(bob);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+        DataManager.saveCustomers(bank.getCustomers());
+        DataManager.saveAccounts(bank.getAccounts());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+        DataManager.useFiles("customers.csv", "accounts.csv");
+    }
+
+    @Test
+    public void testOnlyChangedRecordsAreSaved() throws IOException {
+        IncrementalSaver saver = new IncrementalSaver(bank, 0);
+        assertEquals(0, saver.saveChanges());
+
+        savings.deposit(25.0);
+        savings.withdraw(5.0);
+        assertEquals(1, saver.getPendingCount());
+        assertEquals(1, saver.saveChanges());
+        assertEquals(0, saver.getPendingCount());
+
+        Map<String, Customer> customers = DataManager.loadCustomers();
+        Bank loaded = new Bank("Test Bank");
+        DataManager.loadAccounts(customers, loaded);
+        assertEquals(120.0, loaded.findAccount(savings.getAccountNumber()).getBalance(), 0.001);
+        assertEquals(0.0, loaded.findAccount(current.getAccountNumber()).getBalance(), 0.001);
+        saver.close();
+    }
+
+    @Test
+    public void testRemovalsAndAdditionsAreSaved() throws IOException {
+        IncrementalSaver saver = new IncrementalSaver(bank, 0);
+        bank.removeAccount(current);
+        bob.removeAccount(current);
+        bank.removeCustomer(bob);
+        SavingsAccount second = new SavingsAccount(alice, 50.0, 5.0);
+        alice.addAccount(second);
+        bank.addAccount(second);
+        saver.saveChanges();
+
+        Map<String, Customer> customers = DataManager.loadCustomers();
+        Bank loaded = new Bank("Test Bank");
+        DataManager.loadAccounts(customers, loaded);
+        assertFalse(customers.containsKey("C002"));
+        assertNull(loaded.findAccount(current.getAccountNumber()));
+        assertEquals(50.0, loaded.findAccount(second.getAccountNumber()).getBalance(), 0.001);
+        assertEquals(2, customers.get("C001").viewAccounts().size());
+        saver.close();
+    }
+
+    @Test
+    public void testMergeFoldsDeltasIntoBaseFiles() throws IOException {
+        IncrementalSaver saver = new IncrementalSaver(bank, 0);
+        current.withdraw(50.0);
+        saver.saveChanges();
+        saver.merge();
+
+        assertFalse(Files.exists(tempDir.resolve("accounts.csv.delta")));
+        assertFalse(Files.exists(tempDir.resolve("accounts.csv.merging")));
+        String accounts = new String(Files.readAllBytes(tempDir.resolve("accounts.csv")));
+        assertTrue(accounts.contains(current.getAccountNumber() + ",-50.0,"));
+        assertEquals(2, accounts.split(System.lineSeparator()).length);
+        saver.close();
+    }
+
+    @Test
+    public void testDeltaAppendedDuringFullSaveIsKept() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Account> accounts = bank.getAccounts();
+        // Holds the full save in the middle of writing the base file
+        List<Account> slowAccounts = new AbstractList<Account>() {
+            @Override
+            public Account get(int index) {
+                writing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return accounts.get(index);
+            }
+
+            @Override
+            public int size() {
+                return accounts.size();
+            }
+        };
+        Thread fullSave = new Thread(() -> DataManager.saveAccounts(slowAccounts));
+        fullSave.start();
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        // A removal the full save knows nothing about
+        Thread deltaSave = new Thread(() -> {
+            try {
+                DataManager.saveAccountChanges(List.of(), List.of(savings.getAccountNumber()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        deltaSave.start();
+        deltaSave.join(200);
+        release.countDown();
+        fullSave.join(10_000);
+        deltaSave.join(10_000);
+
+        Bank loaded = new Bank("Test Bank");
+        DataManager.loadAccounts(DataManager.loadCustomers(), loaded);
+        assertNull(loaded.findAccount(savings.getAccountNumber()));
+        assertNotNull(loaded.findAccount(current.getAccountNumber()));
+    }
+
+    @Test
+    public void testIncompleteSaveIsIgnored() throws IOException {
+        try (FileWriter writer = new FileWriter(tempDir.resolve("accounts.csv.delta").toFile())) {
+            writer.write("U," + savings.getAccountNumber() + ",1.0,Savings,C001,5.0" + System.lineSeparator());
+        }
+
+        Map<String, Customer> customers = DataManager.loadCustomers();
+        Bank loaded = new Bank("Test Bank");
+        DataManager.loadAccounts(customers, loaded);
+        assertEquals(100.0, loaded.findAccount(savings.getAccountNumber()).getBalance(), 0.001);
+    }
+}
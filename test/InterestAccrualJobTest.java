@@ -0,0 +1,165 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Test suite for InterestAccrualJob.
+ * Tests parallel accrual, aggregated journal entries and resuming from a checkpoint.
+ */
+public class InterestAccrualJobTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Bank bank;
+    private List<SavingsAccount> savings;
+    private CurrentAccount current;
+    private File checkpoint;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        bank = new Bank("Test Bank");
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        savings = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            SavingsAccount account = new SavingsAccount(customer, 1000.0, 2.0);
+            savings.add(account);
+            bank.addAccount(account);
+        }
+        current = new CurrentAccount(customer, 500.0, 10.0);
+        current.deposit(1000.0);
+        bank.addAccount(current);
+        checkpoint = tempDir.resolve("interest.checkpoint").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+
+    @Test
+    public void testAccruesEverySavingsAccountOnce() throws IOException {
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 16, ForkJoinPool.commonPool());
+        InterestAccrualJob.Summary summary = job.run("2024-06");
+
+        assertEquals(100, summary.getAccountsCredited());
+        assertEquals(2000.0, summary.getTotalInterest(), 0.001);
+        assertEquals(7, summary.getBatchesRun());
+        for (SavingsAccount account : savings) {
+            assertEquals(1020.0, account.getBalance(), 0.001);
+        }
+        assertEquals(1000.0, current.getBalance(), 0.001);
+
+        List<Transaction> journal = TransactionLogger.getTransactionsForAccount(InterestAccrualJob.JOURNAL_ACCOUNT);
+        assertEquals(7, journal.size());
+        assertEquals(2000.0, journal.stream().mapToDouble(Transaction::getAmount).sum(), 0.001);
+    }
+
+    @Test
+    public void testRerunForSamePeriodDoesNotCreditTwice() throws IOException {
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 16, ForkJoinPool.commonPool());
+        job.run("2024-06");
+        InterestAccrualJob.Summary rerun = job.run("2024-06");
+
+        assertEquals(0, rerun.getAccountsCredited());
+        assertEquals(7, rerun.getBatchesSkipped());
+        assertEquals(1020.0, savings.get(0).getBalance(), 0.001);
+
+        job.run("2024-07");
+        assertEquals(1040.4, savings.get(0).getBalance(), 0.001);
+    }
+
+    @Test
+    public void testResumesAfterPartialRun() throws IOException {
+        List<SavingsAccount> sorted = new ArrayList<>(savings);
+        sorted.sort(Comparator.comparing(Account::getAccountNumber));
+        // Simulate a crashed run that completed the first 40 accounts
+        for (SavingsAccount account : sorted.subList(0, 40)) {
+            account.accrueInterest();
+        }
+        writeCheckpoint("2024-06", sorted.subList(0, 40));
+
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 16, ForkJoinPool.commonPool());
+        InterestAccrualJob.Summary summary = job.run("2024-06");
+
+        assertEquals(60, summary.getAccountsCredited());
+        for (SavingsAccount account : savings) {
+            assertEquals(1020.0, account.getBalance(), 0.001);
+        }
+    }
+
+    @Test
+    public void testResumesTwiceAroundAnEarlierCheckpoint() throws IOException {
+        List<SavingsAccount> sorted = new ArrayList<>(savings);
+        sorted.sort(Comparator.comparing(Account::getAccountNumber));
+        // A crashed run that completed only accounts in the middle of the order
+        for (SavingsAccount account : sorted.subList(40, 50)) {
+            account.accrueInterest();
+        }
+        writeCheckpoint("2024-06", sorted.subList(40, 50));
+
+        // One batch covering accounts on both sides of the earlier checkpoint
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 100, ForkJoinPool.commonPool());
+        assertEquals(90, job.run("2024-06").getAccountsCredited());
+
+        Customer customer = bank.findCustomer("C001");
+        SavingsAccount opened = new SavingsAccount(customer, 1000.0, 2.0);
+        bank.addAccount(opened);
+        InterestAccrualJob.Summary again = job.run("2024-06");
+
+        assertEquals(1, again.getAccountsCredited());
+        assertEquals(2, again.getBatchesSkipped());
+        for (SavingsAccount account : savings) {
+            assertEquals(1020.0, account.getBalance(), 0.001);
+        }
+        assertEquals(1020.0, opened.getBalance(), 0.001);
+    }
+
+    @Test
+    public void testBatchInterruptedBeforeCheckpointIsNotCreditedAgain() throws IOException {
+        // The journal write fails after the accounts are credited, so no batch is recorded as completed
+        TransactionLogger.useFiles(tempDir.toString(), tempDir.resolve("transactions.idx").toString());
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 100, ForkJoinPool.commonPool());
+        assertThrows(IOException.class, () -> job.run("2024-06"));
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+
+        InterestAccrualJob.Summary rerun = job.run("2024-06");
+
+        assertEquals(0, rerun.getAccountsCredited());
+        assertEquals(100, rerun.getAccountsInDoubt().size());
+        for (SavingsAccount account : savings) {
+            assertEquals(1020.0, account.getBalance(), 0.001);
+        }
+    }
+
+    private void writeCheckpoint(String period, List<SavingsAccount> accounts) throws IOException {
+        try (FileWriter writer = new FileWriter(checkpoint)) {
+            writer.write(period);
+            for (SavingsAccount account : accounts) {
+                writer.write("," + account.getAccountNumber());
+            }
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    @Test
+    public void testInvalidPeriod() {
+        InterestAccrualJob job = new InterestAccrualJob(bank, checkpoint, 16, ForkJoinPool.commonPool());
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> job.run("2024,06"));
+        assertEquals("Period cannot be empty or contain commas.", exception.getMessage());
+    }
+}
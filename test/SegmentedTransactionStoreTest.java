@@ -0,0 +1,178 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test suite for SegmentedTransactionStore.
+ * Tests stamping, rolling into time segments, segment headers, time range queries
+ * and reopening a log with a segment archived.
+ */
+public class SegmentedTransactionStoreTest {
+
+    private static final long WINDOW = 1000;
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testAppendStampsSequenceAndTimestamp() throws IOException {
+        clock.set(500);
+        try (Store store = open()) {
+            Transaction[] batch = append(store.log, 3);
+            assertEquals(1, batch[0].getSequence());
+            assertEquals(3, batch[2].getSequence());
+            assertEquals(500, batch[2].getTimestamp());
+
+            // A clock that steps back does not make timestamps run backwards
+            clock.set(400);
+            assertEquals(500, append(store.log, 1)[0].getTimestamp());
+        }
+        clock.set(600);
+        try (Store store = open()) {
+            Transaction transaction = append(store.log, 1)[0];
+            assertEquals(5, transaction.getSequence());
+            assertEquals(600, transaction.getTimestamp());
+            List<Transaction> all = scanAll(store.log);
+            assertEquals(5, all.size());
+            assertEquals(4, all.get(3).getSequence());
+        }
+    }
+
+    @Test
+    public void testRollsIntoTimeSegmentsWithHeaders() throws IOException {
+        try (Store store = open()) {
+            clock.set(100);
+            append(store.log, 2);
+            clock.set(1500);
+            append(store.log, 1);
+            clock.set(2500);
+            append(store.log, 1);
+
+            List<Path> segments = segmentFiles();
+            assertEquals(3, segments.size());
+            String header = Files.readAllLines(segments.get(0), StandardCharsets.US_ASCII).get(0);
+            assertEquals(SegmentedTransactionStore.HEADER_LENGTH - 1, header.length());
+            String[] values = header.split(",");
+            assertEquals("#segment", values[0]);
+            assertEquals(1, Long.parseLong(values[1]));
+            assertEquals(2, Long.parseLong(values[2]));
+            assertEquals(100, Long.parseLong(values[3]));
+            assertEquals(100, Long.parseLong(values[4]));
+
+            // Offsets run on across segments and read back the right record
+            List<Long> offsets = new ArrayList<>();
+            List<Integer> lengths = new ArrayList<>();
+            long[] end = new long[1];
+            store.log.scan(0, (transaction, offset, length, nextOffset) -> {
+                offsets.add(offset);
+                lengths.add(length);
+                end[0] = nextOffset;
+            });
+            assertEquals(4, offsets.size());
+            assertEquals(store.log.size(), end[0]);
+            assertEquals(3, store.log.read(offsets.get(2), lengths.get(2)).getSequence());
+
+            // Paging stops at segment boundaries and resumes in the next segment
+            List<Transaction> page = new ArrayList<>();
+            long next = store.log.scan(0, 2, (transaction, offset, length, nextOffset) -> page.add(transaction));
+            store.log.scan(next, 2, (transaction, offset, length, nextOffset) -> page.add(transaction));
+            assertEquals(4, page.size());
+            assertEquals(4, page.get(3).getSequence());
+        }
+    }
+
+    @Test
+    public void testRangeQuerySkipsArchivedSegments() throws IOException {
+        try (Store store = open()) {
+            clock.set(100);
+            append(store.log, 2);
+            clock.set(1500);
+            append(store.log, 3);
+            clock.set(2500);
+            append(store.log, 1);
+
+            assertEquals(3, between(store.log, 1000, 2000).size());
+            assertEquals(5, between(store.log, 0, 2000).size());
+            assertEquals(0, between(store.log, 3000, 4000).size());
+        }
+
+        // Archive the oldest segment: queries that do not need it still work
+        Path archived = segmentFiles().get(0);
+        long archivedOffset = Long.parseLong(archived.getFileName().toString().replace(".csv", ""))
+                + SegmentedTransactionStore.HEADER_LENGTH;
+        Files.move(archived, tempDir.resolve("archived.csv"));
+        clock.set(2600);
+        try (Store store = open()) {
+            assertEquals(3, between(store.log, 1000, 2000).size());
+            assertEquals(0, between(store.log, 0, 1000).size());
+            assertEquals(4, scanAll(store.log).size());
+            assertEquals(7, append(store.log, 1)[0].getSequence());
+            assertThrows(IOException.class, () -> store.log.read(archivedOffset, 10));
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SegmentedTransactionStore(tempDir.resolve("log").toString(), 0));
+        assertThrows(IllegalArgumentException.class, () -> new SegmentedTransactionStore(" ", WINDOW));
+    }
+
+    private Store open() throws IOException {
+        return new Store(new SegmentedTransactionStore(tempDir.resolve("log").toString(), WINDOW, clock::get));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("log"))) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Transaction[] append(SegmentedTransactionStore log, int count) throws IOException {
+        Transaction[] batch = new Transaction[count];
+        for (int i = 0; i < count; i++) {
+            batch[i] = new Transaction("C001", "ACC1", "Deposit", 10.0 + i);
+        }
+        log.append(batch, count, new long[count], new int[count]);
+        return batch;
+    }
+
+    private static List<Transaction> scanAll(SegmentedTransactionStore log) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        log.scan(0, (transaction, offset, length, nextOffset) -> transactions.add(transaction));
+        return transactions;
+    }
+
+    private static List<Transaction> between(SegmentedTransactionStore log, long from, long to) throws IOException {
+        List<Transaction> transactions = new ArrayList<>();
+        log.scanBetween(from, to, (transaction, offset, length, nextOffset) -> transactions.add(transaction));
+        return transactions;
+    }
+
+    /**
+     * Closes the store at the end of a try-with-resources block.
+     */
+    private static final class Store implements AutoCloseable {
+        final SegmentedTransactionStore log;
+
+        Store(SegmentedTransactionStore log) {
+            this.log = log;
+        }
+
+        @Override
+        public void close() throws IOException {
+            log.close();
+        }
+    }
+}
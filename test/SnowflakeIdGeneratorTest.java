@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Test suite for SnowflakeIdGenerator.
+ * Tests uniqueness across threads, the ID layout and the compact account number form.
+ */
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    public void testIdsUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    numbers.add(generator.nextAccountNumber());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(160000, numbers.size());
+    }
+
+    @Test
+    public void testClockGoingBackwardsDoesNotRepeat() {
+        long[] now = { SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000 };
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, () -> now[0]);
+        long first = generator.nextId();
+        assertEquals(now[0], SnowflakeIdGenerator.timestampOf(first));
+
+        Set<Long> ids = new HashSet<>();
+        ids.add(first);
+        now[0] -= 5000;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(ids.add(generator.nextId()));
+        }
+    }
+
+    @Test
+    public void testFormatAndParse() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID);
+        long id = generator.nextId();
+        String number = SnowflakeIdGenerator.format(id);
+
+        assertTrue(id > 0);
+        assertTrue(number.length() <= 13);
+        assertEquals(id, SnowflakeIdGenerator.parse(number));
+        assertEquals(-1, SnowflakeIdGenerator.parse("ACC-1"));
+        assertEquals(-1, SnowflakeIdGenerator.parse("0ABC"));
+        assertEquals(-1, SnowflakeIdGenerator.parse("abc"));
+        assertEquals(-1, SnowflakeIdGenerator.parse("ZZZZZZZZZZZZZ"));
+    }
+
+    @Test
+    public void testInvalidNodeId() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+        assertEquals("Node ID must be between 0 and 1023.", exception.getMessage());
+    }
+
+    @Test
+    public void testAccountsUseConfiguredGenerator() {
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        try {
+            Account.useIdGenerator(() -> "FIXED1");
+            assertEquals("FIXED1", new SavingsAccount(customer, 2.0).getAccountNumber());
+        } finally {
+            Account.useIdGenerator(new SnowflakeIdGenerator(0));
+        }
+        assertTrue(SnowflakeIdGenerator.parse(new SavingsAccount(customer, 2.0).getAccountNumber()) > 0);
+    }
+}
@@ -0,0 +1,397 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test suite for TransactionLogger class.
+ * Tests synchronous and batched logging and indexed history lookups.
+ */
+public class TransactionLoggerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+    }
+    
+    @Test
+    public void testSynchronousLogReturnsCompletedFuture() {
+        CompletableFuture<Void> future = TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 10.0));
+        
+        assertTrue(future.isDone());
+        assertEquals(1, TransactionLogger.getTransactions().size());
+    }
+    
+    @Test
+    public void testLogNullTransaction() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            TransactionLogger.log(null);
+        });
+        assertEquals("Transaction cannot be null.", exception.getMessage());
+    }
+    
+    @Test
+    public void testBatchedLogCompletesWhenDurable() throws Exception {
+        TransactionLogger.enableBatching(64, 5, TransactionWriter.FsyncPolicy.EVERY_BATCH);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            futures.add(TransactionLogger.log(new Transaction("C001", "ACC" + (i % 4), "Deposit", i)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(200, TransactionLogger.getTransactions().size());
+        assertEquals(50, TransactionLogger.getTransactionsForAccount("ACC1").size());
+        assertEquals(200, TransactionLogger.getTransactionsForCustomer("C001").size());
+    }
+    
+    @Test
+    public void testBatchedLogFromManyThreads() throws Exception {
+        TransactionLogger.enableBatching(128, 1, TransactionWriter.FsyncPolicy.NEVER);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final String accountNumber = "ACC" + t;
+            executor.submit(() -> {
+                for (int i = 1; i <= 250; i++) {
+                    CompletableFuture<Void> future = TransactionLogger.log(new Transaction("C00" + accountNumber, accountNumber, "Deposit", i));
+                    synchronized (futures) {
+                        futures.add(future);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        
+        List<Transaction> history = TransactionLogger.getTransactionsForAccount("ACC3");
+        assertEquals(250, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(i + 1, history.get(i).getAmount(), 0.01);
+        }
+    }
+    
+    @Test
+    public void testDisableBatchingFlushesQueue() {
+        TransactionLogger.enableBatching(1000, 10_000, TransactionWriter.FsyncPolicy.NEVER);
+        for (int i = 1; i <= 10; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", i));
+        }
+        TransactionLogger.disableBatching();
+        
+        assertEquals(0, TransactionLogger.getQueueDepth());
+        assertEquals(10, TransactionLogger.getTransactionsForAccount("ACC1").size());
+    }
+    
+    @Test
+    public void testSubmitRacingWithCloseNeverLeavesAFuturePending() throws Exception {
+        CsvTransactionStore store = new CsvTransactionStore(tempDir.resolve("race.csv").toString());
+        TransactionIndex index = new TransactionIndex(tempDir.resolve("race.idx").toString());
+        try {
+            index.load(store);
+            for (int round = 0; round < 20; round++) {
+                TransactionWriter writer = new TransactionWriter(store, index, 8, 0, TransactionWriter.FsyncPolicy.NEVER);
+                ExecutorService executor = Executors.newFixedThreadPool(4);
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            try {
+                                CompletableFuture<Void> future = writer.submit(new Transaction("C001", "ACC1", "Deposit", 1.0));
+                                synchronized (futures) {
+                                    futures.add(future);
+                                }
+                            } catch (IllegalStateException e) {
+                                return;
+                            }
+                        }
+                    });
+                }
+                Thread.sleep(1);
+                writer.close();
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            index.close();
+            store.close();
+        }
+    }
+    
+    @Test
+    public void testBatchedWriterSurvivesARefusedRecord() throws Exception {
+        TransactionLogger.useBinaryJournal(tempDir.resolve("transactions.journal").toString(),
+                tempDir.resolve("journal.idx").toString());
+        TransactionLogger.enableBatching(16, 1, TransactionWriter.FsyncPolicy.NEVER);
+        String oversized = "C".repeat(0x10000);
+        
+        CompletableFuture<Void> refused = TransactionLogger.log(new Transaction(oversized, "ACC1", "Deposit", 10.0));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> refused.get(10, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 20.0)).get(10, TimeUnit.SECONDS);
+        
+        TransactionLogger.disableBatching();
+        List<Transaction> history = TransactionLogger.getTransactionsForAccount("ACC1");
+        assertEquals(1, history.size());
+        assertEquals(20.0, history.get(0).getAmount(), 0.001);
+    }
+    
+    @Test
+    public void testIndexAppendsAreFlushedAndReloaded() throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC" + (i % 2), "Deposit", i));
+        }
+        
+        // Every append reaches the index file while it stays open
+        assertEquals(20, Files.readAllLines(tempDir.resolve("transactions.idx")).size());
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 21));
+        assertEquals(11, TransactionLogger.getTransactionsForAccount("ACC1").size());
+        assertEquals(21, Files.readAllLines(tempDir.resolve("transactions.idx")).size());
+    }
+    
+    @Test
+    public void testEnableBatchingInvalidBatchSize() {
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            TransactionLogger.enableBatching(0, 1, TransactionWriter.FsyncPolicy.NEVER);
+        });
+        assertEquals("Batch size must be greater than zero.", exception.getMessage());
+    }
+    
+    @Test
+    public void testBinaryJournalHistory() {
+        TransactionLogger.useBinaryJournal(tempDir.resolve("transactions.journal").toString(),
+                tempDir.resolve("journal.idx").toString());
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 125.5));
+        TransactionLogger.log(new Transaction("C002", "ACC2", "Withdrawal", 20.0));
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Transfer", 5.25));
+        
+        List<Transaction> history = TransactionLogger.getTransactionsForAccount("ACC1");
+        assertEquals(2, history.size());
+        assertEquals(125.5, history.get(0).getAmount(), 0.001);
+        assertEquals("Transfer", history.get(1).getType());
+        assertEquals(3, TransactionLogger.getTransactions().size());
+    }
+    
+    @Test
+    public void testBinaryJournalSurvivesReopenAcrossSegments() throws Exception {
+        String journalFile = tempDir.resolve("small.journal").toString();
+        BinaryTransactionJournal journal = new BinaryTransactionJournal(journalFile, 4096);
+        Transaction[] batch = new Transaction[500];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Transaction("C" + i, "ACC" + (i % 7), "Deposit", i + 1);
+        }
+        long end = journal.append(batch, batch.length, new long[batch.length], new int[batch.length]);
+        journal.close();
+        
+        BinaryTransactionJournal reopened = new BinaryTransactionJournal(journalFile);
+        List<Transaction> scanned = new ArrayList<>();
+        reopened.scan(0, (transaction, offset, length, nextOffset) -> scanned.add(transaction));
+        reopened.close();
+        
+        assertEquals(end, reopened.size());
+        assertEquals(500, scanned.size());
+        assertEquals("C499", scanned.get(499).getCustomerID());
+        assertEquals(500.0, scanned.get(499).getAmount(), 0.001);
+    }
+    
+    @Test
+    public void testBinaryJournalScanStopsAtAnInvalidLength() throws Exception {
+        String journalFile = tempDir.resolve("corrupt.journal").toString();
+        BinaryTransactionJournal journal = new BinaryTransactionJournal(journalFile, 4096);
+        Transaction[] batch = new Transaction[5];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Transaction("C" + i, "ACC1", "Deposit", i + 1);
+        }
+        long[] offsets = new long[batch.length];
+        journal.append(batch, batch.length, offsets, new int[batch.length]);
+        journal.close();
+        
+        for (int length : new int[] { -5, 0, 4096 }) {
+            try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                file.seek(offsets[2]);
+                file.writeInt(length);
+            }
+            BinaryTransactionJournal reopened = new BinaryTransactionJournal(journalFile);
+            List<Transaction> scanned = new ArrayList<>();
+            long resumeAt = reopened.scan(0, Integer.MAX_VALUE, (transaction, offset, recordLength, nextOffset) -> scanned.add(transaction));
+            reopened.close();
+            
+            assertEquals(2, scanned.size(), "length " + length);
+            assertEquals(offsets[2], resumeAt, "length " + length);
+        }
+    }
+    
+    @Test
+    public void testConvertCsvToJournalAndBack() throws Exception {
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 10.0));
+        TransactionLogger.log(new Transaction("C002", "ACC2", "Withdrawal", 2.5));
+        String csvFile = tempDir.resolve("transactions.csv").toString();
+        String journalFile = tempDir.resolve("converted.journal").toString();
+        String roundTripFile = tempDir.resolve("roundtrip.csv").toString();
+        
+        assertEquals(2, TransactionLogConverter.csvToJournal(csvFile, journalFile));
+        assertEquals(2, TransactionLogConverter.journalToCsv(journalFile, roundTripFile));
+        
+        TransactionLogger.useFiles(roundTripFile, tempDir.resolve("roundtrip.idx").toString());
+        List<Transaction> transactions = TransactionLogger.getTransactions();
+        assertEquals(2, transactions.size());
+        assertEquals("ACC2", transactions.get(1).getAccountNumber());
+        assertEquals(2.5, transactions.get(1).getAmount(), 0.001);
+    }
+    
+    @Test
+    public void testConvertRefusesExistingDestination() {
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 10.0));
+        String csvFile = tempDir.resolve("transactions.csv").toString();
+        
+        assertThrows(java.io.IOException.class, () -> TransactionLogConverter.csvToJournal(csvFile, csvFile));
+    }
+    
+    @Test
+    public void testPagedHistoryForAccount() {
+        for (int i = 1; i <= 25; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC" + (i % 2), "Deposit", i));
+        }
+        
+        List<Double> amounts = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            TransactionPage page = TransactionLogger.getTransactionPage("ACC1", 5, token);
+            page.getTransactions().forEach(transaction -> amounts.add(transaction.getAmount()));
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+        
+        assertEquals(3, pages);
+        assertEquals(13, amounts.size());
+        assertEquals(1.0, amounts.get(0), 0.001);
+        assertEquals(25.0, amounts.get(12), 0.001);
+    }
+    
+    @Test
+    public void testPagedHistoryForWholeLog() {
+        for (int i = 1; i <= 10; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC" + i, "Deposit", i));
+        }
+        
+        TransactionPage first = TransactionLogger.getTransactionPage(null, 4, null);
+        TransactionPage second = TransactionLogger.getTransactionPage(null, 4, first.getNextPageToken());
+        TransactionPage third = TransactionLogger.getTransactionPage(null, 4, second.getNextPageToken());
+        
+        assertEquals(4, first.getTransactions().size());
+        assertEquals("ACC5", second.getTransactions().get(0).getAccountNumber());
+        assertEquals(2, third.getTransactions().size());
+        assertFalse(third.hasNextPage());
+    }
+    
+    @Test
+    public void testStreamTransactionsOnBinaryJournal() {
+        TransactionLogger.useBinaryJournal(tempDir.resolve("transactions.journal").toString(),
+                tempDir.resolve("journal.idx").toString());
+        for (int i = 1; i <= 600; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC" + (i % 3), "Deposit", i));
+        }
+        
+        assertEquals(600, TransactionLogger.streamTransactions(null).count());
+        assertEquals(200, TransactionLogger.streamTransactions("ACC0").count());
+        assertEquals(3.0, TransactionLogger.streamTransactions("ACC0").findFirst().get().getAmount(), 0.001);
+        assertEquals(0, TransactionLogger.streamTransactions("MISSING").count());
+    }
+    
+    @Test
+    public void testInvalidPageToken() {
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 10.0));
+        String accountToken = "a:1";
+        
+        assertThrows(IllegalArgumentException.class, () -> TransactionLogger.getTransactionPage(null, 5, accountToken));
+        assertThrows(IllegalArgumentException.class, () -> TransactionLogger.getTransactionPage("ACC1", 5, "bogus"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionLogger.getTransactionPage("ACC1", 0, null));
+    }
+    
+    @Test
+    public void testSegmentedLogHistoryAndTimeRange() {
+        TransactionLogger.useSegmentedLog(tempDir.resolve("segments").toString(),
+                tempDir.resolve("segments.idx").toString(), SegmentedTransactionStore.DEFAULT_SEGMENT_MILLIS);
+        Transaction first = new Transaction("C001", "ACC1", "Deposit", 10.0);
+        Transaction second = new Transaction("C002", "ACC2", "Withdrawal", 5.0);
+        TransactionLogger.log(first);
+        TransactionLogger.logAll(List.of(second, new Transaction("C001", "ACC1", "Withdrawal", 2.0)));
+        
+        assertEquals(1, first.getSequence());
+        assertEquals(2, second.getSequence());
+        assertEquals(2, TransactionLogger.getTransactionsForAccount("ACC1").size());
+        List<Transaction> range = TransactionLogger.getTransactionsBetween(first.getTimestamp(), second.getTimestamp() + 1);
+        assertEquals(3, range.size());
+        assertEquals(3, range.get(2).getSequence());
+        assertEquals(0, TransactionLogger.getTransactionsBetween(0, first.getTimestamp()).size());
+        assertThrows(IllegalArgumentException.class, () -> TransactionLogger.getTransactionsBetween(10, 5));
+        
+        // Reopening the log recovers the sequence
+        TransactionLogger.useSegmentedLog(tempDir.resolve("segments").toString(),
+                tempDir.resolve("segments.idx").toString(), SegmentedTransactionStore.DEFAULT_SEGMENT_MILLIS);
+        Transaction fourth = new Transaction("C001", "ACC1", "Deposit", 1.0);
+        TransactionLogger.log(fourth);
+        assertEquals(4, fourth.getSequence());
+        assertEquals(4, TransactionLogger.getTransactions().size());
+    }
+    
+    @Test
+    public void testTimeRangeNeedsSegmentedLog() {
+        TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", 10.0));
+        
+        assertThrows(IllegalStateException.class, () -> TransactionLogger.getTransactionsBetween(0, Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void testHistorySkipsArchivedSegments() throws Exception {
+        Path segments = tempDir.resolve("segments");
+        String indexFile = tempDir.resolve("segments.idx").toString();
+        TransactionLogger.useSegmentedLog(segments.toString(), indexFile, 1);
+        for (int i = 1; i <= 3; i++) {
+            TransactionLogger.log(new Transaction("C001", "ACC1", "Deposit", i));
+            Thread.sleep(5);
+        }
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(segments)) {
+            files = listed.sorted().collect(Collectors.toList());
+        }
+        assertEquals(3, files.size());
+        Files.move(files.get(0), tempDir.resolve("archived.csv"));
+        TransactionLogger.useSegmentedLog(segments.toString(), indexFile, 1);
+        
+        List<Transaction> history = TransactionLogger.getTransactionsForAccount("ACC1");
+        assertEquals(2, history.size());
+        assertEquals(2.0, history.get(0).getAmount(), 0.001);
+        assertEquals(2, TransactionLogger.getTransactionsForCustomer("C001").size());
+        assertEquals(2, TransactionLogger.getTransactionPage("ACC1", 10, null).getTransactions().size());
+    }
+}
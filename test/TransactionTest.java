@@ -107,6 +107,19 @@ public class TransactionTest {
         assertEquals(250.0, t.getAmount(), 0.01);
     }
     
+    @Test
+    public void testStampedTransactionCSVRoundTrip() {
+        transaction.stamp(42, 1700000000000L);
+        String csv = transaction.toCSV();
+        
+        assertEquals("C001,ACC123,Deposit,500.0,42,1700000000000", csv);
+        Transaction t = Transaction.fromCSV(csv);
+        assertEquals(42, t.getSequence());
+        assertEquals(1700000000000L, t.getTimestamp());
+        assertEquals(0, Transaction.fromCSV("C002,ACC456,Withdrawal,250.0").getSequence());
+        assertThrows(IllegalArgumentException.class, () -> Transaction.fromCSV("C001,ACC123,Deposit,500.0,x,1"));
+    }
+    
     @Test
     public void testTransactionFromCSVInvalidFormat() {
         String csv = "C001,ACC123,Deposit"; // Missing amount
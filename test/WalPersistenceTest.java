@@ -0,0 +1,155 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Test suite for WalPersistence and WriteAheadLog.
+ * Tests recovery from the write-ahead log after a crash and log truncation on snapshot.
+ */
+public class WalPersistenceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File walDirectory;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionLogger.useFiles(tempDir.resolve("transactions.csv").toString(),
+                tempDir.resolve("transactions.idx").toString());
+        DataManager.useFiles(tempDir.resolve("customers.csv").toString(),
+                tempDir.resolve("accounts.csv").toString());
+        walDirectory = tempDir.toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionLogger.useFiles("transactions.csv", "transactions.idx");
+        DataManager.useFiles("customers.csv", "accounts.csv");
+    }
+
+    @Test
+    public void testReplayAfterCrash() throws IOException {
+        Bank bank = new Bank("Test Bank");
+        WalPersistence persistence = WalPersistence.open(bank, walDirectory, 0);
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        SavingsAccount savings = new SavingsAccount(customer, 100.0, 5.0);
+        CurrentAccount current = new CurrentAccount(customer, 500.0, 10.0);
+        customer.addAccount(savings);
+        customer.addAccount(current);
+        bank.addAccount(savings);
+        bank.addAccount(current);
+        bank.deposit(customer, savings, 50.25);
+        bank.transfer(customer, savings, current, 30.0);
+        // No snapshot or close: only the write-ahead log survives
+
+        Bank recovered = new Bank("Test Bank");
+        WalPersistence reopened = WalPersistence.open(recovered, walDirectory, 0);
+        try {
+            assertNotNull(recovered.findCustomer("C001"));
+            assertEquals(120.25, recovered.findAccount(savings.getAccountNumber()).getBalance(), 0.001);
+            assertEquals(30.0, recovered.findAccount(current.getAccountNumber()).getBalance(), 0.001);
+            assertEquals(2, recovered.findCustomer("C001").viewAccounts().size());
+        } finally {
+            reopened.close();
+            persistence.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotTruncatesLog() throws IOException {
+        Bank bank = new Bank("Test Bank");
+        WalPersistence persistence = WalPersistence.open(bank, walDirectory, 0);
+        Customer customer = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        bank.addCustomer(customer);
+        SavingsAccount savings = new SavingsAccount(customer, 100.0, 5.0);
+        customer.addAccount(savings);
+        bank.addAccount(savings);
+        for (int i = 0; i < 10; i++) {
+            savings.deposit(1.0);
+        }
+        persistence.snapshot();
+        savings.withdraw(5.0);
+
+        WriteAheadLog log = new WriteAheadLog(walDirectory);
+        int[] records = new int[1];
+        log.replay(0, (sequence, type, payload) -> records[0]++);
+        log.close();
+        assertEquals(1, records[0]);
+
+        Bank recovered = new Bank("Test Bank");
+        WalPersistence reopened = WalPersistence.open(recovered, walDirectory, 0);
+        try {
+            assertEquals(105.0, recovered.findAccount(savings.getAccountNumber()).getBalance(), 0.001);
+        } finally {
+            reopened.close();
+            persistence.close();
+        }
+    }
+
+    @Test
+    public void testRemovalsAreReplayed() throws IOException {
+        Bank bank = new Bank("Test Bank");
+        WalPersistence persistence = WalPersistence.open(bank, walDirectory, 0);
+        Customer alice = new Customer("C001", "Alice Johnson", "100 First St", "555-0001", "11111-1111111-1");
+        Customer bob = new Customer("C002", "Bob Williams", "200 Second St", "555-0002", "22222-2222222-2");
+        bank.addCustomer(alice);
+        bank.addCustomer(bob);
+        SavingsAccount savings = new SavingsAccount(alice, 100.0, 5.0);
+        alice.addAccount(savings);
+        bank.addAccount(savings);
+        persistence.snapshot();
+        bank.removeAccount(savings);
+        alice.removeAccount(savings);
+        bank.removeCustomer(bob);
+
+        Bank recovered = new Bank("Test Bank");
+        WalPersistence reopened = WalPersistence.open(recovered, walDirectory, 0);
+        try {
+            assertNull(recovered.findAccount(savings.getAccountNumber()));
+            assertNull(recovered.findCustomer("C002"));
+            assertNotNull(recovered.findCustomer("C001"));
+        } finally {
+            reopened.close();
+            persistence.close();
+        }
+    }
+
+    @Test
+    public void testFsyncPolicies() throws IOException {
+        WriteAheadLog durable = new WriteAheadLog(walDirectory);
+        assertEquals(WriteAheadLog.FsyncPolicy.EVERY_APPEND, durable.getFsyncPolicy());
+        durable.append(WriteAheadLog.BALANCE, "ACC1,100");
+        durable.close();
+
+        WriteAheadLog relaxed = new WriteAheadLog(walDirectory, WriteAheadLog.FsyncPolicy.NEVER);
+        assertEquals(2, relaxed.append(WriteAheadLog.BALANCE, "ACC1,200"));
+        relaxed.close();
+        WriteAheadLog reopened = new WriteAheadLog(walDirectory);
+        assertEquals(2, reopened.getLastSequence());
+        reopened.close();
+
+        assertThrows(IllegalArgumentException.class, () -> new WriteAheadLog(walDirectory, null));
+    }
+
+    @Test
+    public void testTornRecordIsSkipped() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(walDirectory);
+        log.append(WriteAheadLog.BALANCE, "ACC1,100");
+        log.close();
+        try (java.io.FileWriter writer = new java.io.FileWriter(new File(walDirectory, "bank.wal.1"), true)) {
+            writer.write("2,B");
+        }
+
+        WriteAheadLog reopened = new WriteAheadLog(walDirectory);
+        assertEquals(1, reopened.getLastSequence());
+        assertEquals(2, reopened.append(WriteAheadLog.BALANCE, "ACC1,200"));
+        reopened.close();
+    }
+}